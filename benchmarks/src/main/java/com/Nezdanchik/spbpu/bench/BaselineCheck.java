@@ -0,0 +1,92 @@
+package com.Nezdanchik.spbpu.bench;
+
+import com.Nezdanchik.spbpu.JsonParser;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// сравнивает результаты JMH (-rf json) с базовой линией: печатает ops/s, МБ/с и байт на операцию
+// и завершается с кодом 1, если пропускная способность упала или выделение памяти выросло больше чем на threshold %.
+// Запуск: java --enable-preview -cp ... BaselineCheck baseline.json results.json [threshold]
+public final class BaselineCheck {
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+    private static final String BYTES = "bytes";
+    // малые изменения выделения (выравнивание, заголовки) не считаются регрессией
+    private static final double ALLOCATION_SLACK = 64;
+
+    private BaselineCheck() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineCheck <baseline.json> <results.json> [threshold %]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+        List<String> regressions = compare(read(Path.of(args[0])), read(Path.of(args[1])), threshold);
+        if (!regressions.isEmpty()) {
+            System.err.println("Regressions beyond " + threshold + "%:");
+            regressions.forEach(r -> System.err.println("  " + r));
+            System.exit(1);
+        }
+    }
+
+    // результат одного замера: ключ — имя метода и параметры
+    record Result(double opsPerSecond, double bytesPerSecond, double allocatedPerOp) {
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Result> read(Path file) throws Exception {
+        Map<String, Result> results = new LinkedHashMap<>();
+        List<Object> runs = (List<Object>) new JsonParser(Files.readString(file)).parse();
+        for (Object run : runs) {
+            Map<String, Object> map = (Map<String, Object>) run;
+            String name = (String) map.get("benchmark");
+            Object params = map.get("params");
+            String key = params == null ? name : name + " " + params;
+            Map<String, Object> secondary = (Map<String, Object>) map.getOrDefault("secondaryMetrics", Map.of());
+            results.put(key, new Result(score(map.get("primaryMetric")), score(secondary.get(BYTES)),
+                    score(secondary.get(ALLOCATION))));
+        }
+        return results;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static double score(Object metric) {
+        if (metric == null) {
+            return Double.NaN;
+        }
+        Object score = ((Map<String, Object>) metric).get("score");
+        return score instanceof Number number ? number.doubleValue() : Double.NaN;
+    }
+
+    static List<String> compare(Map<String, Result> baseline, Map<String, Result> current, double threshold) {
+        List<String> regressions = new ArrayList<>();
+        System.out.printf("%-70s %14s %10s %12s %8s%n", "benchmark", "ops/s", "MB/s", "B/op", "change");
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result now = entry.getValue();
+            Result before = baseline.get(entry.getKey());
+            String change = "new";
+            if (before != null) {
+                double speed = (now.opsPerSecond() / before.opsPerSecond() - 1) * 100;
+                change = String.format("%+.1f%%", speed);
+                if (speed < -threshold) {
+                    regressions.add(String.format("%s: throughput %.1f -> %.1f ops/s (%+.1f%%)",
+                            entry.getKey(), before.opsPerSecond(), now.opsPerSecond(), speed));
+                }
+                double allowed = before.allocatedPerOp() * (1 + threshold / 100) + ALLOCATION_SLACK;
+                if (now.allocatedPerOp() > allowed) {
+                    regressions.add(String.format("%s: allocation %.0f -> %.0f B/op",
+                            entry.getKey(), before.allocatedPerOp(), now.allocatedPerOp()));
+                }
+            }
+            System.out.printf("%-70s %14.1f %10.1f %12.0f %8s%n", entry.getKey(), now.opsPerSecond(),
+                    now.bytesPerSecond() / 1_000_000, now.allocatedPerOp(), change);
+        }
+        return regressions;
+    }
+}
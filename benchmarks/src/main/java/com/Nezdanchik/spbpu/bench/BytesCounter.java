@@ -0,0 +1,19 @@
+package com.Nezdanchik.spbpu.bench;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// число обработанных байт входа; JMH выводит его как скорость "bytes" (байт/с), BaselineCheck — в МБ/с
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class BytesCounter {
+    public long bytes;
+
+    @Setup(Level.Iteration)
+    public void clean() {
+        bytes = 0;
+    }
+}
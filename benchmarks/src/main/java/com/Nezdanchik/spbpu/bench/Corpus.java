@@ -0,0 +1,120 @@
+package com.Nezdanchik.spbpu.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+// наборы документов для замеров; генерируются с фиксированным seed, чтобы запуски были сравнимы
+public enum Corpus {
+    // небольшое сообщение API (~0,7 КБ)
+    API_MESSAGE {
+        @Override
+        String generate(Random random) {
+            return apiMessage(random, 0);
+        }
+    },
+    // большой массив однотипных записей (~1,5 МБ)
+    RECORDS {
+        @Override
+        String generate(Random random) {
+            StringBuilder sb = new StringBuilder("[");
+            for (int i = 0; i < 10_000; i++) {
+                sb.append(i > 0 ? "," : "").append(record(random, i));
+            }
+            return sb.append(']').toString();
+        }
+    },
+    // телеметрия: в основном целые и дробные числа (~2 МБ)
+    TELEMETRY {
+        @Override
+        String generate(Random random) {
+            StringBuilder sb = new StringBuilder("{\"device\":\"sensor-17\",\"samples\":[");
+            for (int i = 0; i < 20_000; i++) {
+                sb.append(i > 0 ? "," : "")
+                        .append("{\"t\":").append(1_700_000_000_000L + i * 250L)
+                        .append(",\"temp\":").append(Math.round((20 + random.nextGaussian() * 3) * 100) / 100.0)
+                        .append(",\"rssi\":").append(-40 - random.nextInt(60))
+                        .append(",\"xyz\":[").append(random.nextDouble()).append(',').append(-random.nextDouble())
+                        .append(',').append(random.nextInt(1 << 20)).append("]}");
+            }
+            return sb.append("]}").toString();
+        }
+    },
+    // глубокая вложенность объектов и массивов
+    NESTED {
+        @Override
+        String generate(Random random) {
+            StringBuilder sb = new StringBuilder();
+            for (int copy = 0; copy < 200; copy++) {
+                sb.append(copy == 0 ? "[" : ",");
+                int depth = 60;
+                for (int i = 0; i < depth; i++) {
+                    sb.append(i % 2 == 0 ? "{\"level" + i + "\":" : "[" + i + ",");
+                }
+                sb.append("null");
+                for (int i = depth - 1; i >= 0; i--) {
+                    sb.append(i % 2 == 0 ? "}" : "]");
+                }
+            }
+            return sb.append(']').toString();
+        }
+    },
+    // длинные строки с экранированием и не-ASCII символами
+    STRINGS {
+        @Override
+        String generate(Random random) {
+            String[] words = {"plain", "quote\\\"d", "back\\\\slash", "tab\\there", "line\\nbreak", "юникод",
+                    "emoji 😀", "\\u00e9t\\u00e9", "path\\/to", "日本語"};
+            StringBuilder sb = new StringBuilder("[");
+            for (int i = 0; i < 5_000; i++) {
+                sb.append(i > 0 ? "," : "").append("{\"id\":").append(i).append(",\"text\":\"");
+                for (int w = 0; w < 20; w++) {
+                    sb.append(words[random.nextInt(words.length)]).append(' ');
+                }
+                sb.append("\"}");
+            }
+            return sb.append(']').toString();
+        }
+    };
+
+    private String json;
+    private byte[] bytes;
+
+    abstract String generate(Random random);
+
+    public synchronized String json() {
+        if (json == null) {
+            json = generate(new Random(42));
+        }
+        return json;
+    }
+
+    public synchronized byte[] bytes() {
+        if (bytes == null) {
+            bytes = json().getBytes(StandardCharsets.UTF_8);
+        }
+        return bytes;
+    }
+
+    static String apiMessage(Random random, int id) {
+        StringBuilder sb = new StringBuilder()
+                .append("{\"requestId\":\"").append(Long.toHexString(random.nextLong())).append('"')
+                .append(",\"status\":200,\"ok\":true,\"elapsedMs\":").append(random.nextInt(500) / 10.0)
+                .append(",\"user\":").append(record(random, id))
+                .append(",\"permissions\":[\"read\",\"write\",\"admin\"],\"next\":null,\"items\":[");
+        for (int i = 0; i < 3; i++) {
+            sb.append(i > 0 ? "," : "").append(record(random, id + i + 1));
+        }
+        return sb.append("]}").toString();
+    }
+
+    static String record(Random random, int id) {
+        return "{\"id\":" + id
+                + ",\"name\":\"user" + id + "\""
+                + ",\"email\":\"user" + id + "@example.com\""
+                + ",\"score\":" + Math.round(random.nextDouble() * 10_000) / 100.0
+                + ",\"active\":" + random.nextBoolean()
+                + ",\"tags\":[\"t" + random.nextInt(10) + "\",\"t" + random.nextInt(10) + "\"]"
+                + ",\"address\":{\"city\":\"City" + random.nextInt(100) + "\",\"zip\":\"" + (10000 + random.nextInt(89999)) + "\"}"
+                + "}";
+    }
+}
@@ -0,0 +1,65 @@
+package com.Nezdanchik.spbpu.bench;
+
+import com.Nezdanchik.spbpu.JsonParser;
+import com.Nezdanchik.spbpu.JsonReader;
+import com.Nezdanchik.spbpu.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// привязка к классам: напрямую из потока событий и через промежуточное дерево Map
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "--enable-preview")
+public class MapperBenchmark {
+    @Param({"API_MESSAGE", "RECORDS"})
+    public Corpus corpus;
+
+    private byte[] bytes;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Setup
+    public void setup() {
+        bytes = corpus.bytes();
+    }
+
+    @Benchmark
+    public Object streaming(BytesCounter counter) throws Exception {
+        counter.bytes += bytes.length;
+        if (corpus == Corpus.RECORDS) {
+            return mapper.readValue(new JsonReader(bytes), Model.Record[].class);
+        }
+        return new JsonParser(bytes).parse(Model.ApiMessage.class);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Object viaTree(BytesCounter counter) throws Exception {
+        counter.bytes += bytes.length;
+        Object tree = new JsonParser(bytes).parse();
+        if (corpus == Corpus.RECORDS) {
+            List<Object> list = (List<Object>) tree;
+            Model.Record[] records = new Model.Record[list.size()];
+            for (int i = 0; i < records.length; i++) {
+                records[i] = mapper.mapToObject((Map<String, Object>) list.get(i), Model.Record.class);
+            }
+            return records;
+        }
+        return mapper.mapToObject((Map<String, Object>) tree, Model.ApiMessage.class);
+    }
+}
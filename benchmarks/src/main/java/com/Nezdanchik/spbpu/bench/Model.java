@@ -0,0 +1,35 @@
+package com.Nezdanchik.spbpu.bench;
+
+import java.util.List;
+
+// классы для привязки корпусов API_MESSAGE и RECORDS
+public final class Model {
+    private Model() {
+    }
+
+    public static class Address {
+        public String city;
+        public String zip;
+    }
+
+    public static class Record {
+        public long id;
+        public String name;
+        public String email;
+        public double score;
+        public boolean active;
+        public List<String> tags;
+        public Address address;
+    }
+
+    public static class ApiMessage {
+        public String requestId;
+        public int status;
+        public boolean ok;
+        public double elapsedMs;
+        public Record user;
+        public List<String> permissions;
+        public Object next;
+        public List<Record> items;
+    }
+}
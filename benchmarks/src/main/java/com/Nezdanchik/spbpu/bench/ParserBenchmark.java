@@ -0,0 +1,95 @@
+package com.Nezdanchik.spbpu.bench;
+
+import com.Nezdanchik.spbpu.CborSerializer;
+import com.Nezdanchik.spbpu.CborTokenSource;
+import com.Nezdanchik.spbpu.JsonParser;
+import com.Nezdanchik.spbpu.JsonParserFactory;
+import com.Nezdanchik.spbpu.JsonReader;
+import com.Nezdanchik.spbpu.JsonTape;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// построение дерева разными путями: строка, UTF-8, компактное дерево, пул фабрики, лента, события, CBOR
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "--enable-preview")
+public class ParserBenchmark {
+    @Param({"API_MESSAGE", "RECORDS", "TELEMETRY", "NESTED", "STRINGS"})
+    public Corpus corpus;
+
+    private String json;
+    private byte[] bytes;
+    private byte[] cbor;
+    private final JsonParserFactory factory = new JsonParserFactory();
+
+    @Setup
+    public void setup() throws Exception {
+        json = corpus.json();
+        bytes = corpus.bytes();
+        cbor = new CborSerializer().toCbor(new JsonParser(bytes).parse());
+    }
+
+    @Benchmark
+    public Object parseString(BytesCounter counter) throws Exception {
+        counter.bytes += bytes.length;
+        return new JsonParser(json).parse();
+    }
+
+    @Benchmark
+    public Object parseBytes(BytesCounter counter) throws Exception {
+        counter.bytes += bytes.length;
+        return new JsonParser(bytes).parse();
+    }
+
+    @Benchmark
+    public Object parseCompactTree(BytesCounter counter) throws Exception {
+        counter.bytes += bytes.length;
+        JsonParser parser = new JsonParser(bytes);
+        parser.setCompactTree(true);
+        return parser.parse();
+    }
+
+    @Benchmark
+    public Object parsePooled(BytesCounter counter) throws Exception {
+        counter.bytes += bytes.length;
+        return factory.parse(bytes);
+    }
+
+    @Benchmark
+    public Object tape(BytesCounter counter) {
+        counter.bytes += bytes.length;
+        return JsonTape.parse(bytes);
+    }
+
+    @Benchmark
+    public int readerEvents(BytesCounter counter) throws Exception {
+        counter.bytes += bytes.length;
+        JsonReader reader = new JsonReader(bytes);
+        int events = 0;
+        while (reader.nextEvent() != null) {
+            events++;
+        }
+        return events;
+    }
+
+    // то же дерево из CBOR; байты считаются по размеру JSON, чтобы МБ/с были сравнимы
+    @Benchmark
+    public Object parseCbor(BytesCounter counter) throws Exception {
+        counter.bytes += bytes.length;
+        return new JsonParser(new CborTokenSource(cbor)).parse();
+    }
+}
@@ -0,0 +1,85 @@
+package com.Nezdanchik.spbpu.bench;
+
+import com.Nezdanchik.spbpu.CborSerializer;
+import com.Nezdanchik.spbpu.JsonParser;
+import com.Nezdanchik.spbpu.JsonReader;
+import com.Nezdanchik.spbpu.JsonSerializer;
+import com.Nezdanchik.spbpu.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+// запись дерева Map/List и объектов в JSON и CBOR; байты считаются по размеру исходного документа
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "--enable-preview")
+public class SerializerBenchmark {
+    @Param({"API_MESSAGE", "RECORDS", "TELEMETRY", "NESTED", "STRINGS"})
+    public Corpus corpus;
+
+    private Object tree;
+    private Object beans;
+    private int size;
+    private final JsonSerializer serializer = new JsonSerializer();
+    private final CborSerializer cbor = new CborSerializer();
+
+    @Setup
+    public void setup() throws Exception {
+        byte[] bytes = corpus.bytes();
+        size = bytes.length;
+        tree = new JsonParser(bytes).parse();
+        if (corpus == Corpus.RECORDS) {
+            beans = new ObjectMapper().readValue(new JsonReader(bytes), Model.Record[].class);
+        } else if (corpus == Corpus.API_MESSAGE) {
+            beans = new JsonParser(bytes).parse(Model.ApiMessage.class);
+        } else {
+            beans = tree;
+        }
+    }
+
+    @Benchmark
+    public String treeToString(BytesCounter counter) {
+        counter.bytes += size;
+        return serializer.toJson(tree);
+    }
+
+    @Benchmark
+    public int treeToStream(BytesCounter counter) throws Exception {
+        counter.bytes += size;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+        serializer.write(tree, out);
+        return out.size();
+    }
+
+    @Benchmark
+    public String beansToString(BytesCounter counter) {
+        counter.bytes += size;
+        return serializer.toJson(beans);
+    }
+
+    @Benchmark
+    public byte[] treeToCbor(BytesCounter counter) {
+        counter.bytes += size;
+        return cbor.toCbor(tree);
+    }
+
+    @Benchmark
+    public byte[] beansToCbor(BytesCounter counter) {
+        counter.bytes += size;
+        return cbor.toCbor(beans);
+    }
+}
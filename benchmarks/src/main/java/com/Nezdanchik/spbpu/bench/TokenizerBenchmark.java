@@ -0,0 +1,64 @@
+package com.Nezdanchik.spbpu.bench;
+
+import com.Nezdanchik.spbpu.JsonByteTokenizer;
+import com.Nezdanchik.spbpu.JsonToken;
+import com.Nezdanchik.spbpu.JsonTokenizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// только токенизация: проход по всем токенам с чтением текста строк и чисел
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "--enable-preview")
+public class TokenizerBenchmark {
+    @Param({"API_MESSAGE", "RECORDS", "TELEMETRY", "NESTED", "STRINGS"})
+    public Corpus corpus;
+
+    private String json;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        json = corpus.json();
+        bytes = corpus.bytes();
+    }
+
+    @Benchmark
+    public void chars(Blackhole blackhole, BytesCounter counter) throws Exception {
+        JsonTokenizer tokenizer = new JsonTokenizer(json);
+        JsonToken.Type type;
+        while ((type = tokenizer.next()) != null) {
+            if (type == JsonToken.Type.String || type == JsonToken.Type.Number) {
+                blackhole.consume(tokenizer.text());
+            }
+        }
+        counter.bytes += bytes.length;
+    }
+
+    @Benchmark
+    public void utf8Bytes(Blackhole blackhole, BytesCounter counter) {
+        JsonByteTokenizer tokenizer = new JsonByteTokenizer(bytes);
+        JsonToken.Type type;
+        while ((type = tokenizer.next()) != null) {
+            if (type == JsonToken.Type.String || type == JsonToken.Type.Number) {
+                blackhole.consume(tokenizer.text());
+            }
+        }
+        counter.bytes += bytes.length;
+    }
+}
@@ -0,0 +1,113 @@
+package com.Nezdanchik.spbpu;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// байтовый ввод, который разбирается по кускам из нескольких потоков: буфер в памяти или файл,
+// куски которого отображаются в память по требованию. Смещения — от начала ввода
+abstract class ByteInput implements AutoCloseable {
+    private static final int SCAN_WINDOW = 64 << 10;
+
+    static ByteInput of(ByteBuffer buffer) {
+        return new BufferInput(buffer);
+    }
+
+    static ByteInput of(Path file) throws IOException {
+        return new FileInput(file);
+    }
+
+    abstract long size();
+
+    // кусок [start, end) от position 0; можно вызывать из разных потоков
+    abstract ByteBuffer region(long start, long end) throws IOException;
+
+    // позиция сразу после первого '\n' начиная с from, или конец ввода
+    long lineEnd(long from) throws IOException {
+        long size = size();
+        long position = from;
+        while (position < size) {
+            ByteBuffer window = region(position, Math.min(size, position + SCAN_WINDOW));
+            int n = window.limit();
+            for (int i = 0; i < n; i++) {
+                if (window.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += n;
+        }
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+    }
+
+    private static final class BufferInput extends ByteInput {
+        private final ByteBuffer buffer;
+
+        BufferInput(ByteBuffer buffer) {
+            this.buffer = buffer.slice();
+        }
+
+        @Override
+        long size() {
+            return buffer.limit();
+        }
+
+        @Override
+        ByteBuffer region(long start, long end) {
+            return buffer.slice((int) start, (int) (end - start));
+        }
+    }
+
+    private static final class FileInput extends ByteInput {
+        private final FileChannel channel;
+        private final long size;
+
+        FileInput(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.size = channel.size();
+        }
+
+        @Override
+        long size() {
+            return size;
+        }
+
+        // границы ищутся чтением небольшого окна, без отображения всего куска
+        @Override
+        long lineEnd(long from) throws IOException {
+            ByteBuffer window = ByteBuffer.allocate(SCAN_WINDOW);
+            long position = from;
+            while (true) {
+                window.clear();
+                int n = channel.read(window, position);
+                if (n <= 0) {
+                    return size;
+                }
+                for (int i = 0; i < n; i++) {
+                    if (window.get(i) == '\n') {
+                        return position + i + 1;
+                    }
+                }
+                position += n;
+            }
+        }
+
+        @Override
+        ByteBuffer region(long start, long end) throws IOException {
+            if (end - start > JsonByteTokenizer.MAX_SEGMENT_SIZE) {
+                throw new IllegalArgumentException("Region is larger than 2 GB at offset " + start);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
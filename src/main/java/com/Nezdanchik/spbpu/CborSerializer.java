@@ -0,0 +1,339 @@
+package com.Nezdanchik.spbpu;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collection;
+import java.util.Map;
+
+// запись тех же значений, что и JsonSerializer, в двоичном формате CBOR (RFC 8949) для обмена между сервисами:
+// числа пишутся в двоичном виде, строки — с длиной впереди, без экранирования. Массивы int[], long[], short[],
+// byte[], float[] и double[] пишутся типизированными массивами (RFC 8746, little-endian) одним куском байтов.
+// Читается CborTokenSource; настройки пропуска null, порядка ключей и политики полей те же, форматирование не влияет
+public class CborSerializer {
+    // теги RFC 8746: 64 + (float << 4) + (signed << 3) + (little-endian << 2) + размер
+    static final int TAG_SINT8 = 72;
+    static final int TAG_SINT16_LE = 77;
+    static final int TAG_SINT32_LE = 78;
+    static final int TAG_SINT64_LE = 79;
+    static final int TAG_FLOAT32_LE = 85;
+    static final int TAG_FLOAT64_LE = 86;
+
+    private static final VarHandle SHORT_LE = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT_LE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final JsonSerializerOptions options;
+    private final JsonMetricsListener metrics;
+
+    public CborSerializer() {
+        this(JsonSerializerOptions.compact());
+    }
+
+    public CborSerializer(JsonSerializerOptions options) {
+        this.options = options;
+        this.metrics = options.getMetrics();
+    }
+
+    public JsonSerializerOptions getOptions() {
+        return options;
+    }
+
+    public byte[] toCbor(Object obj) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            write(obj, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);  // ByteArrayOutputStream не бросает IOException
+        }
+        return bytes.toByteArray();
+    }
+
+    // поток не закрывается
+    public void write(Object obj, OutputStream out) throws IOException {
+        long start = metrics == null ? 0 : System.nanoTime();
+        JsonOutput.StreamOutput output = new JsonOutput.StreamOutput(out);
+        writeValue(obj, output);
+        output.flush();
+        if (metrics != null) {
+            written(obj, output.drained, start);
+        }
+    }
+
+    // как JsonSerializer.write(Object, ByteBuffer): при нехватке места возвращается новый буфер того же вида
+    public ByteBuffer write(Object obj, ByteBuffer target) throws IOException {
+        long start = metrics == null ? 0 : System.nanoTime();
+        JsonOutput.ByteBufferOutput output = new JsonOutput.ByteBufferOutput(target);
+        writeValue(obj, output);
+        output.flush();
+        if (metrics != null) {
+            written(obj, output.drained, start);
+        }
+        return output.target;
+    }
+
+    private void written(Object obj, long length, long start) {
+        metrics.valueWritten(obj == null ? Void.class : obj.getClass(), length, System.nanoTime() - start);
+    }
+
+    void writeValue(Object obj, JsonOutput.Utf8Output out) throws IOException {
+        if (obj == null) {
+            out.writeByte(0xf6);
+            return;
+        }
+        Class<?> clazz = obj.getClass();
+
+        if (clazz.isArray()) {
+            if (!writeTypedArray(obj, out)) {
+                int length = Array.getLength(obj);
+                writeHeader(out, 4, length);
+                for (int i = 0; i < length; i++) {
+                    writeValue(Array.get(obj, i), out);
+                }
+            }
+        } else if (obj instanceof Collection<?> collection) {
+            writeHeader(out, 4, collection.size());
+            for (Object item : collection) {
+                writeValue(item, out);
+            }
+        } else if (obj instanceof Map<?, ?> map) {
+            int size = map.size();
+            if (options.isSkipNulls()) {
+                for (Object value : map.values()) {
+                    if (value == null) {
+                        size--;
+                    }
+                }
+            }
+            writeHeader(out, 5, size);
+            for (Map.Entry<?, ?> entry : JsonSerializer.entries(map, options)) {
+                if (entry.getValue() == null && options.isSkipNulls()) {
+                    continue;
+                }
+                writeText(out, entry.getKey().toString());
+                writeValue(entry.getValue(), out);
+            }
+        } else if (obj instanceof String || obj instanceof Character || obj instanceof Enum<?>) {
+            writeText(out, obj instanceof Enum<?> e ? e.name() : obj.toString());
+        } else if (obj instanceof Boolean b) {
+            out.writeByte(b ? 0xf5 : 0xf4);
+        } else if (obj instanceof Number number) {
+            writeNumber(out, number);
+        } else {
+            @SuppressWarnings("unchecked")
+            JsonTypeCodec<Object> codec = (JsonTypeCodec<Object>) JsonCodecs.find(clazz);
+            if (codec != null) {
+                codec.write(obj, new JsonWriter(this, out));
+                return;
+            }
+            ClassWriter.FieldWriter[] fields = ClassWriter.of(clazz).fields;
+            // без пропуска null число полей известно заранее; иначе — отображение неопределённой длины
+            if (options.isSkipNulls()) {
+                out.writeByte(0xbf);
+            } else {
+                int size = 0;
+                for (ClassWriter.FieldWriter field : fields) {
+                    if (field.included(options.getFieldInclusion())) {
+                        size++;
+                    }
+                }
+                writeHeader(out, 5, size);
+            }
+            for (ClassWriter.FieldWriter field : fields) {
+                if (!field.included(options.getFieldInclusion())) {
+                    continue;
+                }
+                Object value = field.field.get(obj);
+                if (value == null && options.isSkipNulls()) {
+                    continue;
+                }
+                out.writeBytes(field.nameCbor, 0, field.nameCbor.length);
+                writeValue(value, out);
+            }
+            if (options.isSkipNulls()) {
+                out.writeByte(0xff);
+            }
+        }
+    }
+
+    // числа, которые JsonParser прочитал бы как Integer/Long/Double/BigInteger, пишутся в том же виде;
+    // прочие Number (JsonLazyNumber, AtomicLong, ...) — через их текст, как в JSON
+    static void writeNumber(JsonOutput.Utf8Output out, Number number) throws IOException {
+        if (number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte) {
+            writeLong(out, number.longValue());
+        } else if (number instanceof Double) {
+            writeDouble(out, number.doubleValue());
+        } else if (number instanceof Float) {
+            writeFloat(out, number.floatValue());
+        } else if (number instanceof BigInteger big) {
+            if (big.bitLength() < 64) {
+                writeLong(out, big.longValue());
+                return;
+            }
+            // теги 2 и 3: положительное и отрицательное (-1 - n) большое целое
+            boolean negative = big.signum() < 0;
+            writeHeader(out, 6, negative ? 3 : 2);
+            byte[] magnitude = (negative ? big.negate().subtract(BigInteger.ONE) : big).toByteArray();
+            int skip = magnitude[0] == 0 ? 1 : 0;  // знаковый байт toByteArray()
+            writeHeader(out, 2, magnitude.length - skip);
+            out.writeBytes(magnitude, skip, magnitude.length - skip);
+        } else if (number instanceof BigDecimal decimal) {
+            // тег 4: [показатель, мантисса]
+            writeHeader(out, 6, 4);
+            writeHeader(out, 4, 2);
+            writeLong(out, -decimal.scale());
+            writeNumber(out, decimal.unscaledValue());
+        } else {
+            writeNumber(out, JsonNumbers.parse(number.toString()));
+        }
+    }
+
+    static void writeLong(JsonOutput.Utf8Output out, long value) throws IOException {
+        if (value >= 0) {
+            writeHeader(out, 0, value);
+        } else {
+            writeHeader(out, 1, -1 - value);
+        }
+    }
+
+    static void writeDouble(JsonOutput.Utf8Output out, double value) throws IOException {
+        out.ensure(9);
+        out.buffer[out.count++] = (byte) 0xfb;
+        putLong(out, Double.doubleToRawLongBits(value), 8);
+    }
+
+    static void writeFloat(JsonOutput.Utf8Output out, float value) throws IOException {
+        out.ensure(5);
+        out.buffer[out.count++] = (byte) 0xfa;
+        putLong(out, Float.floatToRawIntBits(value) & 0xFFFFFFFFL, 4);
+    }
+
+    // начальный байт и аргумент минимальной длины; value беззнаковое
+    static void writeHeader(JsonOutput.Utf8Output out, int major, long value) throws IOException {
+        out.ensure(9);
+        int type = major << 5;
+        if (value >= 0 && value < 24) {
+            out.buffer[out.count++] = (byte) (type | value);
+        } else if (value >= 0 && value < 0x100) {
+            out.buffer[out.count++] = (byte) (type | 24);
+            out.buffer[out.count++] = (byte) value;
+        } else if (value >= 0 && value < 0x10000) {
+            out.buffer[out.count++] = (byte) (type | 25);
+            putLong(out, value, 2);
+        } else if (value >= 0 && value < 0x100000000L) {
+            out.buffer[out.count++] = (byte) (type | 26);
+            putLong(out, value, 4);
+        } else {
+            out.buffer[out.count++] = (byte) (type | 27);
+            putLong(out, value, 8);
+        }
+    }
+
+    private static void putLong(JsonOutput.Utf8Output out, long value, int bytes) {
+        for (int shift = (bytes - 1) * 8; shift >= 0; shift -= 8) {
+            out.buffer[out.count++] = (byte) (value >>> shift);
+        }
+    }
+
+    // длина в байтах UTF-8 известна до записи, поэтому строка кодируется прямо в буфер вывода
+    static void writeText(JsonOutput.Utf8Output out, String value) throws IOException {
+        writeHeader(out, 3, utf8Length(value));
+        out.write(value);
+    }
+
+    // имя поля целиком (заголовок и UTF-8) для плана класса
+    static byte[] encodeText(String value) {
+        JsonOutput.ByteBufferOutput out = new JsonOutput.ByteBufferOutput(ByteBuffer.allocate(value.length() * 3 + 9));
+        try {
+            writeText(out, value);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ByteBuffer buffer = out.target.flip();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    // должна совпадать с Utf8Output.encode: одиночный суррогат заменяется одним байтом '?'
+    static int utf8Length(String value) {
+        int length = value.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                bytes++;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 2;
+                i++;
+            } else if (!Character.isSurrogate(c)) {
+                bytes += 2;
+            }
+        }
+        return bytes;
+    }
+
+    // элементы копируются в буфер вывода напрямую, без упаковки и промежуточных массивов
+    private static boolean writeTypedArray(Object array, JsonOutput.Utf8Output out) throws IOException {
+        if (array instanceof byte[] values) {
+            writeHeader(out, 6, TAG_SINT8);
+            writeHeader(out, 2, values.length);
+            out.writeBytes(values, 0, values.length);
+        } else if (array instanceof short[] values) {
+            writeHeader(out, 6, TAG_SINT16_LE);
+            writeHeader(out, 2, values.length * 2L);
+            for (short value : values) {
+                out.ensure(2);
+                SHORT_LE.set(out.buffer, out.count, value);
+                out.count += 2;
+            }
+        } else if (array instanceof int[] values) {
+            writeHeader(out, 6, TAG_SINT32_LE);
+            writeHeader(out, 2, values.length * 4L);
+            for (int value : values) {
+                out.ensure(4);
+                INT_LE.set(out.buffer, out.count, value);
+                out.count += 4;
+            }
+        } else if (array instanceof long[] values) {
+            writeHeader(out, 6, TAG_SINT64_LE);
+            writeHeader(out, 2, values.length * 8L);
+            for (long value : values) {
+                out.ensure(8);
+                LONG_LE.set(out.buffer, out.count, value);
+                out.count += 8;
+            }
+        } else if (array instanceof float[] values) {
+            writeHeader(out, 6, TAG_FLOAT32_LE);
+            writeHeader(out, 2, values.length * 4L);
+            for (float value : values) {
+                out.ensure(4);
+                INT_LE.set(out.buffer, out.count, Float.floatToRawIntBits(value));
+                out.count += 4;
+            }
+        } else if (array instanceof double[] values) {
+            writeHeader(out, 6, TAG_FLOAT64_LE);
+            writeHeader(out, 2, values.length * 8L);
+            for (double value : values) {
+                out.ensure(8);
+                LONG_LE.set(out.buffer, out.count, Double.doubleToRawLongBits(value));
+                out.count += 8;
+            }
+        } else {
+            return false;
+        }
+        return true;
+    }
+}
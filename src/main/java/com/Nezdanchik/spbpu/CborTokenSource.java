@@ -0,0 +1,694 @@
+package com.Nezdanchik.spbpu;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// чтение CBOR (RFC 8949) как потока токенов JSON: JsonParser, JsonReader и ObjectMapper работают с ним так же,
+// как с текстом, и строят те же Map/List/числа. Скобки, ':' и ',' порождаются по длинам контейнеров,
+// числа берутся из двоичного вида без разбора текста, строки декодируются только по запросу.
+// Типизированные массивы (RFC 8746) и байтовые строки читаются как массивы чисел прямо из буфера ввода.
+// Поддерживаются контейнеры и текстовые строки неопределённой длины, большие целые (теги 2, 3)
+// и десятичные дроби (тег 4); остальные теги пропускаются. Ключи отображений должны быть строками
+public class CborTokenSource implements JsonTokenSource {
+    private static final byte ARRAY = 0;
+    private static final byte MAP = 1;
+    private static final byte TYPED = 2;   // типизированный массив или байтовая строка
+
+    // вид текущего числа
+    private static final int LONG = 0;
+    private static final int DOUBLE = 1;
+    private static final int BOXED = 2;
+    private static final int TEXT = 3;     // после peek() число известно только текстом
+
+    private final ByteBuffer input;        // big-endian, чтение по абсолютным индексам
+    private final ByteBuffer little;       // тот же ввод для little-endian типизированных массивов
+    private final byte[] array;            // массив heap-буфера или null для direct-буфера
+    private final int arrayOffset;
+    private final int limit;
+    private int position;
+
+    // открытые контейнеры: вид, число элементов (-1 — неопределённая длина), прочитано элементов
+    // и нужен ли разделитель после последнего элемента
+    private byte[] kinds = new byte[16];
+    private long[] totals = new long[16];
+    private long[] items = new long[16];
+    private boolean[] separator = new boolean[16];
+    private int depth;
+
+    // типизированный массив на вершине стека (он не может содержать других контейнеров)
+    private int typedPosition;
+    private int typedSize;
+    private boolean typedFloat;
+    private boolean typedSigned;
+    private boolean typedLittle;
+
+    private long argument;
+    private boolean indefinite;
+
+    private JsonToken.Type type;
+    private String text;
+    private int textStart;
+    private int textEnd;
+    private int numberKind;
+    private long longNumber;
+    private double doubleNumber;
+    private Number boxedNumber;
+    private JsonSymbolTable symbols;
+    private JsonToken peeked;
+
+    public CborTokenSource(byte[] input) {
+        this(ByteBuffer.wrap(input));
+    }
+
+    public CborTokenSource(byte[] input, int offset, int length) {
+        this(ByteBuffer.wrap(input, offset, length));
+    }
+
+    // позиция буфера не меняется
+    public CborTokenSource(ByteBuffer input) {
+        this.input = input.slice().order(ByteOrder.BIG_ENDIAN);
+        this.little = this.input.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        this.array = this.input.hasArray() ? this.input.array() : null;
+        this.arrayOffset = this.input.hasArray() ? this.input.arrayOffset() : 0;
+        this.limit = this.input.limit();
+    }
+
+    @Override
+    public JsonToken nextToken() {
+        if (peeked != null) {
+            JsonToken token = peeked;
+            peeked = null;
+            return token;
+        }
+        JsonToken.Type next = advance();
+        return next == null ? null : new JsonToken(next, text());
+    }
+
+    @Override
+    public JsonToken peek() {
+        if (peeked == null) {
+            JsonToken.Type next = advance();
+            peeked = next == null ? null : new JsonToken(next, text());
+        }
+        return peeked;
+    }
+
+    @Override
+    public void reset() {
+        position = 0;
+        depth = 0;
+        type = null;
+        text = null;
+        peeked = null;
+    }
+
+    @Override
+    public JsonToken.Type next() {
+        if (peeked != null) {
+            type = peeked.type();
+            text = peeked.value();
+            numberKind = TEXT;
+            peeked = null;
+            return type;
+        }
+        return advance();
+    }
+
+    private JsonToken.Type advance() {
+        text = null;
+        if (depth == 0) {
+            return position < limit ? item() : (type = null);
+        }
+        int top = depth - 1;
+        if (separator[top]) {
+            separator[top] = false;
+            if (kinds[top] == MAP && (items[top] & 1) == 1) {
+                return type = JsonToken.Type.Colon;
+            }
+            return atEnd(top) ? close() : (type = JsonToken.Type.Comma);
+        }
+        if (items[top] == 0 && atEnd(top)) {
+            return close();
+        }
+        return item();
+    }
+
+    private boolean atEnd(int top) {
+        if (totals[top] >= 0) {
+            return items[top] == totals[top];
+        }
+        if (position < limit && input.get(position) == (byte) 0xff) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private JsonToken.Type close() {
+        type = kinds[--depth] == MAP ? JsonToken.Type.BracketObjectRight : JsonToken.Type.BracketArrayRight;
+        itemDone();
+        return type;
+    }
+
+    private void itemDone() {
+        if (depth > 0) {
+            items[depth - 1]++;
+            separator[depth - 1] = true;
+        }
+    }
+
+    // ---------- элементы ----------
+
+    private JsonToken.Type item() {
+        if (depth > 0 && kinds[depth - 1] == TYPED) {
+            return typedElement();
+        }
+        boolean key = depth > 0 && kinds[depth - 1] == MAP && (items[depth - 1] & 1) == 0;
+        int start = position;
+        int initial = readHeader();
+        int major = initial >>> 5;
+        while (major == 6) {
+            long tag = argument;
+            boolean special = tag == 2 || tag == 3 || tag == 4 || (tag >= 64 && tag <= 87);
+            if (key && special) {
+                throw new IllegalArgumentException("CBOR map key must be a text string at offset " + start);
+            }
+            if (tag == 2 || tag == 3) {
+                return number(bigInteger(tag == 3));
+            } else if (tag == 4) {
+                return number(decimal());
+            } else if (tag >= 64 && tag <= 87) {
+                return startTyped((int) tag);
+            }
+            initial = readHeader();  // семантика прочих тегов не нужна для модели JSON
+            major = initial >>> 5;
+        }
+        if (key && major != 3) {
+            throw new IllegalArgumentException("CBOR map key must be a text string at offset " + start);
+        }
+        switch (major) {
+            case 0:
+                return argument >= 0 ? number(argument) : number(unsigned(argument));
+            case 1:
+                return argument >= 0 ? number(-1 - argument) : number(BigInteger.valueOf(-1).subtract(unsigned(argument)));
+            case 2: {
+                // байтовая строка — массив байтов без знака
+                int length = definiteLength("byte string");
+                push(TYPED, length);
+                typed(position, 1, false, false, false);
+                position += length;
+                return type = JsonToken.Type.BracketArrayLeft;
+            }
+            case 3:
+                readText();
+                itemDone();
+                return type = JsonToken.Type.String;
+            case 4:
+                push(ARRAY, indefinite ? -1 : containerLength(1));
+                return type = JsonToken.Type.BracketArrayLeft;
+            case 5:
+                push(MAP, indefinite ? -1 : containerLength(2));
+                return type = JsonToken.Type.BracketObjectLeft;
+            default:
+                return simple(initial & 0x1f, start);
+        }
+    }
+
+    private JsonToken.Type simple(int info, int start) {
+        switch (info) {
+            case 20:
+                itemDone();
+                return type = JsonToken.Type.False;
+            case 21:
+                itemDone();
+                return type = JsonToken.Type.True;
+            case 22:
+            case 23:  // undefined
+                itemDone();
+                return type = JsonToken.Type.Null;
+            case 25:
+                return floating(halfToFloat((int) argument));
+            case 26:
+                return floating(Float.intBitsToFloat((int) argument));
+            case 27:
+                return number(Double.longBitsToDouble(argument));
+            case 31:
+                throw new IllegalArgumentException("Unexpected CBOR break at offset " + start);
+            default:
+                throw new IllegalArgumentException("Unsupported CBOR simple value " + info + " at offset " + start);
+        }
+    }
+
+    // float32 и float16 дают то же Double, что и их текст в JSON (0.1f читается как 0.1)
+    private JsonToken.Type floating(float value) {
+        return Float.isFinite(value) ? number(Double.parseDouble(Float.toString(value))) : number((double) value);
+    }
+
+    private JsonToken.Type number(long value) {
+        numberKind = LONG;
+        longNumber = value;
+        itemDone();
+        return type = JsonToken.Type.Number;
+    }
+
+    private JsonToken.Type number(double value) {
+        numberKind = DOUBLE;
+        doubleNumber = value;
+        itemDone();
+        return type = JsonToken.Type.Number;
+    }
+
+    private JsonToken.Type number(Number value) {
+        if (value instanceof BigInteger big && big.bitLength() < 64) {
+            return number(big.longValue());
+        }
+        numberKind = BOXED;
+        boxedNumber = value;
+        itemDone();
+        return type = JsonToken.Type.Number;
+    }
+
+    private static BigInteger unsigned(long value) {
+        return new BigInteger(Long.toUnsignedString(value));
+    }
+
+    private BigInteger bigInteger(boolean negative) {
+        readHeader();
+        int length = definiteLength("bignum");
+        byte[] magnitude = new byte[length];
+        input.get(position, magnitude);
+        position += length;
+        BigInteger value = new BigInteger(1, magnitude);
+        return negative ? BigInteger.valueOf(-1).subtract(value) : value;
+    }
+
+    // [показатель, мантисса]; результат тот же, что у JsonParser для текста этого числа
+    private Number decimal() {
+        int start = position;
+        int initial = readHeader();
+        if (initial >>> 5 != 4 || indefinite || argument != 2) {
+            throw new IllegalArgumentException("Invalid CBOR decimal fraction at offset " + start);
+        }
+        long exponent = integer();
+        BigInteger mantissa;
+        int mantissaStart = position;
+        initial = readHeader();
+        if (initial == 0xc2 || initial == 0xc3) {
+            mantissa = bigInteger(initial == 0xc3);
+        } else {
+            position = mantissaStart;
+            mantissa = BigInteger.valueOf(integer());
+        }
+        // scale = -exponent: у Integer.MIN_VALUE нет положительной пары
+        if (exponent <= Integer.MIN_VALUE || exponent > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("CBOR decimal exponent is out of range at offset " + start);
+        }
+        return JsonNumbers.parse(new BigDecimal(mantissa, (int) -exponent).toString());
+    }
+
+    private long integer() {
+        int start = position;
+        int major = readHeader() >>> 5;
+        if ((major != 0 && major != 1) || argument < 0) {
+            throw new IllegalArgumentException("Expected CBOR integer at offset " + start);
+        }
+        return major == 0 ? argument : -1 - argument;
+    }
+
+    // теги 64..87: 64 + (float << 4) + (signed << 3) + (little-endian << 2) + размер; содержимое — байтовая строка
+    private JsonToken.Type startTyped(int tag) {
+        int start = position;
+        boolean floating = (tag & 0x10) != 0;
+        boolean signed = (tag & 0x08) != 0;
+        boolean littleEndian = (tag & 0x04) != 0;
+        int size = floating ? 2 << (tag & 3) : 1 << (tag & 3);
+        if ((floating && (size > 8 || signed)) || tag == 76) {
+            throw new IllegalArgumentException("Unsupported CBOR typed array tag " + tag + " at offset " + start);
+        }
+        if (readHeader() >>> 5 != 2) {
+            throw new IllegalArgumentException("CBOR typed array must be a byte string at offset " + start);
+        }
+        int length = definiteLength("typed array");
+        if (length % size != 0) {
+            throw new IllegalArgumentException("CBOR typed array length " + length + " is not a multiple of " + size);
+        }
+        push(TYPED, length / size);
+        typed(position, size, floating, signed, littleEndian);
+        position += length;
+        return type = JsonToken.Type.BracketArrayLeft;
+    }
+
+    private void typed(int start, int size, boolean floating, boolean signed, boolean littleEndian) {
+        typedPosition = start;
+        typedSize = size;
+        typedFloat = floating;
+        typedSigned = signed;
+        typedLittle = littleEndian;
+    }
+
+    // элемент читается прямо из буфера ввода
+    private JsonToken.Type typedElement() {
+        ByteBuffer view = typedLittle ? little : input;
+        int at = typedPosition;
+        typedPosition += typedSize;
+        if (typedFloat) {
+            switch (typedSize) {
+                case 2:
+                    return floating(halfToFloat(view.getShort(at) & 0xFFFF));
+                case 4:
+                    return floating(view.getFloat(at));
+                default:
+                    return number(view.getDouble(at));
+            }
+        }
+        switch (typedSize) {
+            case 1:
+                return number(typedSigned ? view.get(at) : view.get(at) & 0xFF);
+            case 2:
+                return number(typedSigned ? view.getShort(at) : view.getShort(at) & 0xFFFF);
+            case 4:
+                return number(typedSigned ? view.getInt(at) : view.getInt(at) & 0xFFFFFFFFL);
+            default: {
+                long value = view.getLong(at);
+                return typedSigned || value >= 0 ? number(value) : number(unsigned(value));
+            }
+        }
+    }
+
+    private void push(byte kind, long total) {
+        if (depth == kinds.length) {
+            int capacity = depth * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            totals = Arrays.copyOf(totals, capacity);
+            items = Arrays.copyOf(items, capacity);
+            separator = Arrays.copyOf(separator, capacity);
+        }
+        kinds[depth] = kind;
+        totals[depth] = total;
+        items[depth] = 0;
+        separator[depth] = false;
+        depth++;
+    }
+
+    // ---------- заголовки и строки ----------
+
+    // начальный байт; аргумент — в argument (беззнаковый), indefinite для длины 31
+    private int readHeader() {
+        if (position >= limit) {
+            throw new IllegalArgumentException("Unexpected end of input");
+        }
+        int start = position;
+        int initial = input.get(position++) & 0xFF;
+        int info = initial & 0x1f;
+        indefinite = false;
+        if (info < 24) {
+            argument = info;
+            return initial;
+        }
+        switch (info) {
+            case 24:
+                need(1);
+                argument = input.get(position) & 0xFF;
+                position += 1;
+                break;
+            case 25:
+                need(2);
+                argument = input.getShort(position) & 0xFFFF;
+                position += 2;
+                break;
+            case 26:
+                need(4);
+                argument = input.getInt(position) & 0xFFFFFFFFL;
+                position += 4;
+                break;
+            case 27:
+                need(8);
+                argument = input.getLong(position);
+                position += 8;
+                break;
+            case 31: {
+                // неопределённая длина бывает у строк, массивов и отображений, а 0xff — это break
+                int major = initial >>> 5;
+                if (major < 2 || major == 6) {
+                    throw new IllegalArgumentException("Invalid CBOR header 0x" + Integer.toHexString(initial) + " at offset " + start);
+                }
+                indefinite = true;
+                argument = 0;
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Invalid CBOR header 0x" + Integer.toHexString(initial) + " at offset " + start);
+        }
+        return initial;
+    }
+
+    private void need(int bytes) {
+        if (limit - position < bytes) {
+            throw new IllegalArgumentException("Unexpected end of input");
+        }
+    }
+
+    private int definiteLength(String what) {
+        if (indefinite) {
+            throw new IllegalArgumentException("Indefinite-length " + what + " is not supported at offset " + position);
+        }
+        if (argument < 0 || argument > limit - position) {
+            throw new IllegalArgumentException("Unexpected end of input");
+        }
+        return (int) argument;
+    }
+
+    // каждый элемент занимает хотя бы байт, поэтому длина больше остатка ввода — ошибка
+    private long containerLength(int perItem) {
+        if (argument < 0 || argument > limit - position) {
+            throw new IllegalArgumentException("Unexpected end of input");
+        }
+        return argument * perItem;
+    }
+
+    private void readText() {
+        if (!indefinite) {
+            int length = definiteLength("text string");
+            textStart = position;
+            textEnd = position + length;
+            position += length;
+            return;
+        }
+        // строка из кусков склеивается сразу
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            if (position < limit && input.get(position) == (byte) 0xff) {
+                position++;
+                break;
+            }
+            int start = position;
+            if (readHeader() >>> 5 != 3 || indefinite) {
+                throw new IllegalArgumentException("Invalid chunk of CBOR text string at offset " + start);
+            }
+            int length = definiteLength("text string");
+            sb.append(decode(position, position + length));
+            position += length;
+        }
+        text = sb.toString();
+    }
+
+    private String decode(int start, int end) {
+        if (array != null) {
+            return new String(array, arrayOffset + start, end - start, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[end - start];
+        input.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // половинная точность (float16) в float
+    private static float halfToFloat(int bits) {
+        int exponent = (bits >>> 10) & 0x1f;
+        int mantissa = bits & 0x3ff;
+        float value;
+        if (exponent == 0) {
+            value = mantissa * 0x1p-24f;
+        } else if (exponent == 31) {
+            value = mantissa == 0 ? Float.POSITIVE_INFINITY : Float.NaN;
+        } else {
+            value = (1 + mantissa / 1024f) * (float) Math.pow(2, exponent - 15);
+        }
+        return (bits & 0x8000) != 0 ? -value : value;
+    }
+
+    // ---------- значения текущего токена ----------
+
+    @Override
+    public String text() {
+        if (text != null) {
+            return text;
+        }
+        if (type == JsonToken.Type.String) {
+            text = decode(textStart, textEnd);
+        } else if (type == JsonToken.Type.Number) {
+            text = numberKind == LONG ? Long.toString(longNumber)
+                    : numberKind == DOUBLE ? Double.toString(doubleNumber) : boxedNumber.toString();
+        }
+        return text;
+    }
+
+    // ASCII-ключ ищется в таблице имён прямо по байтам
+    @Override
+    public String keyText() {
+        if (text == null && type == JsonToken.Type.String && array != null && isAscii()) {
+            if (symbols == null) {
+                symbols = new JsonSymbolTable();
+            }
+            text = symbols.lookupAscii(array, arrayOffset + textStart, textEnd - textStart);
+        }
+        return text();
+    }
+
+    private boolean isAscii() {
+        for (int i = textStart; i < textEnd; i++) {
+            if (array[arrayOffset + i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void setSymbolTable(JsonSymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    // ключ сравнивается с деревом прямо по байтам UTF-8 ввода
+    @Override
+    public int matchKey(JsonKeyTrie keys) {
+        if (text != null || type != JsonToken.Type.String) {
+            return keys.find(keyText());
+        }
+        int node = JsonKeyTrie.ROOT;
+        for (int i = textStart; i < textEnd && node >= 0; i++) {
+            node = keys.step(node, input.get(i));
+        }
+        return node < 0 ? -1 : keys.value(node);
+    }
+
+    // значение после ключа пропускается по заголовкам: строки и массивы перескакиваются по длине
+    @Override
+    public boolean skipFieldValue() {
+        int top = depth - 1;
+        if (peeked != null || top < 0 || kinds[top] != MAP || (items[top] & 1) == 0 || !separator[top]) {
+            return false;
+        }
+        skipItem();
+        items[top]++;
+        type = null;
+        text = null;
+        return true;
+    }
+
+    private void skipItem() {
+        int start = position;
+        int initial = readHeader();
+        switch (initial >>> 5) {
+            case 2:
+            case 3:
+                if (indefinite) {
+                    skipUntilBreak();
+                } else {
+                    position += definiteLength("string");
+                }
+                break;
+            case 4:
+            case 5:
+                if (indefinite) {
+                    skipUntilBreak();
+                } else {
+                    for (long i = containerLength((initial >>> 5) == 5 ? 2 : 1); i > 0; i--) {
+                        skipItem();
+                    }
+                }
+                break;
+            case 6:
+                skipItem();  // значение под тегом
+                break;
+            case 7:
+                if (indefinite) {
+                    throw new IllegalArgumentException("Unexpected CBOR break at offset " + start);
+                }
+                break;
+            default:
+                break;  // целые: аргумент уже прочитан
+        }
+    }
+
+    private void skipUntilBreak() {
+        while (position >= limit || input.get(position) != (byte) 0xff) {
+            skipItem();
+        }
+        position++;
+    }
+
+    @Override
+    public boolean textEquals(String value) {
+        if (text != null || type != JsonToken.Type.String) {
+            return value.equals(text());
+        }
+        int length = textEnd - textStart;
+        for (int i = 0; i < length; i++) {
+            byte b = input.get(textStart + i);
+            if (b < 0) {
+                return value.equals(text());
+            }
+            if (i >= value.length() || b != value.charAt(i)) {
+                return false;  // до этого места все символы ASCII и совпали
+            }
+        }
+        return length == value.length();
+    }
+
+    // целые как у JsonParser: Integer, если помещается, иначе Long или BigInteger
+    @Override
+    public Number number() {
+        if (type != JsonToken.Type.Number) {
+            throw new IllegalStateException("Current token is not a number: " + type);
+        }
+        switch (numberKind) {
+            case LONG:
+                if (longNumber == (int) longNumber) {
+                    return (int) longNumber;
+                }
+                return longNumber;
+            case DOUBLE:
+                return doubleNumber;
+            case BOXED:
+                return boxedNumber;
+            default:
+                return JsonNumbers.parse(text);
+        }
+    }
+
+    @Override
+    public long longValue() {
+        if (type == JsonToken.Type.Number && numberKind == LONG) {
+            return longNumber;
+        }
+        if (type == JsonToken.Type.Number && numberKind == DOUBLE) {
+            return (long) doubleNumber;
+        }
+        return number().longValue();
+    }
+
+    @Override
+    public double doubleValue() {
+        if (type == JsonToken.Type.Number && numberKind == LONG) {
+            return longNumber;
+        }
+        if (type == JsonToken.Type.Number && numberKind == DOUBLE) {
+            return doubleNumber;
+        }
+        return number().doubleValue();
+    }
+}
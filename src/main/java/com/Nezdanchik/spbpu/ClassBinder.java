@@ -0,0 +1,214 @@
+package com.Nezdanchik.spbpu;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+// заранее разобранное описание класса для ObjectMapper и JsonSerializer: конструктор, поля и их типы.
+// Рефлексия выполняется один раз на класс, дальше используются только MethodHandle
+final class ClassBinder {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final ClassValue<ClassBinder> CACHE = new ClassValue<>() {
+        @Override
+        protected ClassBinder computeValue(Class<?> type) {
+            return new ClassBinder(type);
+        }
+    };
+
+    final Class<?> type;
+    final FieldBinder[] fields;
+    final JsonKeyTrie keys;                   // имена полей в порядке fields
+    private final MethodHandle constructor;   // ()Object или null, если конструктора без аргументов нет
+
+    static ClassBinder of(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    private ClassBinder(Class<?> type) {
+        this.type = type;
+        this.constructor = findConstructor(type);
+        List<FieldBinder> binders = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+                continue;
+            }
+            binders.add(new FieldBinder(field));
+        }
+        this.fields = binders.toArray(new FieldBinder[0]);
+        String[] names = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            names[i] = fields[i].name;
+        }
+        this.keys = JsonKeyTrie.of(names);
+    }
+
+    Object newInstance() throws Exception {
+        if (constructor == null) {
+            throw new IllegalArgumentException("No default constructor in " + type.getName());
+        }
+        try {
+            return constructor.invokeExact();
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    private static MethodHandle findConstructor(Class<?> type) {
+        try {
+            var constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return LOOKUP.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException | RuntimeException e) {
+            return null;  // ошибка будет выдана при попытке создать объект
+        }
+    }
+
+    // поле класса: имя, тип, тип элементов списка и доступ через MethodHandle
+    static final class FieldBinder {
+        // вид поля для записи примитивов без упаковки
+        static final int OBJECT = 0;
+        static final int INTEGRAL = 1;   // int, long, short, byte
+        static final int FLOATING = 2;   // double, float
+        static final int BOOLEAN = 3;
+
+        final String name;
+        final Class<?> type;
+        final Class<?> elementType;   // для List<T> — T, иначе null
+        final Field field;
+        final int kind;
+        private final MethodHandle getter;   // (Object)Object
+        private final MethodHandle setter;   // (Object,Object)void
+        private final MethodHandle primitiveSetter;   // (Object,<тип поля>)void для примитивов
+
+        private FieldBinder(Field field) {
+            field.setAccessible(true);  // сделать приватные поля доступными
+            this.field = field;
+            this.name = field.getName();
+            this.type = field.getType();
+            this.elementType = List.class.isAssignableFrom(type) ? elementType(field.getGenericType()) : null;
+            this.kind = kindOf(type);
+            try {
+                this.getter = LOOKUP.unreflectGetter(field)
+                        .asType(MethodType.methodType(Object.class, Object.class));
+                boolean writable = !Modifier.isFinal(field.getModifiers());
+                this.setter = writable ? LOOKUP.unreflectSetter(field)
+                        .asType(MethodType.methodType(void.class, Object.class, Object.class)) : null;
+                this.primitiveSetter = writable && type.isPrimitive() ? LOOKUP.unreflectSetter(field)
+                        .asType(MethodType.methodType(void.class, Object.class, type)) : null;
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot access field " + field, e);
+            }
+        }
+
+        Object get(Object target) {
+            try {
+                return getter.invokeExact(target);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+
+        void set(Object target, Object value) throws Exception {
+            if (setter == null) {
+                field.set(target, value);  // final-поля через MethodHandle не записать
+                return;
+            }
+            try {
+                setter.invokeExact(target, value);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+
+        // запись числа в примитивное поле без упаковки; значение приводится к типу поля
+        void setLong(Object target, long value) throws Exception {
+            if (primitiveSetter == null) {
+                set(target, ObjectMapper.convertNumber(value, type));
+                return;
+            }
+            try {
+                if (type == int.class) {
+                    primitiveSetter.invokeExact(target, (int) value);
+                } else if (type == long.class) {
+                    primitiveSetter.invokeExact(target, value);
+                } else if (type == short.class) {
+                    primitiveSetter.invokeExact(target, (short) value);
+                } else {
+                    primitiveSetter.invokeExact(target, (byte) value);
+                }
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+
+        void setDouble(Object target, double value) throws Exception {
+            if (primitiveSetter == null) {
+                set(target, ObjectMapper.convertNumber(value, type));
+                return;
+            }
+            try {
+                if (type == double.class) {
+                    primitiveSetter.invokeExact(target, value);
+                } else {
+                    primitiveSetter.invokeExact(target, (float) value);
+                }
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+
+        void setBoolean(Object target, boolean value) throws Exception {
+            if (primitiveSetter == null) {
+                set(target, value);
+                return;
+            }
+            try {
+                primitiveSetter.invokeExact(target, value);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+
+        private static int kindOf(Class<?> type) {
+            if (type == int.class || type == long.class || type == short.class || type == byte.class) {
+                return INTEGRAL;
+            } else if (type == double.class || type == float.class) {
+                return FLOATING;
+            } else if (type == boolean.class) {
+                return BOOLEAN;
+            }
+            return OBJECT;
+        }
+
+        private static Class<?> elementType(Type genericType) {
+            if (genericType instanceof ParameterizedType listType) {
+                Type argument = listType.getActualTypeArguments()[0];
+                if (argument instanceof Class<?> cls) {
+                    return cls;
+                } else if (argument instanceof ParameterizedType parameterized) {
+                    return (Class<?>) parameterized.getRawType();
+                }
+            }
+            return Object.class;
+        }
+    }
+}
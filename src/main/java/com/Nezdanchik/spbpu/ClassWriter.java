@@ -0,0 +1,59 @@
+package com.Nezdanchik.spbpu;
+
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+
+// план сериализации класса для JsonSerializer: поля и заранее закодированные префиксы "name":
+// (в виде символов и байтов UTF-8). Строится один раз на класс
+final class ClassWriter {
+    private static final ClassValue<ClassWriter> CACHE = new ClassValue<>() {
+        @Override
+        protected ClassWriter computeValue(Class<?> type) {
+            return new ClassWriter(type);
+        }
+    };
+
+    final FieldWriter[] fields;
+
+    static ClassWriter of(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    private ClassWriter(Class<?> type) {
+        ClassBinder.FieldBinder[] binders = ClassBinder.of(type).fields;
+        fields = new FieldWriter[binders.length];
+        for (int i = 0; i < binders.length; i++) {
+            fields[i] = new FieldWriter(binders[i]);
+        }
+    }
+
+    static final class FieldWriter {
+        final ClassBinder.FieldBinder field;
+        final char[] prefix;       // "name":
+        final byte[] prefixUtf8;
+        final byte[] nameCbor;     // имя строкой CBOR для CborSerializer
+        final boolean isTransient;
+        final boolean isPublic;
+
+        private FieldWriter(ClassBinder.FieldBinder field) {
+            this.field = field;
+            this.isTransient = Modifier.isTransient(field.field.getModifiers());
+            this.isPublic = Modifier.isPublic(field.field.getModifiers());
+            StringBuilder sb = new StringBuilder();
+            JsonSerializer.appendQuoted(sb, field.name);
+            String encoded = sb.append(':').toString();
+            this.prefix = encoded.toCharArray();
+            this.prefixUtf8 = encoded.getBytes(StandardCharsets.UTF_8);
+            this.nameCbor = CborSerializer.encodeText(field.name);
+        }
+
+        // проверка политики включения полей без обращения к рефлексии
+        boolean included(JsonSerializerOptions.FieldInclusion inclusion) {
+            switch (inclusion) {
+                case NON_TRANSIENT: return !isTransient;
+                case PUBLIC: return isPublic;
+                default: return true;
+            }
+        }
+    }
+}
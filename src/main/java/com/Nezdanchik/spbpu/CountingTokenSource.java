@@ -0,0 +1,103 @@
+package com.Nezdanchik.spbpu;
+
+import java.io.IOException;
+
+// обёртка над источником токенов, считающая токены и глубину вложенности;
+// ставится только при включённых метриках, поэтому обычный разбор её не видит
+final class CountingTokenSource implements JsonTokenSource {
+    private final JsonTokenSource source;
+    long tokens;
+    int depth;
+    int maxDepth;
+
+    CountingTokenSource(JsonTokenSource source) {
+        this.source = source;
+    }
+
+    private void count(JsonToken.Type type) {
+        if (type == null) {
+            return;
+        }
+        tokens++;
+        if (type == JsonToken.Type.BracketObjectLeft || type == JsonToken.Type.BracketArrayLeft) {
+            if (++depth > maxDepth) {
+                maxDepth = depth;
+            }
+        } else if (type == JsonToken.Type.BracketObjectRight || type == JsonToken.Type.BracketArrayRight) {
+            depth--;
+        }
+    }
+
+    @Override
+    public JsonToken nextToken() throws IOException {
+        JsonToken token = source.nextToken();
+        count(token == null ? null : token.type());
+        return token;
+    }
+
+    @Override
+    public JsonToken peek() throws IOException {
+        return source.peek();
+    }
+
+    @Override
+    public void reset() throws IOException {
+        source.reset();
+        tokens = 0;
+        depth = 0;
+        maxDepth = 0;
+    }
+
+    @Override
+    public JsonToken.Type next() throws IOException {
+        JsonToken.Type type = source.next();
+        count(type);
+        return type;
+    }
+
+    @Override
+    public String text() {
+        return source.text();
+    }
+
+    @Override
+    public Number number() {
+        return source.number();
+    }
+
+    @Override
+    public long longValue() {
+        return source.longValue();
+    }
+
+    @Override
+    public double doubleValue() {
+        return source.doubleValue();
+    }
+
+    @Override
+    public String keyText() {
+        return source.keyText();
+    }
+
+    @Override
+    public void setSymbolTable(JsonSymbolTable symbols) {
+        source.setSymbolTable(symbols);
+    }
+
+    @Override
+    public boolean textEquals(String value) {
+        return source.textEquals(value);
+    }
+
+    @Override
+    public int matchKey(JsonKeyTrie keys) {
+        return source.matchKey(keys);
+    }
+
+    // токены пропущенного значения не считаются
+    @Override
+    public boolean skipFieldValue() throws IOException {
+        return source.skipFieldValue();
+    }
+}
@@ -0,0 +1,98 @@
+package com.Nezdanchik.spbpu;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+// компактный неизменяемый JSON-массив точного размера. Массив только из целых хранится в long[],
+// только из дробных — в double[], всё остальное — в Object[]; через List значения видны теми же типами,
+// что дал бы обычный разбор (Integer/Long/Double)
+public final class JsonArray extends AbstractList<Object> implements RandomAccess {
+    private static final Object[] EMPTY = new Object[0];
+
+    private final Object[] values;
+    private final long[] longs;
+    private final double[] doubles;
+
+    private JsonArray(Object[] values, long[] longs, double[] doubles) {
+        this.values = values;
+        this.longs = longs;
+        this.doubles = doubles;
+    }
+
+    // копия items[from, to) в хранилище, подобранное по содержимому
+    static JsonArray copyOf(Object[] items, int from, int to) {
+        int size = to - from;
+        if (size == 0) {
+            return new JsonArray(EMPTY, null, null);
+        }
+        boolean allLongs = true;
+        boolean allDoubles = true;
+        for (int i = from; i < to && (allLongs || allDoubles); i++) {
+            Object item = items[i];
+            allLongs &= item instanceof Integer || item instanceof Long;
+            allDoubles &= item instanceof Double;
+        }
+        if (allLongs) {
+            long[] longs = new long[size];
+            for (int i = 0; i < size; i++) {
+                longs[i] = ((Number) items[from + i]).longValue();
+            }
+            return new JsonArray(null, longs, null);
+        }
+        if (allDoubles) {
+            double[] doubles = new double[size];
+            for (int i = 0; i < size; i++) {
+                doubles[i] = (Double) items[from + i];
+            }
+            return new JsonArray(null, null, doubles);
+        }
+        Object[] values = new Object[size];
+        System.arraycopy(items, from, values, 0, size);
+        return new JsonArray(values, null, null);
+    }
+
+    @Override
+    public int size() {
+        if (longs != null) {
+            return longs.length;
+        }
+        return doubles != null ? doubles.length : values.length;
+    }
+
+    @Override
+    public Object get(int index) {
+        if (longs != null) {
+            long value = longs[index];
+            return value == (int) value ? (Object) (int) value : (Object) value;
+        }
+        if (doubles != null) {
+            return doubles[index];
+        }
+        return values[index];
+    }
+
+    // массив целиком из целых чисел, хранится в long[]
+    public boolean isLongArray() {
+        return longs != null;
+    }
+
+    // массив целиком из дробных чисел, хранится в double[]
+    public boolean isDoubleArray() {
+        return doubles != null;
+    }
+
+    // доступ к числам без упаковки; для нечисловых элементов — ClassCastException
+    public long getLong(int index) {
+        if (longs != null) {
+            return longs[index];
+        }
+        return doubles != null ? (long) doubles[index] : ((Number) values[index]).longValue();
+    }
+
+    public double getDouble(int index) {
+        if (doubles != null) {
+            return doubles[index];
+        }
+        return longs != null ? longs[index] : ((Number) values[index]).doubleValue();
+    }
+}
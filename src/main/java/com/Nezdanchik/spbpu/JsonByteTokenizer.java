@@ -0,0 +1,597 @@
+package com.Nezdanchik.spbpu;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// токенизатор, работающий прямо с байтами UTF-8 (byte[], heap- и direct-ByteBuffer) без предварительного декодирования
+public class JsonByteTokenizer implements JsonTokenSource {
+    static final long MAX_SEGMENT_SIZE = Integer.MAX_VALUE;
+
+    // ввод может состоять из нескольких сегментов, токены могут пересекать их границы
+    private static final ByteBuffer[] NO_SEGMENTS = new ByteBuffer[0];
+
+    private ByteBuffer[] segments;
+    private byte[] bytes;      // ввод-массив без ByteBuffer (для повторного использования через reuse)
+    private int bytesOffset;
+    private int bytesLength;
+    private ByteBuffer[] reusedSegment;
+    private int segmentIndex;
+    private ByteBuffer buffer;
+    private byte[] array;      // массив heap-буфера или null для direct-буфера
+    private int arrayOffset;
+    private int position;
+    private int limit;
+
+    // текущий токен: тип и, для строк и чисел, его текст или границы в буфере
+    private JsonToken.Type type;
+    private String text;
+    private int textStart;
+    private int textEnd;
+    private boolean ascii;
+    private JsonSymbolTable symbols;
+
+    private JsonToken peeked;
+    private byte[] scratch = new byte[64];
+    private char[] digits = new char[32];
+
+    public JsonByteTokenizer(byte[] input) {
+        this(ByteBuffer.wrap(input));
+    }
+
+    public JsonByteTokenizer(byte[] input, int offset, int length) {
+        this(ByteBuffer.wrap(input, offset, length));
+    }
+
+    public JsonByteTokenizer(ByteBuffer input) {
+        this(new ByteBuffer[]{input});
+    }
+
+    // позиции сегментов не меняются: чтение идёт по абсолютным индексам
+    public JsonByteTokenizer(ByteBuffer... segments) {
+        this.segments = segments;
+        this.segmentIndex = -1;  // остальное состояние reset() — значения по умолчанию
+    }
+
+    // отображает файл в память; файлы больше 2 ГБ делятся на несколько отображений
+    public static JsonByteTokenizer mapped(Path file) throws IOException {
+        return new JsonByteTokenizer(map(file, MAX_SEGMENT_SIZE));
+    }
+
+    static ByteBuffer[] map(Path file, long segmentSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer[] mapped = new ByteBuffer[(int) ((size + segmentSize - 1) / segmentSize)];
+            for (int i = 0; i < mapped.length; i++) {
+                long offset = i * segmentSize;
+                mapped[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(segmentSize, size - offset));
+            }
+            return mapped;  // отображения остаются действительными после закрытия канала
+        }
+    }
+
+    @Override
+    public JsonToken nextToken() {
+        if (peeked != null) {
+            JsonToken token = peeked;
+            peeked = null;
+            return token;
+        }
+        return toToken(scan());
+    }
+
+    @Override
+    public JsonToken peek() {
+        if (peeked == null) {
+            peeked = toToken(scan());
+        }
+        return peeked;
+    }
+
+    @Override
+    public void reset() {
+        segmentIndex = -1;
+        buffer = null;
+        array = null;
+        position = 0;
+        limit = 0;
+        type = null;
+        text = null;
+        peeked = null;
+        if (bytes != null) {
+            array = bytes;
+            arrayOffset = 0;
+            position = bytesOffset;
+            limit = bytesOffset + bytesLength;
+        }
+    }
+
+    // повторное использование с новым массивом: вспомогательные буферы и таблица имён сохраняются,
+    // ByteBuffer не создаётся
+    void reuse(byte[] input, int offset, int length) {
+        segments = NO_SEGMENTS;
+        bytes = input;
+        bytesOffset = offset;
+        bytesLength = length;
+        reset();
+    }
+
+    // то же для ByteBuffer (в том числе direct и отображённого в память); читается от position до limit
+    void reuse(ByteBuffer input) {
+        if (reusedSegment == null) {
+            reusedSegment = new ByteBuffer[1];
+        }
+        reusedSegment[0] = input;
+        segments = reusedSegment;
+        bytes = null;
+        reset();
+    }
+
+    // массив и буферы отпускаются, чтобы токенизатор в пуле не удерживал последний документ
+    // (в том числе отображённый в память); дальше нужен reuse
+    void release() {
+        segments = NO_SEGMENTS;
+        bytes = null;
+        if (reusedSegment != null) {
+            reusedSegment[0] = null;
+        }
+        reset();
+    }
+
+    private JsonToken toToken(JsonToken.Type type) {
+        if (type == null) {
+            return null;
+        }
+        switch (type) {
+            case BracketObjectLeft: return JsonTokenizer.OBJECT_LEFT;
+            case BracketObjectRight: return JsonTokenizer.OBJECT_RIGHT;
+            case BracketArrayLeft: return JsonTokenizer.ARRAY_LEFT;
+            case BracketArrayRight: return JsonTokenizer.ARRAY_RIGHT;
+            case Comma: return JsonTokenizer.COMMA;
+            case Colon: return JsonTokenizer.COLON;
+            case True: return JsonTokenizer.TRUE;
+            case False: return JsonTokenizer.FALSE;
+            case Null: return JsonTokenizer.NULL;
+            default: return new JsonToken(type, text());
+        }
+    }
+
+    // строки при сканировании только находятся в буфере, декодирование откладывается до вызова text()
+    @Override
+    public JsonToken.Type next() {
+        if (peeked != null) {
+            type = peeked.type();
+            text = peeked.value();
+            peeked = null;
+            return type;
+        }
+        return scan();
+    }
+
+    private JsonToken.Type scan() {
+        text = null;
+        while (position < limit || nextSegment()) {
+            int current = byteAt(position);
+            switch (current) {
+                case '{':
+                    position++;
+                    return type = JsonToken.Type.BracketObjectLeft;
+                case '}':
+                    position++;
+                    return type = JsonToken.Type.BracketObjectRight;
+                case '[':
+                    position++;
+                    return type = JsonToken.Type.BracketArrayLeft;
+                case ']':
+                    position++;
+                    return type = JsonToken.Type.BracketArrayRight;
+                case ',':
+                    position++;
+                    return type = JsonToken.Type.Comma;
+                case ':':
+                    position++;
+                    return type = JsonToken.Type.Colon;
+                case '"':
+                    position++;
+                    scanString();
+                    return type = JsonToken.Type.String;
+                case 't':
+                    expectLiteral("true", "Invalid boolean value");
+                    return type = JsonToken.Type.True;
+                case 'f':
+                    expectLiteral("false", "Invalid boolean value");
+                    return type = JsonToken.Type.False;
+                case 'n':
+                    expectLiteral("null", "Invalid null value");
+                    return type = JsonToken.Type.Null;
+                case ' ':
+                case '\t':
+                case '\n':
+                case '\r':
+                    position++;
+                    break;
+                default:
+                    if ((current >= '0' && current <= '9') || current == '-') {
+                        scanNumber();
+                        return type = JsonToken.Type.Number;
+                    }
+                    throw new IllegalArgumentException("Unexpected character: " + (char) current);
+            }
+        }
+        return type = null;
+    }
+
+    // текст текущей строки или числа; декодируется при первом обращении
+    @Override
+    public String text() {
+        if (text == null && (type == JsonToken.Type.String || type == JsonToken.Type.Number)) {
+            text = decode(textStart, textEnd, ascii);
+        }
+        return text;
+    }
+
+    // ASCII-ключ ищется в таблице имён прямо по байтам, повторный ключ не создаёт новую строку
+    @Override
+    public String keyText() {
+        if (text == null && ascii && type == JsonToken.Type.String) {
+            if (symbols == null) {
+                symbols = new JsonSymbolTable();
+            }
+            int length = textEnd - textStart;
+            if (array != null) {
+                text = symbols.lookupAscii(array, arrayOffset + textStart, length);
+            } else {
+                text = symbols.lookupAscii(copyToScratch(textStart, length), 0, length);
+            }
+        }
+        return text();
+    }
+
+    @Override
+    public void setSymbolTable(JsonSymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    // число разбирается из байтов без создания строки
+    @Override
+    public Number number() {
+        if (type != JsonToken.Type.Number) {
+            throw new IllegalStateException("Current token is not a number: " + type);
+        }
+        if (text != null) {
+            return JsonNumbers.parse(text);
+        }
+        return JsonNumbers.parse(digits, 0, copyDigits());
+    }
+
+    @Override
+    public long longValue() {
+        if (type != JsonToken.Type.Number || text != null) {
+            return number().longValue();
+        }
+        return JsonNumbers.parseLong(digits, 0, copyDigits());
+    }
+
+    @Override
+    public double doubleValue() {
+        if (type != JsonToken.Type.Number || text != null) {
+            return number().doubleValue();
+        }
+        return JsonNumbers.parseDouble(digits, 0, copyDigits());
+    }
+
+    // цифры текущего числа переносятся в digits, возвращается их количество
+    private int copyDigits() {
+        int length = textEnd - textStart;
+        if (digits.length < length) {
+            digits = new char[Math.max(length, digits.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            digits[i] = (char) byteAt(textStart + i);
+        }
+        return length;
+    }
+
+    // сравнение текста текущего токена со строкой; ASCII-текст сравнивается прямо в буфере
+    @Override
+    public boolean textEquals(String value) {
+        if (text != null || !ascii || type != JsonToken.Type.String) {
+            return value.equals(text());
+        }
+        int length = textEnd - textStart;
+        if (length != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (byteAt(textStart + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ключ сравнивается с деревом прямо по байтам UTF-8 ввода
+    @Override
+    public int matchKey(JsonKeyTrie keys) {
+        if (text != null || type != JsonToken.Type.String) {
+            return keys.find(keyText());
+        }
+        int node = JsonKeyTrie.ROOT;
+        for (int i = textStart; i < textEnd && node >= 0; i++) {
+            node = keys.step(node, byteAt(i));
+        }
+        return node < 0 ? -1 : keys.value(node);
+    }
+
+    // пропуск значения ненужного поля: ищутся только кавычки и скобки, значения не разбираются и не декодируются
+    @Override
+    public boolean skipFieldValue() {
+        if (peeked != null || type != JsonToken.Type.String) {
+            return false;
+        }
+        if (skipWhitespace() != ':') {
+            throw new IllegalArgumentException("Expected ':' after field name");
+        }
+        int current = skipWhitespace();
+        switch (current) {
+            case '{':
+            case '[':
+                skipContainer();
+                break;
+            case '"':
+                skipString();
+                break;
+            case 't':
+                expectLiteral("rue", "Invalid boolean value");
+                break;
+            case 'f':
+                expectLiteral("alse", "Invalid boolean value");
+                break;
+            case 'n':
+                expectLiteral("ull", "Invalid null value");
+                break;
+            case -1:
+                throw new IllegalArgumentException("Unexpected end of input");
+            default:
+                if ((current < '0' || current > '9') && current != '-') {
+                    throw new IllegalArgumentException("Unexpected character: " + (char) current);
+                }
+                while ((position < limit || nextSegment()) && JsonTokenizer.isNumberChar(byteAt(position))) {
+                    position++;
+                }
+        }
+        type = null;
+        text = null;
+        return true;
+    }
+
+    private int skipWhitespace() {
+        int current;
+        do {
+            current = read();
+        } while (current == ' ' || current == '\t' || current == '\n' || current == '\r');
+        return current;
+    }
+
+    private void skipContainer() {
+        int depth = 1;
+        while (position < limit || nextSegment()) {
+            int i = indexOfStructural(position);
+            if (i == limit) {
+                position = limit;
+                continue;
+            }
+            int current = byteAt(i);
+            position = i + 1;
+            if (current == '"') {
+                skipString();
+            } else if (current == '{' || current == '[') {
+                depth++;
+            } else if (--depth == 0) {
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Unexpected end of input");
+    }
+
+    // первая кавычка или скобка в текущем сегменте начиная с from, иначе limit
+    private int indexOfStructural(int from) {
+        int i = from;
+        if (array != null) {
+            byte[] bytes = array;
+            int offset = arrayOffset;
+            while (i < limit) {
+                byte b = bytes[offset + i];
+                if (b == '"' || b == '{' || b == '[' || b == '}' || b == ']') {
+                    break;
+                }
+                i++;
+            }
+            return i;
+        }
+        while (i < limit) {
+            byte b = buffer.get(i);
+            if (b == '"' || b == '{' || b == '[' || b == '}' || b == ']') {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private void skipString() {
+        while (position < limit || nextSegment()) {
+            int i = position;
+            int current = 0;
+            while (i < limit && (current = byteAt(i)) != '"' && current != '\\') {
+                i++;
+            }
+            if (i == limit) {
+                position = limit;
+                continue;
+            }
+            position = i + 1;
+            if (current == '"') {
+                return;
+            }
+            if (read() == -1) {
+                break;  // экранированный символ пропускается целиком
+            }
+        }
+        throw new IllegalArgumentException("Unterminated string");
+    }
+
+    private boolean nextSegment() {
+        while (segmentIndex + 1 < segments.length) {
+            ByteBuffer next = segments[++segmentIndex];
+            buffer = next;
+            position = next.position();
+            limit = next.limit();
+            if (next.hasArray()) {
+                array = next.array();
+                arrayOffset = next.arrayOffset();
+            } else {
+                array = null;
+                arrayOffset = 0;
+            }
+            if (position < limit) {
+                return true;
+            }
+        }
+        position = limit;
+        return false;
+    }
+
+    private int byteAt(int index) {
+        return array != null ? array[arrayOffset + index] & 0xFF : buffer.get(index) & 0xFF;
+    }
+
+    // следующий байт или -1 в конце ввода
+    private int read() {
+        if (position >= limit && !nextSegment()) {
+            return -1;
+        }
+        return byteAt(position++);
+    }
+
+    private void scanString() {
+        // быстрый путь: строка без экранирования целиком лежит в текущем сегменте
+        int start = position;
+        boolean onlyAscii = true;
+        for (int i = start; i < limit; i++) {
+            int current = byteAt(i);
+            if (current == '"') {
+                position = i + 1;
+                textStart = start;
+                textEnd = i;
+                ascii = onlyAscii;
+                return;
+            } else if (current == '\\') {
+                break;
+            } else if (current >= 0x80) {
+                onlyAscii = false;
+            }
+        }
+        text = readStringSlow();
+    }
+
+    // медленный путь: экранирование или граница сегмента; байты копятся и декодируются кусками
+    private String readStringSlow() {
+        StringBuilder sb = new StringBuilder();
+        int count = 0;
+        int current;
+        while ((current = read()) != -1) {
+            if (current == '"') {
+                return sb.append(new String(scratch, 0, count, StandardCharsets.UTF_8)).toString();
+            } else if (current == '\\') {
+                // байты '\\' и '"' не встречаются внутри многобайтовых символов UTF-8
+                sb.append(new String(scratch, 0, count, StandardCharsets.UTF_8));
+                count = 0;
+                current = read();
+                switch (current) {
+                    case -1: throw new IllegalArgumentException("Unterminated string");
+                    case 'n': sb.append('\n'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u': sb.append(readUnicodeEscape()); break;
+                    default: sb.append((char) current); break;
+                }
+            } else {
+                if (count == scratch.length) {
+                    scratch = Arrays.copyOf(scratch, count * 2);
+                }
+                scratch[count++] = (byte) current;
+            }
+        }
+        throw new IllegalArgumentException("Unterminated string");
+    }
+
+    private char readUnicodeEscape() {
+        int code = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(read(), 16);
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid unicode escape");
+            }
+            code = (code << 4) | digit;
+        }
+        return (char) code;
+    }
+
+    private void scanNumber() {
+        int start = position;
+        int i = start;
+        while (i < limit && JsonTokenizer.isNumberChar(byteAt(i))) {
+            i++;
+        }
+        if (i < limit || segmentIndex == segments.length - 1) {
+            position = i;
+            textStart = start;
+            textEnd = i;
+            ascii = true;
+            return;
+        }
+        // число продолжается в следующем сегменте
+        StringBuilder sb = new StringBuilder(decode(start, i, true));
+        position = i;
+        while ((position < limit || nextSegment()) && JsonTokenizer.isNumberChar(byteAt(position))) {
+            sb.append((char) byteAt(position++));
+        }
+        text = sb.toString();
+    }
+
+    private void expectLiteral(String literal, String error) {
+        for (int i = 0; i < literal.length(); i++) {
+            if (read() != literal.charAt(i)) {
+                throw new IllegalArgumentException(error);
+            }
+        }
+    }
+
+    // ASCII-строки копируются в String напрямую (компактные строки Latin-1), без декодера UTF-8
+    private String decode(int start, int end, boolean onlyAscii) {
+        int length = end - start;
+        byte[] bytes = array;
+        int offset = arrayOffset + start;
+        if (bytes == null) {
+            bytes = copyToScratch(start, length);
+            offset = 0;
+        }
+        return new String(bytes, offset, length, onlyAscii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    }
+
+    // байты direct-буфера копируются во вспомогательный массив
+    private byte[] copyToScratch(int start, int length) {
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(start, scratch, 0, length);
+        return scratch;
+    }
+}
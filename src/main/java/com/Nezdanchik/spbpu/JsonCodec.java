@@ -0,0 +1,14 @@
+package com.Nezdanchik.spbpu;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// класс, для которого JsonCodecProcessor на этапе компиляции создаёт JsonTypeCodec:
+// чтение и запись полей без рефлексии. Поля должны быть не private (или иметь get/set-методы),
+// у класса нужен доступный конструктор без аргументов
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface JsonCodec {
+}
@@ -0,0 +1,89 @@
+package com.Nezdanchik.spbpu;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+// реестр кодеков из ServiceLoader и вспомогательные методы для сгенерированного кода.
+// Реестр читается один раз при первом обращении, дальше поиск идёт через ClassValue
+public final class JsonCodecs {
+    private static final ClassValue<JsonTypeCodec<?>> CODECS = new ClassValue<>() {
+        @Override
+        protected JsonTypeCodec<?> computeValue(Class<?> type) {
+            return Registry.CODECS.get(type);
+        }
+    };
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private JsonCodecs() {
+    }
+
+    // ленивая загрузка: классы без кодеков не платят за ServiceLoader, пока реестр не нужен
+    private static final class Registry {
+        static final Map<Class<?>, JsonTypeCodec<?>> CODECS = new HashMap<>();
+
+        static {
+            for (JsonTypeCodec<?> codec : ServiceLoader.load(JsonTypeCodec.class, JsonCodecs.class.getClassLoader())) {
+                CODECS.put(codec.type(), codec);
+            }
+        }
+    }
+
+    // кодек класса или null, если его нет
+    @SuppressWarnings("unchecked")
+    public static <T> JsonTypeCodec<T> find(Class<T> type) {
+        return (JsonTypeCodec<T>) CODECS.get(type);
+    }
+
+    public static long readLong(JsonReader reader) {
+        expect(reader, JsonReader.Event.VALUE_NUMBER, "number");
+        return reader.getLong();
+    }
+
+    public static double readDouble(JsonReader reader) {
+        expect(reader, JsonReader.Event.VALUE_NUMBER, "number");
+        return reader.getDouble();
+    }
+
+    public static boolean readBoolean(JsonReader reader) {
+        JsonReader.Event event = reader.currentEvent();
+        if (event != JsonReader.Event.VALUE_TRUE && event != JsonReader.Event.VALUE_FALSE) {
+            throw new IllegalArgumentException("Cannot assign " + event + " to field of type boolean");
+        }
+        return reader.getBoolean();
+    }
+
+    public static String readString(JsonReader reader) {
+        expect(reader, JsonReader.Event.VALUE_STRING, "String");
+        return reader.getText();
+    }
+
+    // char пишется строкой из одного символа
+    public static char readChar(JsonReader reader) {
+        String text = readString(reader);
+        if (text.length() != 1) {
+            throw new IllegalArgumentException("Cannot assign string of length " + text.length() + " to field of type char");
+        }
+        return text.charAt(0);
+    }
+
+    // значение произвольного типа (списки, массивы, вложенные объекты) через ObjectMapper;
+    // вложенные классы с кодеком читаются своим кодеком
+    public static Object readValue(JsonReader reader, Class<?> type, Class<?> elementType) throws IOException {
+        try {
+            return MAPPER.read(reader, type, elementType);
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static void expect(JsonReader reader, JsonReader.Event expected, String type) {
+        if (reader.currentEvent() != expected) {
+            throw new IllegalArgumentException("Cannot assign " + reader.currentEvent() + " to field of type " + type);
+        }
+    }
+}
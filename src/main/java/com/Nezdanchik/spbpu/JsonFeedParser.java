@@ -0,0 +1,590 @@
+package com.Nezdanchik.spbpu;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// неблокирующий разбор UTF-8 по мере поступления данных (для NIO и асинхронного ввода-вывода).
+// Куски подаются через feed(), nextEvent() возвращает события, как JsonReader, а когда текущий кусок
+// закончился — NEED_MORE_INPUT. Токен, разрезанный границей кусков, досканируется с места остановки:
+// уже прочитанные байты повторно не просматриваются, копируются только хвосты разрезанных строк.
+// Во входе может быть несколько значений верхнего уровня подряд (например, сообщения в одном соединении)
+public final class JsonFeedParser {
+
+    public enum Event {
+        START_OBJECT,
+        END_OBJECT,
+        START_ARRAY,
+        END_ARRAY,
+        FIELD_NAME,
+        VALUE_STRING,
+        VALUE_NUMBER,
+        VALUE_TRUE,
+        VALUE_FALSE,
+        VALUE_NULL,
+        NEED_MORE_INPUT  // текущий кусок разобран, нужен следующий (или endOfInput())
+    }
+
+    // результаты nextValue(), отличные от значения
+    public static final Object NEED_MORE_INPUT = new Marker("NEED_MORE_INPUT");
+    public static final Object END_OF_INPUT = new Marker("END_OF_INPUT");
+
+    // чего ждём от следующего байта вне токена
+    private static final int VALUE = 0;
+    private static final int VALUE_OR_END = 1;
+    private static final int KEY = 2;
+    private static final int KEY_OR_END = 3;
+    private static final int COLON = 4;
+    private static final int AFTER_VALUE = 5;
+
+    // незаконченный токен
+    private static final int NONE = 0;
+    private static final int STRING = 1;
+    private static final int NUMBER = 2;
+    private static final int LITERAL = 3;
+
+    private byte[] input = new byte[0];
+    private int position;
+    private int limit;
+    private int chunkStart;
+    private long chunkBase;          // смещение начала текущего куска от начала ввода
+    private boolean ended;
+    private byte[] directCopy;       // содержимое direct-буфера, у которого нет массива
+
+    private int state = VALUE;
+    private boolean[] objectStack = new boolean[16];
+    private int depth;
+    private Event event;
+
+    private int token = NONE;
+    private boolean key;
+    private int tokenStart;
+    private boolean escaped;
+    private boolean hasEscapes;
+    private byte[] pending = new byte[64];   // начало строки из прошлых кусков
+    private int pendingLength;
+    private boolean spanned;
+    private char[] number = new char[32];
+    private int numberLength;
+    private String literal;
+    private int matched;
+    private Event literalEvent;
+
+    // текст последней строки: либо уже строка, либо границы в input/pending
+    private String text;
+    private byte[] textBytes;
+    private int textStart;
+    private int textEnd;
+    private boolean textEscapes;
+
+    // недостроенные значения для nextValue()
+    private Object[] values = new Object[16];
+    private String[] keys = new String[16];
+    private int valueDepth;
+
+    // кусок читается без копирования; массив нельзя менять, пока не вернётся NEED_MORE_INPUT
+    public void feed(byte[] chunk) {
+        feed(chunk, 0, chunk.length);
+    }
+
+    public void feed(byte[] chunk, int offset, int length) {
+        prepareFeed();
+        input = chunk;
+        position = offset;
+        limit = offset + length;
+        chunkStart = offset;
+        resumeToken();
+    }
+
+    // читается от position до limit, position буфера сразу сдвигается на limit;
+    // содержимое direct-буфера копируется во внутренний массив
+    public void feed(ByteBuffer chunk) {
+        prepareFeed();
+        int length = chunk.remaining();
+        if (chunk.hasArray()) {
+            input = chunk.array();
+            position = chunk.arrayOffset() + chunk.position();
+        } else {
+            if (directCopy == null || directCopy.length < length) {
+                directCopy = new byte[Math.max(length, 8192)];
+            }
+            chunk.get(chunk.position(), directCopy, 0, length);
+            input = directCopy;
+            position = 0;
+        }
+        limit = position + length;
+        chunkStart = position;
+        chunk.position(chunk.limit());
+        resumeToken();
+    }
+
+    // продолжение строки из прошлого куска начинается с начала нового куска, а не с нуля в массиве
+    private void resumeToken() {
+        if (token == STRING) {
+            tokenStart = chunkStart;
+        }
+    }
+
+    // данных больше не будет: незаконченное число завершается, незаконченное значение — ошибка
+    public void endOfInput() {
+        ended = true;
+    }
+
+    // true, когда текущий кусок разобран целиком и можно подавать следующий
+    public boolean needsInput() {
+        return position == limit && !ended;
+    }
+
+    private void prepareFeed() {
+        if (ended) {
+            throw new IllegalStateException("Input already ended");
+        }
+        if (position != limit) {
+            throw new IllegalStateException("Previous chunk is not consumed yet");
+        }
+        // текст последней строки ссылается на старый кусок, который вызывающий может переиспользовать
+        if (textBytes == input && text == null && (event == Event.FIELD_NAME || event == Event.VALUE_STRING)) {
+            text = getText();
+        }
+        chunkBase += limit - chunkStart;
+    }
+
+    // следующее событие, NEED_MORE_INPUT или null, когда после endOfInput() все значения прочитаны
+    public Event nextEvent() {
+        while (true) {
+            if (token != NONE) {
+                Event result = continueToken();
+                if (result != null) {
+                    return event = result;
+                }
+            }
+            if (position == limit) {
+                if (!ended) {
+                    return event = Event.NEED_MORE_INPUT;
+                }
+                if (depth > 0 || state != VALUE) {
+                    throw error("Unexpected end of input");
+                }
+                return event = null;
+            }
+            byte b = input[position];
+            if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+                position++;
+                continue;
+            }
+            switch (state) {
+                case KEY_OR_END:
+                case KEY:
+                    if (state == KEY_OR_END && b == '}') {
+                        position++;
+                        return event = close(true);
+                    }
+                    if (b != '"') {
+                        throw error("Expected string key");
+                    }
+                    position++;
+                    startString(true);
+                    break;
+                case COLON:
+                    if (b != ':') {
+                        throw error("Expected ':'");
+                    }
+                    position++;
+                    state = VALUE;
+                    break;
+                case AFTER_VALUE: {
+                    boolean inObject = objectStack[depth - 1];
+                    position++;
+                    if (b == ',') {
+                        state = inObject ? KEY : VALUE;
+                    } else if (b == (inObject ? '}' : ']')) {
+                        return event = close(inObject);
+                    } else {
+                        position--;
+                        throw error("Expected ',' or '" + (inObject ? '}' : ']') + "'");
+                    }
+                    break;
+                }
+                default: {
+                    if (state == VALUE_OR_END && b == ']') {
+                        position++;
+                        return event = close(false);
+                    }
+                    Event result = startValue(b);
+                    if (result != null) {
+                        return event = result;
+                    }
+                }
+            }
+        }
+    }
+
+    // ---------- значения верхнего уровня ----------
+
+    // следующее значение верхнего уровня целиком (HashMap/ArrayList/примитив, как у JsonParser),
+    // NEED_MORE_INPUT, если оно ещё не пришло полностью, или END_OF_INPUT.
+    // Недостроенное значение сохраняется между вызовами; смешивать с nextEvent() нельзя
+    @SuppressWarnings("unchecked")
+    public Object nextValue() {
+        while (true) {
+            Event e = nextEvent();
+            if (e == null) {
+                return END_OF_INPUT;
+            }
+            Object value;
+            switch (e) {
+                case NEED_MORE_INPUT:
+                    return NEED_MORE_INPUT;
+                case START_OBJECT:
+                    pushValue(new HashMap<String, Object>());
+                    continue;
+                case START_ARRAY:
+                    pushValue(new ArrayList<>());
+                    continue;
+                case FIELD_NAME:
+                    keys[valueDepth - 1] = getText();
+                    continue;
+                case END_OBJECT:
+                case END_ARRAY:
+                    value = values[--valueDepth];
+                    values[valueDepth] = null;
+                    break;
+                case VALUE_STRING:
+                    value = getText();
+                    break;
+                case VALUE_NUMBER:
+                    value = getNumber();
+                    break;
+                case VALUE_TRUE:
+                    value = Boolean.TRUE;
+                    break;
+                case VALUE_FALSE:
+                    value = Boolean.FALSE;
+                    break;
+                default:
+                    value = null;
+                    break;
+            }
+            if (valueDepth == 0) {
+                return value;
+            }
+            Object parent = values[valueDepth - 1];
+            if (parent instanceof Map) {
+                ((Map<String, Object>) parent).put(keys[valueDepth - 1], value);
+            } else {
+                ((List<Object>) parent).add(value);
+            }
+        }
+    }
+
+    private void pushValue(Object container) {
+        if (valueDepth == values.length) {
+            values = Arrays.copyOf(values, valueDepth * 2);
+            keys = Arrays.copyOf(keys, valueDepth * 2);
+        }
+        values[valueDepth++] = container;
+    }
+
+    // ---------- текущее событие ----------
+
+    public Event currentEvent() {
+        return event;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public String getText() {
+        if (event == Event.VALUE_NUMBER) {
+            return new String(number, 0, numberLength);
+        }
+        if (event != Event.FIELD_NAME && event != Event.VALUE_STRING) {
+            throw new IllegalStateException("No text for event " + event);
+        }
+        if (text == null) {
+            text = decode(textBytes, textStart, textEnd, textEscapes);
+        }
+        return text;
+    }
+
+    public Number getNumber() {
+        requireNumber();
+        return JsonNumbers.parse(number, 0, numberLength);
+    }
+
+    public long getLong() {
+        requireNumber();
+        return JsonNumbers.parseLong(number, 0, numberLength);
+    }
+
+    public double getDouble() {
+        requireNumber();
+        return JsonNumbers.parseDouble(number, 0, numberLength);
+    }
+
+    public boolean getBoolean() {
+        if (event != Event.VALUE_TRUE && event != Event.VALUE_FALSE) {
+            throw new IllegalStateException("Current event is not a boolean: " + event);
+        }
+        return event == Event.VALUE_TRUE;
+    }
+
+    private void requireNumber() {
+        if (event != Event.VALUE_NUMBER) {
+            throw new IllegalStateException("Current event is not a number: " + event);
+        }
+    }
+
+    // ---------- токены ----------
+
+    private Event startValue(byte b) {
+        switch (b) {
+            case '{':
+                position++;
+                push(true);
+                state = KEY_OR_END;
+                return Event.START_OBJECT;
+            case '[':
+                position++;
+                push(false);
+                state = VALUE_OR_END;
+                return Event.START_ARRAY;
+            case '"':
+                position++;
+                startString(false);
+                return null;
+            case 't':
+                startLiteral("true", Event.VALUE_TRUE);
+                return null;
+            case 'f':
+                startLiteral("false", Event.VALUE_FALSE);
+                return null;
+            case 'n':
+                startLiteral("null", Event.VALUE_NULL);
+                return null;
+            default:
+                if (b == '-' || (b >= '0' && b <= '9')) {
+                    token = NUMBER;
+                    numberLength = 0;
+                    return null;
+                }
+                throw error("Unexpected character: " + (char) (b & 0xFF));
+        }
+    }
+
+    private void startString(boolean isKey) {
+        token = STRING;
+        key = isKey;
+        tokenStart = position;
+        escaped = false;
+        hasEscapes = false;
+        spanned = false;
+        pendingLength = 0;
+    }
+
+    private void startLiteral(String value, Event result) {
+        token = LITERAL;
+        literal = value;
+        literalEvent = result;
+        matched = 0;
+    }
+
+    // продолжает незаконченный токен; null — токен не закончен и кусок исчерпан
+    private Event continueToken() {
+        switch (token) {
+            case STRING:
+                return continueString();
+            case NUMBER:
+                return continueNumber();
+            default:
+                return continueLiteral();
+        }
+    }
+
+    private Event continueString() {
+        byte[] bytes = input;
+        int i = position;
+        while (i < limit) {
+            byte c = bytes[i];
+            if (escaped) {
+                escaped = false;
+            } else if (c == '\\') {
+                escaped = true;
+                hasEscapes = true;
+            } else if (c == '"') {
+                position = i + 1;
+                token = NONE;
+                text = null;
+                textEscapes = hasEscapes;
+                if (spanned) {
+                    appendPending(bytes, tokenStart, i);
+                    textBytes = pending;
+                    textStart = 0;
+                    textEnd = pendingLength;
+                } else {
+                    textBytes = bytes;
+                    textStart = tokenStart;
+                    textEnd = i;
+                }
+                if (key) {
+                    state = COLON;
+                    return Event.FIELD_NAME;
+                }
+                afterValue();
+                return Event.VALUE_STRING;
+            } else if (c >= 0 && c < 0x20) {
+                position = i;
+                throw error("Unescaped control character in string");
+            }
+            i++;
+        }
+        // строка продолжается в следующем куске: её начало переносится в pending
+        position = limit;
+        if (ended) {
+            throw error("Unterminated string");
+        }
+        appendPending(bytes, tokenStart, limit);
+        spanned = true;
+        return null;
+    }
+
+    private void appendPending(byte[] bytes, int from, int to) {
+        int length = to - from;
+        if (pendingLength + length > pending.length) {
+            pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingLength + length));
+        }
+        System.arraycopy(bytes, from, pending, pendingLength, length);
+        pendingLength += length;
+    }
+
+    // цифры копируются в number по мере чтения, поэтому разрезанное число не перечитывается
+    private Event continueNumber() {
+        while (position < limit) {
+            byte c = input[position];
+            if (!JsonTokenizer.isNumberChar(c)) {
+                return finishNumber();
+            }
+            if (numberLength == number.length) {
+                number = Arrays.copyOf(number, numberLength * 2);
+            }
+            number[numberLength++] = (char) c;
+            position++;
+        }
+        return ended ? finishNumber() : null;
+    }
+
+    private Event finishNumber() {
+        token = NONE;
+        afterValue();
+        return Event.VALUE_NUMBER;
+    }
+
+    private Event continueLiteral() {
+        while (matched < literal.length() && position < limit) {
+            if (input[position] != literal.charAt(matched)) {
+                throw error("Invalid literal, expected " + literal);
+            }
+            matched++;
+            position++;
+        }
+        if (matched < literal.length()) {
+            if (ended) {
+                throw error("Unexpected end of input");
+            }
+            return null;
+        }
+        token = NONE;
+        afterValue();
+        return literalEvent;
+    }
+
+    // ---------- вложенность ----------
+
+    private void push(boolean object) {
+        if (depth == objectStack.length) {
+            objectStack = Arrays.copyOf(objectStack, depth * 2);
+        }
+        objectStack[depth++] = object;
+    }
+
+    private Event close(boolean object) {
+        depth--;
+        afterValue();
+        return object ? Event.END_OBJECT : Event.END_ARRAY;
+    }
+
+    // после значения верхнего уровня может начаться следующее
+    private void afterValue() {
+        state = depth == 0 ? VALUE : AFTER_VALUE;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at offset " + (chunkBase + position - chunkStart));
+    }
+
+    // UTF-8 с escape-последовательностями; многобайтовые символы не пересекают '\', поэтому
+    // куски между escape-последовательностями декодируются целиком
+    private String decode(byte[] bytes, int start, int end, boolean escapes) {
+        if (!escapes) {
+            return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+        }
+        StringBuilder sb = new StringBuilder(end - start);
+        int run = start;
+        int i = start;
+        while (i < end) {
+            if (bytes[i] != '\\') {
+                i++;
+                continue;
+            }
+            sb.append(new String(bytes, run, i - run, StandardCharsets.UTF_8));
+            char c = (char) bytes[i + 1];
+            switch (c) {
+                case '"': case '\\': case '/': sb.append(c); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 't': sb.append('\t'); break;
+                case 'u': {
+                    if (i + 6 > end) {
+                        throw new IllegalArgumentException("Invalid unicode escape");
+                    }
+                    int code = 0;
+                    for (int k = i + 2; k < i + 6; k++) {
+                        int digit = Character.digit(bytes[k], 16);
+                        if (digit < 0) {
+                            throw new IllegalArgumentException("Invalid unicode escape");
+                        }
+                        code = (code << 4) | digit;
+                    }
+                    sb.append((char) code);
+                    i += 4;
+                    break;
+                }
+                default:
+                    throw new IllegalArgumentException("Invalid escape sequence: \\" + c);
+            }
+            i += 2;
+            run = i;
+        }
+        return sb.append(new String(bytes, run, end - run, StandardCharsets.UTF_8)).toString();
+    }
+
+    private static final class Marker {
+        private final String name;
+
+        Marker(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.Nezdanchik.spbpu;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// префиксное дерево заранее известных имён полей по байтам UTF-8: источник токенов сопоставляет ключ
+// прямо с байтами (или ASCII-символами) ввода, не создавая строку, и сразу узнаёт, что ключ не нужен.
+// Строится один раз (план класса, JsonProjection) и дальше только читается, поэтому потокобезопасно
+public final class JsonKeyTrie {
+    static final int ROOT = 0;
+
+    private final String[] keys;
+    private final Map<String, Integer> indexes = new HashMap<>();
+    // узел: байты переходов, номера дочерних узлов и номер ключа, который в нём заканчивается (-1 — нет)
+    private final byte[][] labels;
+    private final int[][] children;
+    private final int[] values;
+
+    private JsonKeyTrie(String[] keys) {
+        this.keys = keys;
+        List<byte[]> nodeLabels = new ArrayList<>();
+        List<int[]> nodeChildren = new ArrayList<>();
+        List<Integer> nodeValues = new ArrayList<>();
+        nodeLabels.add(new byte[0]);
+        nodeChildren.add(new int[0]);
+        nodeValues.add(-1);
+        for (int k = 0; k < keys.length; k++) {
+            if (indexes.putIfAbsent(keys[k], k) != null) {
+                continue;  // повтор имени: остаётся первое
+            }
+            int node = ROOT;
+            for (byte b : keys[k].getBytes(StandardCharsets.UTF_8)) {
+                byte[] edges = nodeLabels.get(node);
+                int edge = indexOf(edges, b);
+                if (edge < 0) {
+                    nodeLabels.set(node, append(edges, b));
+                    int[] next = nodeChildren.get(node);
+                    next = Arrays.copyOf(next, next.length + 1);
+                    next[next.length - 1] = nodeLabels.size();
+                    nodeChildren.set(node, next);
+                    nodeLabels.add(new byte[0]);
+                    nodeChildren.add(new int[0]);
+                    nodeValues.add(-1);
+                    node = next[next.length - 1];
+                } else {
+                    node = nodeChildren.get(node)[edge];
+                }
+            }
+            nodeValues.set(node, k);
+        }
+        labels = nodeLabels.toArray(new byte[0][]);
+        children = nodeChildren.toArray(new int[0][]);
+        values = nodeValues.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public static JsonKeyTrie of(String... keys) {
+        return new JsonKeyTrie(keys.clone());
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public String key(int index) {
+        return keys[index];
+    }
+
+    // номер ключа или -1; для уже декодированных имён (экранирование, источники без доступа к байтам)
+    public int find(String key) {
+        Integer index = indexes.get(key);
+        return index == null ? -1 : index;
+    }
+
+    // переход по очередному байту ключа; -1 — такого префикса нет ни у одного ключа
+    int step(int node, int b) {
+        byte[] edges = labels[node];
+        for (int i = 0; i < edges.length; i++) {
+            if (edges[i] == (byte) b) {
+                return children[node][i];
+            }
+        }
+        return -1;
+    }
+
+    // номер ключа, который заканчивается в узле, или -1
+    int value(int node) {
+        return values[node];
+    }
+
+    int find(byte[] bytes, int start, int end) {
+        int node = ROOT;
+        for (int i = start; i < end && node >= 0; i++) {
+            node = step(node, bytes[i]);
+        }
+        return node < 0 ? -1 : values[node];
+    }
+
+    private static int indexOf(byte[] bytes, byte b) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static byte[] append(byte[] bytes, byte b) {
+        byte[] result = Arrays.copyOf(bytes, bytes.length + 1);
+        result[bytes.length] = b;
+        return result;
+    }
+}
@@ -0,0 +1,63 @@
+package com.Nezdanchik.spbpu;
+
+import java.math.BigDecimal;
+
+// число, которое хранится текстом из документа и разбирается только при первом чтении значения
+public final class JsonLazyNumber extends Number {
+    private static final long serialVersionUID = 1L;
+
+    private final String text;
+    private Number value;
+
+    public JsonLazyNumber(String text) {
+        this.text = text;
+    }
+
+    // разобранное значение: Integer, Long, BigInteger, Double или BigDecimal
+    public Number value() {
+        if (value == null) {
+            value = JsonNumbers.parse(text);
+        }
+        return value;
+    }
+
+    public BigDecimal bigDecimalValue() {
+        return new BigDecimal(text);
+    }
+
+    @Override
+    public int intValue() {
+        return value().intValue();
+    }
+
+    @Override
+    public long longValue() {
+        return value().longValue();
+    }
+
+    @Override
+    public float floatValue() {
+        return value().floatValue();
+    }
+
+    @Override
+    public double doubleValue() {
+        return value().doubleValue();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof JsonLazyNumber number && value().equals(number.value());
+    }
+
+    @Override
+    public int hashCode() {
+        return value().hashCode();
+    }
+
+    // исходный текст числа, поэтому сериализатор пишет его без потери точности
+    @Override
+    public String toString() {
+        return text;
+    }
+}
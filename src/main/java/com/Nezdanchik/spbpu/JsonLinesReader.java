@@ -0,0 +1,249 @@
+package com.Nezdanchik.spbpu;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// параллельный разбор NDJSON / JSON Lines: одна запись — одна строка.
+// Ввод делится на куски около chunkSize байт по границам строк, куски разбираются параллельно
+// через JsonParserFactory, а записи выдаются как Stream в исходном порядке или по мере готовности.
+// Вперёд разбирается не больше parallelism * 2 кусков: пока поток не читают, работа стоит
+public final class JsonLinesReader {
+    static final int DEFAULT_CHUNK_SIZE = 8 << 20;
+
+    private final Path file;
+    private final ByteBuffer buffer;
+    private final JsonParserFactory factory;
+    private final Executor executor;
+    private final int chunkSize;
+    private final int parallelism;
+    private final boolean ordered;
+
+    private JsonLinesReader(Path file, ByteBuffer buffer, JsonParserFactory factory, Executor executor,
+                            int chunkSize, int parallelism, boolean ordered) {
+        this.file = file;
+        this.buffer = buffer;
+        this.factory = factory;
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.ordered = ordered;
+    }
+
+    private JsonLinesReader(Path file, ByteBuffer buffer) {
+        this(file, buffer, new JsonParserFactory(), ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE,
+                Runtime.getRuntime().availableProcessors(), true);
+    }
+
+    // файл отображается в память по кускам; каждый поток открывает свой канал и закрывает его в close()
+    public static JsonLinesReader of(Path file) {
+        return new JsonLinesReader(file, null);
+    }
+
+    // UTF-8 от position до limit; буфер может быть direct или отображённым в память
+    public static JsonLinesReader of(ByteBuffer json) {
+        return new JsonLinesReader(null, json.slice());
+    }
+
+    public static JsonLinesReader of(byte[] json) {
+        return of(ByteBuffer.wrap(json));
+    }
+
+    // настройки разбора записей: withCompactTree, withLazyNumbers и т. д.
+    public JsonLinesReader withFactory(JsonParserFactory factory) {
+        return new JsonLinesReader(file, buffer, factory, executor, chunkSize, parallelism, ordered);
+    }
+
+    // где разбираются куски; например Executors.newVirtualThreadPerTaskExecutor()
+    public JsonLinesReader withExecutor(Executor executor) {
+        return new JsonLinesReader(file, buffer, factory, executor, chunkSize, parallelism, ordered);
+    }
+
+    public JsonLinesReader withChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        return new JsonLinesReader(file, buffer, factory, executor, chunkSize, parallelism, ordered);
+    }
+
+    // сколько кусков разбирается одновременно
+    public JsonLinesReader withParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        return new JsonLinesReader(file, buffer, factory, executor, chunkSize, parallelism, ordered);
+    }
+
+    // false — записи кусков выдаются по мере готовности, без ожидания более ранних
+    public JsonLinesReader withOrdered(boolean ordered) {
+        return new JsonLinesReader(file, buffer, factory, executor, chunkSize, parallelism, ordered);
+    }
+
+    public Stream<Object> stream() {
+        return stream(Object.class);
+    }
+
+    // поток нужно закрыть (try-with-resources), если он не дочитан до конца
+    public <T> Stream<T> stream(Class<T> clazz) {
+        ByteInput input;
+        try {
+            input = file != null ? ByteInput.of(file) : ByteInput.of(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Records<T> records = new Records<>(input, clazz);
+        int characteristics = ordered ? Spliterator.ORDERED : 0;
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(records, characteristics), false)
+                .onClose(records::close);
+    }
+
+    // записи одного куска; пустые строки пропускаются, '\r' перед '\n' допустим.
+    // Строка — ровно одно значение: данные после него считаются ошибкой, а не отбрасываются
+    private <T> List<T> parseChunk(ByteBuffer chunk, long base, Class<T> clazz) {
+        List<T> records = new ArrayList<>();
+        ByteBuffer line = chunk.duplicate();
+        int end = chunk.limit();
+        int start = chunk.position();
+        while (start < end) {
+            int newline = start;
+            while (newline < end && chunk.get(newline) != '\n') {
+                newline++;
+            }
+            int first = start;
+            while (first < newline && isBlank(chunk.get(first))) {
+                first++;
+            }
+            if (first < newline) {
+                line.limit(newline).position(first);
+                try {
+                    records.add(clazz.cast(factory.parseWhole(line, clazz)));
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException("Invalid record at offset " + (base + first) + ": " + e.getMessage(), e);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            start = newline + 1;
+        }
+        return records;
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    // выдаёт записи, держа в работе не больше parallelism * 2 кусков
+    private final class Records<T> implements Iterator<T> {
+        private final ByteInput input;
+        private final Class<T> clazz;
+        private final ArrayDeque<CompletableFuture<List<T>>> pending = new ArrayDeque<>();
+        private final BlockingQueue<CompletableFuture<List<T>>> done = new LinkedBlockingQueue<>();
+        private long nextChunk = 0;
+        private int running = 0;
+        private List<T> current = Collections.emptyList();
+        private int index = 0;
+        private boolean closed = false;
+
+        Records(ByteInput input, Class<T> clazz) {
+            this.input = input;
+            this.clazz = clazz;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (index == current.size()) {
+                fill();
+                if (running == 0) {
+                    close();  // ввод дочитан: канал файла закрывается, даже если поток не закрыли
+                    return false;
+                }
+                current = take();
+                index = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.get(index++);
+        }
+
+        private void fill() {
+            try {
+                long size = input.size();
+                while (!closed && running < parallelism * 2 && nextChunk < size) {
+                    long start = nextChunk;
+                    long end = start + chunkSize >= size ? size : input.lineEnd(start + chunkSize);
+                    nextChunk = end;
+                    CompletableFuture<List<T>> future = CompletableFuture.supplyAsync(() -> {
+                        try {
+                            return parseChunk(input.region(start, end), start, clazz);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }, executor);
+                    if (ordered) {
+                        pending.add(future);
+                    } else {
+                        future.whenComplete((records, error) -> done.add(future));
+                    }
+                    running++;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private List<T> take() {
+            try {
+                CompletableFuture<List<T>> future = ordered ? pending.poll() : done.take();
+                running--;
+                return future.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for records", e);
+            } catch (CompletionException e) {
+                close();
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (CompletableFuture<List<T>> future : pending) {
+                future.cancel(false);
+            }
+            try {
+                input.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
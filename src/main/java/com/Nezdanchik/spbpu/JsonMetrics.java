@@ -0,0 +1,161 @@
+package com.Nezdanchik.spbpu;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// накопительные счётчики для JsonParser, JsonParserFactory, ObjectMapper и JsonSerializer.
+// Один экземпляр можно разделять между потоками и компонентами; register() публикует его как MXBean
+public final class JsonMetrics implements JsonMetricsListener, JsonMetricsMXBean {
+    private final LongAdder documents = new LongAdder();
+    private final LongAdder bytesParsed = new LongAdder();
+    private final LongAdder tokens = new LongAdder();
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    private final LongAdder parseNanos = new LongAdder();
+    private final LongAdder binds = new LongAdder();
+    private final LongAdder bindNanos = new LongAdder();
+    private final Map<Class<?>, LongAdder> bindsByClass = new ConcurrentHashMap<>();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+    private final Map<Class<?>, LongAdder> writesByClass = new ConcurrentHashMap<>();
+
+    @Override
+    public void documentParsed(long inputLength, long tokens, int maxDepth, long nanos) {
+        documents.increment();
+        if (inputLength > 0) {
+            bytesParsed.add(inputLength);
+        }
+        this.tokens.add(tokens);
+        this.maxDepth.accumulate(maxDepth);
+        parseNanos.add(nanos);
+    }
+
+    @Override
+    public void valueBound(Class<?> type, long nanos) {
+        binds.increment();
+        bindNanos.add(nanos);
+        bindsByClass.computeIfAbsent(type, t -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void valueWritten(Class<?> type, long outputLength, long nanos) {
+        writes.increment();
+        if (outputLength > 0) {
+            bytesWritten.add(outputLength);
+        }
+        writeNanos.add(nanos);
+        writesByClass.computeIfAbsent(type, t -> new LongAdder()).increment();
+    }
+
+    // регистрация в платформенном MBeanServer как com.Nezdanchik.spbpu:type=JsonMetrics,name=<name>
+    public ObjectName register(String name) {
+        try {
+            ObjectName objectName = objectName(name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register JsonMetrics '" + name + "'", e);
+        }
+    }
+
+    public void unregister(String name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName(name));
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot unregister JsonMetrics '" + name + "'", e);
+        }
+    }
+
+    private static ObjectName objectName(String name) throws JMException {
+        return new ObjectName("com.Nezdanchik.spbpu:type=JsonMetrics,name=" + ObjectName.quote(name));
+    }
+
+    @Override
+    public long getDocumentsParsed() {
+        return documents.sum();
+    }
+
+    // размер ввода в байтах или символах (для строк), только для документов с известным размером
+    @Override
+    public long getBytesParsed() {
+        return bytesParsed.sum();
+    }
+
+    @Override
+    public long getTokensParsed() {
+        return tokens.sum();
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return (int) maxDepth.get();
+    }
+
+    @Override
+    public long getParseTimeNanos() {
+        return parseNanos.sum();
+    }
+
+    @Override
+    public long getValuesBound() {
+        return binds.sum();
+    }
+
+    @Override
+    public long getBindTimeNanos() {
+        return bindNanos.sum();
+    }
+
+    @Override
+    public Map<String, Long> getBindCountsByClass() {
+        return counts(bindsByClass);
+    }
+
+    @Override
+    public long getValuesWritten() {
+        return writes.sum();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public long getWriteTimeNanos() {
+        return writeNanos.sum();
+    }
+
+    @Override
+    public Map<String, Long> getWriteCountsByClass() {
+        return counts(writesByClass);
+    }
+
+    @Override
+    public void reset() {
+        documents.reset();
+        bytesParsed.reset();
+        tokens.reset();
+        maxDepth.reset();
+        parseNanos.reset();
+        binds.reset();
+        bindNanos.reset();
+        bindsByClass.clear();
+        writes.reset();
+        bytesWritten.reset();
+        writeNanos.reset();
+        writesByClass.clear();
+    }
+
+    private static Map<String, Long> counts(Map<Class<?>, LongAdder> byClass) {
+        Map<String, Long> counts = new TreeMap<>();
+        byClass.forEach((type, count) -> counts.merge(type.getName(), count.sum(), Long::sum));
+        return counts;
+    }
+}
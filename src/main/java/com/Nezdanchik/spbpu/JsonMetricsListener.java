@@ -0,0 +1,20 @@
+package com.Nezdanchik.spbpu;
+
+// получатель метрик разбора, привязки и записи; подключается через setMetrics / withMetrics.
+// Вызывается из потока, выполнившего операцию, поэтому реализация должна быть потокобезопасной.
+// Готовая реализация со счётчиками и JMX — JsonMetrics
+public interface JsonMetricsListener {
+
+    // документ разобран в дерево: размер ввода (-1, если неизвестен, например для Reader), число токенов,
+    // наибольшая вложенность и время разбора вместе с токенизацией — они идут одним проходом
+    default void documentParsed(long inputLength, long tokens, int maxDepth, long nanos) {
+    }
+
+    // значение верхнего уровня привязано к классу type (из дерева или прямо из потока токенов)
+    default void valueBound(Class<?> type, long nanos) {
+    }
+
+    // значение записано сериализатором; размер вывода в символах или байтах, -1 если неизвестен
+    default void valueWritten(Class<?> type, long outputLength, long nanos) {
+    }
+}
@@ -0,0 +1,32 @@
+package com.Nezdanchik.spbpu;
+
+import java.util.Map;
+
+// атрибуты JsonMetrics, видимые через JMX (jconsole, VisualVM, экспортёры метрик)
+public interface JsonMetricsMXBean {
+    long getDocumentsParsed();
+
+    long getBytesParsed();
+
+    long getTokensParsed();
+
+    int getMaxDepth();
+
+    long getParseTimeNanos();
+
+    long getValuesBound();
+
+    long getBindTimeNanos();
+
+    Map<String, Long> getBindCountsByClass();
+
+    long getValuesWritten();
+
+    long getBytesWritten();
+
+    long getWriteTimeNanos();
+
+    Map<String, Long> getWriteCountsByClass();
+
+    void reset();
+}
@@ -0,0 +1,189 @@
+package com.Nezdanchik.spbpu;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+// разбор чисел JSON прямо из буфера символов, без промежуточных строк.
+// Целые дают Integer/Long и BigInteger только при переполнении, дробные — Double
+// (BigDecimal, если число не помещается в double)
+final class JsonNumbers {
+    // степени десяти, точно представимые в double (быстрый путь Клингера)
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private JsonNumbers() {
+    }
+
+    static Number parse(String text) {
+        return parse(text.toCharArray(), 0, text.length());
+    }
+
+    static Number parse(char[] chars, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && chars[i] == '-') {
+            negative = true;
+            i++;
+        }
+        if (i >= end || !isDigit(chars[i])) {
+            throw invalid(chars, start, end);
+        }
+        if (chars[i] == '0' && i + 1 < end && isDigit(chars[i + 1])) {
+            throw invalid(chars, start, end);  // ведущие нули запрещены
+        }
+
+        long mantissa = 0;
+        int digits = 0;        // значащие цифры, уже вошедшие в mantissa
+        boolean exact = true;  // все цифры поместились в mantissa
+        int exponent = 0;
+        for (; i < end && isDigit(chars[i]); i++) {
+            if (digits < 18) {
+                mantissa = mantissa * 10 + (chars[i] - '0');
+                if (mantissa != 0) {
+                    digits++;
+                }
+            } else {
+                exact = false;
+                exponent++;
+            }
+        }
+
+        boolean decimal = false;
+        if (i < end && chars[i] == '.') {
+            decimal = true;
+            i++;
+            if (i >= end || !isDigit(chars[i])) {
+                throw invalid(chars, start, end);
+            }
+            for (; i < end && isDigit(chars[i]); i++) {
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (chars[i] - '0');
+                    exponent--;
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                } else if (chars[i] != '0') {
+                    exact = false;
+                }
+            }
+        }
+
+        if (i < end && (chars[i] == 'e' || chars[i] == 'E')) {
+            decimal = true;
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (chars[i] == '+' || chars[i] == '-')) {
+                negativeExponent = chars[i] == '-';
+                i++;
+            }
+            if (i >= end || !isDigit(chars[i])) {
+                throw invalid(chars, start, end);
+            }
+            int value = 0;
+            for (; i < end && isDigit(chars[i]); i++) {
+                if (value < 100_000) {
+                    value = value * 10 + (chars[i] - '0');
+                }
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        if (i != end) {
+            throw invalid(chars, start, end);
+        }
+
+        if (!decimal) {
+            if (exact) {
+                long value = negative ? -mantissa : mantissa;
+                if (value == (int) value) {
+                    return (int) value;
+                }
+                return value;
+            }
+            BigInteger big = new BigInteger(new String(chars, start, end - start));
+            return big.bitLength() < 64 ? (Number) big.longValue() : big;
+        }
+        if (exact && mantissa < MAX_EXACT_MANTISSA && exponent >= -22 && exponent <= 22) {
+            double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+            return negative ? -value : value;
+        }
+        String text = new String(chars, start, end - start);
+        double value = Double.parseDouble(text);
+        if (!Double.isInfinite(value)) {
+            return value;
+        }
+        try {
+            return new BigDecimal(text);
+        } catch (NumberFormatException e) {
+            return value;  // порядок не помещается и в BigDecimal (int scale): остаётся ±Infinity
+        }
+    }
+
+    // значение как long без упаковки: целые до 18 цифр разбираются сразу, остальное — через parse()
+    // (дробная часть отбрасывается, как у Number.longValue())
+    static long parseLong(char[] chars, int start, int end) {
+        int i = start;
+        boolean negative = i < end && chars[i] == '-';
+        if (negative) {
+            i++;
+        }
+        int length = end - i;
+        if (length == 0 || length > 18 || (chars[i] == '0' && length > 1)) {
+            return parse(chars, start, end).longValue();
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            if (!isDigit(chars[i])) {
+                return parse(chars, start, end).longValue();
+            }
+            value = value * 10 + (chars[i] - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    // значение как double без упаковки: числа вида -?\d+(\.\d+)? до 18 цифр считаются по быстрому
+    // пути Клингера, остальные — через parse()
+    static double parseDouble(char[] chars, int start, int end) {
+        int i = start;
+        boolean negative = i < end && chars[i] == '-';
+        if (negative) {
+            i++;
+        }
+        if (i >= end || (chars[i] == '0' && i + 1 < end && chars[i + 1] != '.')) {
+            return parse(chars, start, end).doubleValue();
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean dot = false;
+        for (; i < end; i++) {
+            char c = chars[i];
+            if (isDigit(c) && digits < 18) {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (dot) {
+                    exponent--;
+                }
+            } else if (c == '.' && !dot && digits > 0 && i + 1 < end) {
+                dot = true;
+            } else {
+                return parse(chars, start, end).doubleValue();
+            }
+        }
+        if (mantissa >= MAX_EXACT_MANTISSA || exponent < -22) {
+            return parse(chars, start, end).doubleValue();
+        }
+        double value = exponent == 0 ? mantissa : mantissa / POWERS_OF_TEN[-exponent];
+        return negative ? -value : value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static IllegalArgumentException invalid(char[] chars, int start, int end) {
+        return new IllegalArgumentException("Invalid number: " + new String(chars, start, end - start));
+    }
+}
@@ -0,0 +1,145 @@
+package com.Nezdanchik.spbpu;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+// компактный неизменяемый JSON-объект: ключи и значения лежат в двух массивах точного размера.
+// Маленькие объекты просматриваются линейно, для больших строится индекс с линейным пробированием
+public final class JsonObject extends AbstractMap<String, Object> {
+    private static final int LINEAR_SCAN_LIMIT = 8;
+
+    private final String[] keys;
+    private final Object[] values;
+    private final int[] index;   // номера полей + 1 по слотам хеш-таблицы, null для маленьких объектов
+
+    // массивы передаются во владение объекту; при повторе ключа остаётся последнее значение, как в HashMap
+    JsonObject(String[] keys, Object[] values) {
+        int size = keys.length;
+        if (size > LINEAR_SCAN_LIMIT) {
+            int[] table = new int[Integer.highestOneBit(size * 2 - 1) << 1];
+            int mask = table.length - 1;
+            int unique = 0;
+            for (int i = 0; i < size; i++) {
+                int slot = keys[i].hashCode() & mask;
+                while (table[slot] != 0 && !keys[table[slot] - 1].equals(keys[i])) {
+                    slot = (slot + 1) & mask;
+                }
+                if (table[slot] != 0) {
+                    values[table[slot] - 1] = values[i];
+                } else {
+                    keys[unique] = keys[i];
+                    values[unique] = values[i];
+                    table[slot] = ++unique;
+                }
+            }
+            this.index = table;
+            if (unique < size) {
+                keys = Arrays.copyOf(keys, unique);
+                values = Arrays.copyOf(values, unique);
+            }
+        } else {
+            this.index = null;
+            int unique = 0;
+            for (int i = 0; i < size; i++) {
+                int existing = find(keys, unique, keys[i]);
+                if (existing >= 0) {
+                    values[existing] = values[i];
+                } else {
+                    keys[unique] = keys[i];
+                    values[unique++] = values[i];
+                }
+            }
+            if (unique < size) {
+                keys = Arrays.copyOf(keys, unique);
+                values = Arrays.copyOf(values, unique);
+            }
+        }
+        this.keys = keys;
+        this.values = values;
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int i = indexOf(key);
+        return i >= 0 ? values[i] : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    // имя и значение поля по номеру в порядке документа
+    public String keyAt(int i) {
+        return keys[i];
+    }
+
+    public Object valueAt(int i) {
+        return values[i];
+    }
+
+    private int indexOf(Object key) {
+        if (!(key instanceof String name)) {
+            return -1;
+        }
+        if (index == null) {
+            return find(keys, keys.length, name);
+        }
+        int mask = index.length - 1;
+        for (int slot = name.hashCode() & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[index[slot] - 1].equals(name)) {
+                return index[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private static int find(String[] keys, int size, String key) {
+        for (int i = 0; i < size; i++) {
+            if (keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<>() {
+                    private int next = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < keys.length;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (next >= keys.length) {
+                            throw new NoSuchElementException();
+                        }
+                        int i = next++;
+                        return new SimpleImmutableEntry<>(keys[i], values[i]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return keys.length;
+            }
+        };
+    }
+}
@@ -0,0 +1,246 @@
+package com.Nezdanchik.spbpu;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+// приёмник для JsonSerializer: один на весь документ, передаётся вниз по рекурсии
+abstract class JsonOutput {
+    private static final char[] SPACES = "                                ".toCharArray();
+
+    abstract void write(char c) throws IOException;
+
+    abstract void write(String s, int start, int end) throws IOException;
+
+    final void write(String s) throws IOException {
+        write(s, 0, s.length());
+    }
+
+    abstract void write(char[] chars, int offset, int length) throws IOException;
+
+    // префикс "name": поля класса, заранее закодированный в плане класса
+    void writeFieldPrefix(ClassWriter.FieldWriter field) throws IOException {
+        write(field.prefix, 0, field.prefix.length);
+    }
+
+    // строка в кавычках с экранированием по RFC 8259
+    void writeQuoted(String value) throws IOException {
+        write('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            write(value, start, i);
+            writeEscape(c);
+            start = i + 1;
+        }
+        write(value, start, value.length());
+        write('"');
+    }
+
+    final void writeEscape(char c) throws IOException {
+        switch (c) {
+            case '"': write("\\\""); break;
+            case '\\': write("\\\\"); break;
+            case '\n': write("\\n"); break;
+            case '\r': write("\\r"); break;
+            case '\t': write("\\t"); break;
+            case '\b': write("\\b"); break;
+            case '\f': write("\\f"); break;
+            default:
+                write("\\u00");
+                write(Character.forDigit(c >> 4, 16));
+                write(Character.forDigit(c & 0xF, 16));
+        }
+    }
+
+    // отступ из пробелов без создания строк
+    void writeSpaces(int count) throws IOException {
+        while (count > 0) {
+            int chunk = Math.min(count, SPACES.length);
+            write(SPACES, 0, chunk);
+            count -= chunk;
+        }
+    }
+
+    void flush() throws IOException {
+    }
+
+    // вывод в Appendable: StringBuilder, Writer и т. п.
+    static final class AppendableOutput extends JsonOutput {
+        private final Appendable out;
+
+        AppendableOutput(Appendable out) {
+            this.out = out;
+        }
+
+        @Override
+        void write(char c) throws IOException {
+            out.append(c);
+        }
+
+        @Override
+        void write(String s, int start, int end) throws IOException {
+            out.append(s, start, end);
+        }
+
+        @Override
+        void write(char[] chars, int offset, int length) throws IOException {
+            if (out instanceof StringBuilder sb) {
+                sb.append(chars, offset, length);
+            } else {
+                out.append(CharBuffer.wrap(chars, offset, length));
+            }
+        }
+    }
+
+    // вывод в UTF-8: символы кодируются в собственный буфер, который целиком сбрасывается в приёмник
+    abstract static class Utf8Output extends JsonOutput {
+        byte[] buffer = new byte[8192];
+        int count = 0;
+        long drained = 0;  // байт уже отдано приёмнику
+
+        abstract void drain(byte[] bytes, int length) throws IOException;
+
+        @Override
+        void flush() throws IOException {
+            if (count > 0) {
+                drain(buffer, count);
+                drained += count;
+                count = 0;
+            }
+        }
+
+        // освобождает место под space байт; CborSerializer пишет прямо в buffer после вызова
+        void ensure(int space) throws IOException {
+            if (count + space > buffer.length) {
+                flush();
+                if (space > buffer.length) {
+                    buffer = new byte[space];
+                }
+            }
+        }
+
+        void writeByte(int b) throws IOException {
+            ensure(1);
+            buffer[count++] = (byte) b;
+        }
+
+        // большие массивы пишутся кусками размером с буфер
+        void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                ensure(Math.min(length, buffer.length));
+                int chunk = Math.min(length, buffer.length - count);
+                System.arraycopy(bytes, offset, buffer, count, chunk);
+                count += chunk;
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+
+        @Override
+        void write(char c) throws IOException {
+            if (c < 0x80) {
+                ensure(1);
+                buffer[count++] = (byte) c;
+            } else {
+                write(String.valueOf(c));
+            }
+        }
+
+        @Override
+        void write(String s, int start, int end) throws IOException {
+            for (int i = start; i < end; ) {
+                int chunk = Math.min(end - i, 2048);
+                ensure(chunk * 3 + 1);
+                i = encode(s, i, i + chunk, end);
+            }
+        }
+
+        @Override
+        void write(char[] chars, int offset, int length) throws IOException {
+            write(new String(chars, offset, length));
+        }
+
+        @Override
+        void writeFieldPrefix(ClassWriter.FieldWriter field) throws IOException {
+            byte[] prefix = field.prefixUtf8;
+            ensure(prefix.length);
+            System.arraycopy(prefix, 0, buffer, count, prefix.length);
+            count += prefix.length;
+        }
+
+        @Override
+        void writeSpaces(int spaces) throws IOException {
+            ensure(spaces);
+            Arrays.fill(buffer, count, count + spaces, (byte) ' ');
+            count += spaces;
+        }
+
+        // кодирует s[from, to) в буфер; суррогатная пара на границе куска не разрывается
+        private int encode(String s, int from, int to, int end) {
+            int i = from;
+            while (i < to) {
+                char c = s.charAt(i++);
+                if (c < 0x80) {
+                    buffer[count++] = (byte) c;
+                } else if (c < 0x800) {
+                    buffer[count++] = (byte) (0xC0 | (c >> 6));
+                    buffer[count++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i < end && Character.isLowSurrogate(s.charAt(i))) {
+                    int codePoint = Character.toCodePoint(c, s.charAt(i++));
+                    buffer[count++] = (byte) (0xF0 | (codePoint >> 18));
+                    buffer[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    buffer[count++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    buffer[count++] = '?';  // одиночный суррогат в UTF-8 не представим
+                } else {
+                    buffer[count++] = (byte) (0xE0 | (c >> 12));
+                    buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buffer[count++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            return i;
+        }
+    }
+
+    static final class StreamOutput extends Utf8Output {
+        private final OutputStream out;
+
+        StreamOutput(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        void drain(byte[] bytes, int length) throws IOException {
+            out.write(bytes, 0, length);
+        }
+    }
+
+    // вывод в ByteBuffer; при нехватке места буфер заменяется вдвое большим того же вида (heap или direct)
+    static final class ByteBufferOutput extends Utf8Output {
+        ByteBuffer target;
+
+        ByteBufferOutput(ByteBuffer target) {
+            this.target = target;
+        }
+
+        @Override
+        void drain(byte[] bytes, int length) {
+            if (target.remaining() < length) {
+                int capacity = Math.max(target.capacity() * 2, target.position() + length);
+                ByteBuffer grown = target.isDirect() ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+                grown.order(target.order());
+                target.flip();
+                grown.put(target);
+                target = grown;
+            }
+            target.put(bytes, 0, length);
+        }
+    }
+}
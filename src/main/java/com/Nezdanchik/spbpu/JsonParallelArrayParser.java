@@ -0,0 +1,255 @@
+package com.Nezdanchik.spbpu;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// параллельный разбор документа, который целиком является одним большим массивом [ {...}, {...}, ... ].
+// Сначала один быстрый проход находит запятые верхнего уровня (учитывая строки и вложенность),
+// затем элементы разбираются задачами fork-join: каждая берёт подряд идущие элементы объёмом около
+// chunkSize байт, а результаты раскладываются по своим местам, так что порядок сохраняется
+public final class JsonParallelArrayParser {
+    static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+    private static final int SCAN_WINDOW = 16 << 20;
+
+    private final Path file;
+    private final ByteBuffer buffer;
+    private final JsonParserFactory factory;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    private JsonParallelArrayParser(Path file, ByteBuffer buffer, JsonParserFactory factory,
+                                    ForkJoinPool pool, int chunkSize) {
+        this.file = file;
+        this.buffer = buffer;
+        this.factory = factory;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    private JsonParallelArrayParser(Path file, ByteBuffer buffer) {
+        this(file, buffer, new JsonParserFactory(), ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    // файл больше 2 ГБ тоже допустим: в память отображаются только проходимые куски
+    public static JsonParallelArrayParser of(Path file) {
+        return new JsonParallelArrayParser(file, null);
+    }
+
+    public static JsonParallelArrayParser of(ByteBuffer json) {
+        return new JsonParallelArrayParser(null, json.slice());
+    }
+
+    public static JsonParallelArrayParser of(byte[] json) {
+        return of(ByteBuffer.wrap(json));
+    }
+
+    public JsonParallelArrayParser withFactory(JsonParserFactory factory) {
+        return new JsonParallelArrayParser(file, buffer, factory, pool, chunkSize);
+    }
+
+    public JsonParallelArrayParser withPool(ForkJoinPool pool) {
+        return new JsonParallelArrayParser(file, buffer, factory, pool, chunkSize);
+    }
+
+    // сколько байт элементов разбирает одна задача
+    public JsonParallelArrayParser withChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        return new JsonParallelArrayParser(file, buffer, factory, pool, chunkSize);
+    }
+
+    // элементы как обычные значения парсера (или JsonObject/JsonArray при withCompactTree фабрики)
+    public List<Object> parse() throws IOException {
+        Object[] values = parseElements(Object.class);
+        return factory.isCompactTree() ? JsonArray.copyOf(values, 0, values.length) : new ArrayList<>(Arrays.asList(values));
+    }
+
+    // каждый элемент привязывается к классу, как в JsonParser.parse(Class<T>)
+    @SuppressWarnings("unchecked")
+    public <T> List<T> parse(Class<T> elementType) throws IOException {
+        return (List<T>) new ArrayList<>(Arrays.asList(parseElements(elementType)));
+    }
+
+    private Object[] parseElements(Class<?> elementType) throws IOException {
+        try (ByteInput input = file != null ? ByteInput.of(file) : ByteInput.of(buffer)) {
+            long[] separators = scan(input);
+            int count = separators.length - 1;
+            if (count == 1 && isBlank(input, separators[0] + 1, separators[1])) {
+                return new Object[0];  // []
+            }
+            Object[] values = new Object[count];
+            try {
+                pool.invoke(new ParseTask(input, separators, elementType, values, 0, count));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return values;
+        }
+    }
+
+    // позиции '[', запятых верхнего уровня и ']': элемент i лежит между separators[i] и separators[i + 1]
+    static long[] scan(ByteInput input) throws IOException {
+        long size = input.size();
+        long[] separators = new long[1024];
+        int count = 0;
+        int depth = 0;
+        boolean inString = false;
+        boolean escaped = false;
+        boolean finished = false;
+        for (long base = 0; base < size; base += SCAN_WINDOW) {
+            ByteBuffer window = input.region(base, Math.min(size, base + SCAN_WINDOW));
+            int n = window.limit();
+            for (int i = 0; i < n; i++) {
+                byte b = window.get(i);
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (b == '\\') {
+                        escaped = true;
+                    } else if (b == '"') {
+                        inString = false;
+                    }
+                    continue;
+                }
+                if (finished || depth == 0) {
+                    if (isWhitespace(b)) {
+                        continue;
+                    }
+                    if (finished) {
+                        throw new IllegalArgumentException("Unexpected data after JSON value at offset " + (base + i));
+                    }
+                    if (b != '[') {
+                        throw new IllegalArgumentException("Expected top-level array at offset " + (base + i));
+                    }
+                }
+                switch (b) {
+                    case '"':
+                        inString = true;
+                        break;
+                    case '[':
+                    case '{':
+                        if (depth++ == 0) {
+                            separators[count++] = base + i;
+                        }
+                        break;
+                    case ']':
+                    case '}':
+                        if (--depth > 0) {
+                            break;
+                        }
+                        if (b != ']') {
+                            throw new IllegalArgumentException("Unexpected '}' at offset " + (base + i));
+                        }
+                        finished = true;
+                        // закрывающая скобка массива — последний разделитель
+                        if (count == separators.length) {
+                            separators = Arrays.copyOf(separators, count * 2);
+                        }
+                        separators[count++] = base + i;
+                        break;
+                    case ',':
+                        if (depth <= 1) {
+                            if (count == separators.length) {
+                                separators = Arrays.copyOf(separators, count * 2);
+                            }
+                            separators[count++] = base + i;
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        if (count == 0) {
+            throw new IllegalStateException("No tokens available for parsing.");
+        }
+        if (!finished) {
+            throw new IllegalArgumentException("Unexpected end of input");
+        }
+        return Arrays.copyOf(separators, count);
+    }
+
+    private static boolean isBlank(ByteInput input, long start, long end) throws IOException {
+        ByteBuffer span = input.region(start, end);
+        for (int i = 0; i < span.limit(); i++) {
+            if (!isWhitespace(span.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    // разбирает элементы [from, to); большие диапазоны делятся пополам
+    private final class ParseTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        // задача не сериализуется: ввод и результаты живут только во время parse
+        private final transient ByteInput input;
+        private final long[] separators;
+        private final Class<?> elementType;
+        private final transient Object[] values;
+        private final int from;
+        private final int to;
+
+        ParseTask(ByteInput input, long[] separators, Class<?> elementType, Object[] values, int from, int to) {
+            this.input = input;
+            this.separators = separators;
+            this.elementType = elementType;
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1 && separators[to] - separators[from] > chunkSize) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ParseTask(input, separators, elementType, values, from, middle),
+                        new ParseTask(input, separators, elementType, values, middle, to));
+                return;
+            }
+            long base = separators[from] + 1;
+            ByteBuffer region;
+            try {
+                region = input.region(base, separators[to]);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            ByteBuffer element = region.duplicate();
+            for (int i = from; i < to; i++) {
+                int start = (int) (separators[i] + 1 - base);
+                int end = (int) (separators[i + 1] - base);
+                while (start < end && isWhitespace(region.get(start))) {
+                    start++;
+                }
+                if (start == end) {
+                    throw new IllegalArgumentException("Missing array element at offset " + (separators[i] + 1));
+                }
+                element.limit(end).position(start);
+                values[i] = parseElement(element, base + start);
+            }
+        }
+
+        private Object parseElement(ByteBuffer element, long offset) {
+            try {
+                return factory.parseWhole(element, elementType);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid array element at offset " + offset + ": " + e.getMessage(), e);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
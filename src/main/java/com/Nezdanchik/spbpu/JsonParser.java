@@ -1,61 +1,192 @@
 package com.Nezdanchik.spbpu;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class JsonParser {
-    private List<JsonToken> tokens;
-    private int position = 0;
+    private JsonTokenSource source;
+    private boolean lazyNumbers = false;
+    private boolean compactTree = false;
+    private JsonProjection projection;
+
+    // общий стек для элементов недостроенных JsonObject/JsonArray: каждый уровень занимает его верхушку;
+    // массив выделяется при первом push, до этого пустые контейнеры работают с NO_VALUES
+    private static final Object[] NO_VALUES = new Object[0];
+    private Object[] scratch = NO_VALUES;
+    private int scratchTop;
 
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    // метрики выключены, пока не вызван setMetrics: тогда разбор ничем не отличается от обычного
+    private JsonMetricsListener metrics;
+    private long inputLength = -1;
+
     // конструктор, принимающий токены
     public JsonParser(List<JsonToken> tokens) {
-        this.tokens = tokens;
+        this.source = new ListTokenSource(tokens);
     }
 
-    //  конструктор, принимающий строку JSON
+    //  конструктор, принимающий строку JSON: токены читаются по одному, без промежуточного списка
     public JsonParser(String jsonString) throws Exception {
-        JsonTokenizer tokenizer = new JsonTokenizer(jsonString);
-        this.tokens = tokenizer.tokenize();  // Токенизация входной строки
+        this(new JsonTokenizer(jsonString));
+        this.inputLength = jsonString.length();
+    }
+
+    // конструкторы для потокового ввода: документ читается кусками фиксированного размера
+    public JsonParser(Reader reader) {
+        this(new JsonTokenizer(reader));
+    }
+
+    public JsonParser(InputStream input) {
+        this(new JsonTokenizer(input));
+    }
+
+    public JsonParser(ReadableByteChannel channel) {
+        this(new JsonTokenizer(channel));
+    }
+
+    // конструкторы для UTF-8 байтов: разбор идёт без предварительного декодирования в String
+    public JsonParser(byte[] json) {
+        this(new JsonByteTokenizer(json));
+        this.inputLength = json.length;
+    }
+
+    public JsonParser(ByteBuffer json) {
+        this(new JsonByteTokenizer(json));
+        this.inputLength = json.remaining();
+    }
+
+    // конструктор, принимающий произвольный источник токенов
+    public JsonParser(JsonTokenSource source) {
+        this.source = source;
+    }
+
+    // числа не разбираются сразу, а хранятся текстом до первого обращения (JsonLazyNumber)
+    public void setLazyNumbers(boolean lazyNumbers) {
+        this.lazyNumbers = lazyNumbers;
+    }
+
+    // вместо HashMap/ArrayList строится компактное неизменяемое дерево из JsonObject и JsonArray
+    public void setCompactTree(boolean compactTree) {
+        this.compactTree = compactTree;
+    }
+
+    // в дерево попадают только поля из projection (JsonProjection.of(Class) или of("a.b", ...)), значения
+    // остальных пропускаются без разбора; объекты на пути проекции строятся как HashMap даже при compactTree
+    public void setProjection(JsonProjection projection) {
+        this.projection = projection;
+    }
+
+    // счётчики документов, токенов, глубины и времени разбора и привязки, например общий JsonMetrics
+    public void setMetrics(JsonMetricsListener metrics) {
+        this.metrics = metrics;
+        objectMapper.setMetrics(metrics);
+    }
+
+    // общая таблица имён полей, например JsonSymbolTable.perThread(); по умолчанию у парсера своя
+    public void setSymbolTable(JsonSymbolTable symbols) {
+        source.setSymbolTable(symbols);
     }
 
     // парсинг, работающий с токенами
     public Object parse() throws Exception {
-        if (tokens.isEmpty()) {
-            throw new IllegalStateException("No tokens available for parsing.");
+        return metrics == null ? parseTree() : parseMeasured();
+    }
+
+    // тот же разбор через CountingTokenSource и с замером времени
+    private Object parseMeasured() throws Exception {
+        JsonTokenSource original = source;
+        CountingTokenSource counting = new CountingTokenSource(original);
+        source = counting;
+        try {
+            long start = System.nanoTime();
+            Object result = parseTree();
+            metrics.documentParsed(inputLength, counting.tokens, counting.maxDepth, System.nanoTime() - start);
+            return result;
+        } finally {
+            source = original;
         }
+    }
+
+    // привязка тоже идёт через CountingTokenSource: документ считается, как при parse(), а время разбора
+    // совпадает со временем привязки, потому что токены читаются по ходу заполнения полей
+    private <T> T bindMeasured(Class<T> clazz) throws Exception {
+        JsonTokenSource original = source;
+        CountingTokenSource counting = new CountingTokenSource(original);
+        source = counting;
         try {
-            position = 0;
-            JsonToken current = peek();
-            switch (current.type()) {
-                case BracketObjectLeft:
-                    return parseObject();
-                case BracketArrayLeft:
-                    return parseArray();
-                case String:
-                case Number:
-                case True:
-                case False:
-                case Null:
-                    return parseValue();  // Обрабатываем примитивы на верхнем уровне
-                default:
-                    throw new IllegalArgumentException("Invalid JSON format. Unexpected token: " + current.type());
-            }
+            long start = System.nanoTime();
+            T value = objectMapper.readValue(startReader(), clazz);
+            metrics.documentParsed(inputLength, counting.tokens, counting.maxDepth, System.nanoTime() - start);
+            return value;
         } finally {
-            position = 0;
+            source = original;
+        }
+    }
+
+    private Object parseTree() throws Exception {
+        source.reset();
+        if (scratchTop > 0) {
+            pop(0);  // остаток после разбора, прерванного ошибкой
+        }
+        JsonToken.Type current = source.next();
+        if (current == null) {
+            throw new IllegalStateException("No tokens available for parsing.");
+        }
+        switch (current) {
+            case BracketObjectLeft:
+            case BracketArrayLeft:
+            case String:
+            case Number:
+            case True:
+            case False:
+            case Null:
+                // примитивы на верхнем уровне тоже допустимы
+                return projection != null ? parseProjected(current, projection) : parseValue(current);
+            default:
+                throw new IllegalArgumentException("Invalid JSON format. Unexpected token: " + current);
+        }
+    }
+
+    // переключение на другой источник токенов; нужно JsonParserFactory, чтобы не создавать парсер на каждый разбор
+    void use(JsonTokenSource source, long inputLength) {
+        this.source = source;
+        this.inputLength = inputLength;
+        if (scratchTop > 0) {
+            pop(0);  // остаток после разбора, прерванного ошибкой
         }
     }
 
     public Object parse(String jsonString) throws Exception {
-        JsonTokenizer tokenizer = new JsonTokenizer(jsonString);
-        this.tokens = tokenizer.tokenize();
+        this.source = new JsonTokenizer(jsonString);
+        this.inputLength = jsonString.length();
         return parse();
     }
 
+    // разбор файла через отображение в память: в кучу копируются только прочитанные значения
+    public static Object parse(Path file) throws Exception {
+        return new JsonParser(JsonByteTokenizer.mapped(file)).parse();
+    }
+
+    // файл с одним большим массивом верхнего уровня: элементы разбираются параллельно (JsonParallelArrayParser)
+    public static List<Object> parseParallel(Path file) throws IOException {
+        return JsonParallelArrayParser.of(file).parse();
+    }
+
+    // классы заполняются прямо из потока токенов, без промежуточного Map
     public <T> T parse(Class<T> clazz) throws Exception {
+        if (ObjectMapper.isBean(clazz)) {
+            return metrics == null ? objectMapper.readValue(startReader(), clazz) : bindMeasured(clazz);
+        }
         Object result = parse();
         if (clazz.isInstance(result)) {
             return clazz.cast(result);
@@ -65,95 +196,303 @@ public class JsonParser {
         throw new IllegalArgumentException("Cannot cast parsed object to " + clazz.getName());
     }
 
+    // разбор идёт по типам токенов: объекты JsonToken не создаются, строки и числа
+    // берутся из источника только тогда, когда попадают в результат
     private Object parseObject() throws Exception {
-        expect(JsonToken.Type.BracketObjectLeft);
+        if (compactTree) {
+            return parseCompactObject();
+        }
         Map<String, Object> obj = new HashMap<>();
-        while (peek().type() != JsonToken.Type.BracketObjectRight) {
-            JsonToken keyToken = expect(JsonToken.Type.String);
+        JsonToken.Type current = next();
+        while (current != JsonToken.Type.BracketObjectRight) {
+            check(current, JsonToken.Type.String);
+            String key = source.keyText();
             expect(JsonToken.Type.Colon);
-            Object value = parseValue();
-            obj.put(keyToken.value(), value);
-            if (peek().type() == JsonToken.Type.Comma) {
-                expect(JsonToken.Type.Comma);
-            }
+            Object value = parseValue(next());
+            obj.put(key, value);
+            current = nextMember(JsonToken.Type.BracketObjectRight);
         }
-        expect(JsonToken.Type.BracketObjectRight);
         return obj;
     }
 
     Object parseArray() throws Exception {
         expect(JsonToken.Type.BracketArrayLeft);
+        return parseArrayBody();
+    }
+
+    private Object parseArrayBody() throws Exception {
+        if (compactTree) {
+            return parseCompactArray();
+        }
         List<Object> array = new ArrayList<>();
-        while (peek().type() != JsonToken.Type.BracketArrayRight) {
-            array.add(parseValue());
-            if (peek().type() == JsonToken.Type.Comma) {
-                expect(JsonToken.Type.Comma);
-            } else if (peek().type() != JsonToken.Type.BracketArrayRight) {
-                throw new IllegalArgumentException("Expected ',' or ']', but found: " + peek().value());
-            }
+        JsonToken.Type current = next();
+        while (current != JsonToken.Type.BracketArrayRight) {
+            array.add(parseValue(current));
+            current = nextMember(JsonToken.Type.BracketArrayRight);
         }
-        expect(JsonToken.Type.BracketArrayRight);
         return array;
     }
 
-    private Object parseValue() throws Exception {
-        JsonToken token = peek();
-        switch (token.type()) {
+    // после элемента контейнера: либо закрывающая скобка, либо запятая и следующий элемент
+    // (пропущенная запятая и запятая перед скобкой — ошибки)
+    private JsonToken.Type nextMember(JsonToken.Type close) throws Exception {
+        JsonToken.Type current = next();
+        if (current == close) {
+            return current;
+        }
+        if (current != JsonToken.Type.Comma) {
+            char bracket = close == JsonToken.Type.BracketObjectRight ? '}' : ']';
+            throw new IllegalArgumentException("Expected ',' or '" + bracket + "', but found: " + current);
+        }
+        current = next();
+        if (current == close) {
+            throw new IllegalArgumentException("Trailing comma before " + close);
+        }
+        return current;
+    }
+
+    private Object parseValue(JsonToken.Type current) throws Exception {
+        switch (current) {
             case Number:
-                expect(JsonToken.Type.Number);
-                return parseNumber(token);
+                return lazyNumbers ? new JsonLazyNumber(source.text()) : source.number();
             case String:
-                expect(JsonToken.Type.String);
-                return token.value();
+                return source.text();
             case True:
+                return Boolean.TRUE;
             case False:
-                expect(token.type());
-                return Boolean.parseBoolean(token.value());
+                return Boolean.FALSE;
             case Null:
-                expect(JsonToken.Type.Null);
                 return null;
             case BracketObjectLeft:
                 return parseObject();
             case BracketArrayLeft:
-                return parseArray();
+                return parseArrayBody();
             default:
-                throw new IllegalArgumentException("Unexpected value type: " + token.value());
+                throw new IllegalArgumentException("Unexpected value type: " + current);
         }
     }
 
-    public static Number parseNumber(JsonToken token) {
-        String content = token.value();
-        if (content.contains(".") || content.contains("E") || content.contains("e")) {
-            return Double.parseDouble(content);
+    // значение по проекции: у объекта остаются только нужные поля, массив проецируется поэлементно;
+    // node == null — значение нужно целиком
+    private Object parseProjected(JsonToken.Type current, JsonProjection node) throws Exception {
+        if (node == null) {
+            return parseValue(current);
         }
-        return Integer.parseInt(content);
+        if (current == JsonToken.Type.BracketArrayLeft) {
+            List<Object> array = new ArrayList<>();
+            current = next();
+            while (current != JsonToken.Type.BracketArrayRight) {
+                array.add(parseProjected(current, node));
+                current = nextMember(JsonToken.Type.BracketArrayRight);
+            }
+            return array;
+        }
+        if (current != JsonToken.Type.BracketObjectLeft) {
+            return parseValue(current);
+        }
+        Map<String, Object> obj = new HashMap<>();
+        current = next();
+        while (current != JsonToken.Type.BracketObjectRight) {
+            check(current, JsonToken.Type.String);
+            // ключ сравнивается с деревом имён по байтам ввода; ненужный ключ не превращается в строку
+            int index = source.matchKey(node.keys);
+            if (index < 0) {
+                skipFieldValue();
+            } else {
+                expect(JsonToken.Type.Colon);
+                obj.put(node.keys.key(index), parseProjected(next(), node.child(index)));
+            }
+            current = nextMember(JsonToken.Type.BracketObjectRight);
+        }
+        return obj;
+    }
+
+    // источники без быстрого пропуска пропускают значение по токенам
+    private void skipFieldValue() throws Exception {
+        if (source.skipFieldValue()) {
+            return;
+        }
+        expect(JsonToken.Type.Colon);
+        int depth = 0;
+        do {
+            switch (next()) {
+                case BracketObjectLeft:
+                case BracketArrayLeft:
+                    depth++;
+                    break;
+                case BracketObjectRight:
+                case BracketArrayRight:
+                    depth--;
+                    break;
+                default:
+                    break;
+            }
+        } while (depth > 0);
+    }
+
+    // ключи и значения копятся на общем стеке и переносятся в массивы точного размера,
+    // когда объект закрыт
+    private JsonObject parseCompactObject() throws Exception {
+        int base = scratchTop;
+        JsonToken.Type current = next();
+        while (current != JsonToken.Type.BracketObjectRight) {
+            check(current, JsonToken.Type.String);
+            push(source.keyText());
+            expect(JsonToken.Type.Colon);
+            push(parseValue(next()));
+            current = nextMember(JsonToken.Type.BracketObjectRight);
+        }
+        int size = (scratchTop - base) / 2;
+        String[] keys = new String[size];
+        Object[] values = new Object[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = (String) scratch[base + 2 * i];
+            values[i] = scratch[base + 2 * i + 1];
+        }
+        pop(base);
+        return new JsonObject(keys, values);
+    }
+
+    private JsonArray parseCompactArray() throws Exception {
+        int base = scratchTop;
+        JsonToken.Type current = next();
+        while (current != JsonToken.Type.BracketArrayRight) {
+            push(parseValue(current));
+            current = nextMember(JsonToken.Type.BracketArrayRight);
+        }
+        JsonArray array = JsonArray.copyOf(scratch, base, scratchTop);
+        pop(base);
+        return array;
+    }
+
+    private void push(Object value) {
+        if (scratchTop == scratch.length) {
+            scratch = Arrays.copyOf(scratch, Math.max(64, scratchTop * 2));
+        }
+        scratch[scratchTop++] = value;
     }
 
-    private JsonToken expect(JsonToken.Type expectedType) throws Exception {
-        if (position >= tokens.size()) {
+    // ссылки снимаются, чтобы стек не удерживал уже готовые значения
+    private void pop(int base) {
+        Arrays.fill(scratch, base, scratchTop, null);
+        scratchTop = base;
+    }
+
+    public static Number parseNumber(JsonToken token) {
+        return parseNumber(token.value());
+    }
+
+    static Number parseNumber(String content) {
+        return JsonNumbers.parse(content);
+    }
+
+    private void expect(JsonToken.Type expectedType) throws Exception {
+        JsonToken.Type current = source.next();
+        if (current == null) {
             throw new IllegalArgumentException("Unexpected end of input, expected " + expectedType);
         }
-        JsonToken token = tokens.get(position++);
-        if (token.type() != expectedType) {
-            throw new IllegalArgumentException("Expected " + expectedType + " but found " + token.type());
+        check(current, expectedType);
+    }
+
+    private static void check(JsonToken.Type current, JsonToken.Type expectedType) {
+        if (current != expectedType) {
+            throw new IllegalArgumentException("Expected " + expectedType + " but found " + current);
         }
-        return token;
     }
 
-    private JsonToken peek() throws Exception {
-        if (position >= tokens.size()) {
+    private JsonToken.Type next() throws Exception {
+        JsonToken.Type current = source.next();
+        if (current == null) {
             throw new IllegalArgumentException("Unexpected end of input");
         }
-        return tokens.get(position);
+        return current;
     }
 
+    // поиск ключа на любой глубине в потоковом режиме: ненужные поддеревья пропускаются без построения,
+    // поиск останавливается на первом (в порядке документа) совпадении с ненулевым значением
     public <T> T parseByKey(String key, Class<T> type) throws Exception {
-        Object result = parse();
-        Object value = findValueByKey(result, key);
-        if (value == null) {
-            throw new IllegalArgumentException("Key not found: " + key);
+        JsonReader reader = startReader();
+        JsonReader.Event event;
+        while ((event = reader.nextEvent()) != null) {
+            if (event == JsonReader.Event.FIELD_NAME && reader.fieldNameEquals(key)
+                    && reader.nextEvent() != JsonReader.Event.VALUE_NULL) {
+                return convertToType(reader.readValue(), type);
+            }
+        }
+        throw new IllegalArgumentException("Key not found: " + key);
+    }
+
+    // поиск по JSON Pointer (RFC 6901), например "/items/0/name"
+    public <T> T parseByPointer(String pointer, Class<T> type) throws Exception {
+        if (pointer.isEmpty()) {
+            return parseByPath(List.of(), pointer, type);
+        }
+        if (pointer.charAt(0) != '/') {
+            throw new IllegalArgumentException("JSON Pointer must start with '/': " + pointer);
+        }
+        List<String> segments = new ArrayList<>();
+        for (String segment : pointer.substring(1).split("/", -1)) {
+            segments.add(segment.replace("~1", "/").replace("~0", "~"));
+        }
+        return parseByPath(segments, pointer, type);
+    }
+
+    // поиск по пути через точку, например "items.0.name"
+    public <T> T parseByPath(String path, Class<T> type) throws Exception {
+        return parseByPath(path.isEmpty() ? List.of() : List.of(path.split("\\.", -1)), path, type);
+    }
+
+    private <T> T parseByPath(List<String> segments, String path, Class<T> type) throws Exception {
+        JsonReader reader = startReader();
+        if (reader.nextEvent() == null) {
+            throw new IllegalStateException("No tokens available for parsing.");
+        }
+        for (String segment : segments) {
+            if (!descend(reader, segment)) {
+                throw new IllegalArgumentException("Path not found: " + path);
+            }
+        }
+        Object value = reader.readValue();
+        return value == null ? null : convertToType(value, type);
+    }
+
+    // переходит к значению поля или элемента массива; всё, что лежит перед ним, пропускается
+    private boolean descend(JsonReader reader, String segment) throws Exception {
+        if (reader.currentEvent() == JsonReader.Event.START_OBJECT) {
+            while (reader.nextEvent() == JsonReader.Event.FIELD_NAME) {
+                if (reader.fieldNameEquals(segment)) {
+                    reader.nextEvent();
+                    return true;
+                }
+                reader.skipFieldValue();
+            }
+        } else if (reader.currentEvent() == JsonReader.Event.START_ARRAY) {
+            int index = parseIndex(segment);
+            for (int i = 0; index >= 0 && reader.nextEvent() != JsonReader.Event.END_ARRAY; i++) {
+                if (i == index) {
+                    return true;
+                }
+                reader.skipChildren();
+            }
+        }
+        return false;
+    }
+
+    private static int parseIndex(String segment) {
+        if (segment.isEmpty() || segment.length() > 9) {
+            return -1;
+        }
+        for (int i = 0; i < segment.length(); i++) {
+            if (!Character.isDigit(segment.charAt(i))) {
+                return -1;
+            }
         }
-        return convertToType(value, type);
+        return Integer.parseInt(segment);
+    }
+
+    private JsonReader startReader() throws Exception {
+        source.reset();
+        return new JsonReader(source);
     }
 
     private <T> T convertToType(Object value, Class<T> type) throws Exception {
@@ -185,22 +524,4 @@ public class JsonParser {
         }
         throw new IllegalArgumentException("Unsupported number conversion to " + type.getSimpleName());
     }
-
-    private Object findValueByKey(Object current, String key) {
-        if (current instanceof Map<?, ?> map) {
-            if (map.containsKey(key)) {
-                return map.get(key);
-            }
-            for (Object value : map.values()) {
-                Object found = findValueByKey(value, key);
-                if (found != null) return found;
-            }
-        } else if (current instanceof List<?>) {
-            for (Object item : (List<?>) current) {
-                Object found = findValueByKey(item, key);
-                if (found != null) return found;
-            }
-        }
-        return null;
-    }
 }
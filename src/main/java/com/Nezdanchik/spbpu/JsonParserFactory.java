@@ -0,0 +1,252 @@
+package com.Nezdanchik.spbpu;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// потокобезопасная точка входа для разбора: один экземпляр на всё приложение.
+// Рабочее состояние (токенизаторы с буферами, таблица имён, стек контейнеров, JsonReader)
+// берётся из ограниченного пула и возвращается после разбора, поэтому на вызов создаётся только результат.
+// Пул не привязан к потокам и не использует блокировок, так что подходит и для виртуальных потоков:
+// состояние не размножается по числу потоков и не закрепляет поток-носитель
+public final class JsonParserFactory {
+    private static final int DEFAULT_POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    private final boolean compactTree;
+    private final boolean lazyNumbers;
+    private final JsonMetricsListener metrics;
+    private final AtomicReferenceArray<State> pool;
+
+    public JsonParserFactory() {
+        this(false, false, null, DEFAULT_POOL_SIZE);
+    }
+
+    private JsonParserFactory(boolean compactTree, boolean lazyNumbers, JsonMetricsListener metrics, int poolSize) {
+        this.compactTree = compactTree;
+        this.lazyNumbers = lazyNumbers;
+        this.metrics = metrics;
+        this.pool = new AtomicReferenceArray<>(poolSize);
+    }
+
+    // настройки возвращают новую фабрику со своим пулом, как у JsonSerializerOptions
+    public JsonParserFactory withCompactTree(boolean compactTree) {
+        return new JsonParserFactory(compactTree, lazyNumbers, metrics, pool.length());
+    }
+
+    public JsonParserFactory withLazyNumbers(boolean lazyNumbers) {
+        return new JsonParserFactory(compactTree, lazyNumbers, metrics, pool.length());
+    }
+
+    // метрики всех разборов и привязок этой фабрики; null — без замеров
+    public JsonParserFactory withMetrics(JsonMetricsListener metrics) {
+        return new JsonParserFactory(compactTree, lazyNumbers, metrics, pool.length());
+    }
+
+    // наибольшее число простаивающих состояний; при большей конкуренции лишние создаются и выбрасываются
+    public JsonParserFactory withPoolSize(int poolSize) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive: " + poolSize);
+        }
+        return new JsonParserFactory(compactTree, lazyNumbers, metrics, poolSize);
+    }
+
+    boolean isCompactTree() {
+        return compactTree;
+    }
+
+    public Object parse(String json) throws Exception {
+        State state = acquire();
+        try {
+            return state.parser(json).parse();
+        } finally {
+            release(state);
+        }
+    }
+
+    public Object parse(byte[] json) throws Exception {
+        return parse(json, 0, json.length);
+    }
+
+    public Object parse(byte[] json, int offset, int length) throws Exception {
+        State state = acquire();
+        try {
+            return state.parser(json, offset, length).parse();
+        } finally {
+            release(state);
+        }
+    }
+
+    // UTF-8 от position до limit; позиция буфера не меняется
+    public Object parse(ByteBuffer json) throws Exception {
+        State state = acquire();
+        try {
+            return state.parser(json).parse();
+        } finally {
+            release(state);
+        }
+    }
+
+    public <T> T parse(String json, Class<T> clazz) throws Exception {
+        State state = acquire();
+        try {
+            JsonParser parser = state.parser(json);
+            return ObjectMapper.isBean(clazz) ? state.bind(state.chars, clazz) : parser.parse(clazz);
+        } finally {
+            release(state);
+        }
+    }
+
+    public <T> T parse(byte[] json, Class<T> clazz) throws Exception {
+        State state = acquire();
+        try {
+            JsonParser parser = state.parser(json, 0, json.length);
+            return ObjectMapper.isBean(clazz) ? state.bind(state.bytes, clazz) : parser.parse(clazz);
+        } finally {
+            release(state);
+        }
+    }
+
+    public <T> T parse(ByteBuffer json, Class<T> clazz) throws Exception {
+        State state = acquire();
+        try {
+            JsonParser parser = state.parser(json);
+            return ObjectMapper.isBean(clazz) ? state.bind(state.bytes, clazz) : parser.parse(clazz);
+        } finally {
+            release(state);
+        }
+    }
+
+    // буфер целиком — одно значение: в отличие от parse, данные после него считаются ошибкой.
+    // Нужно JsonLinesReader и JsonParallelArrayParser, чтобы запись или элемент вида "1 2" не обрезались молча;
+    // type == Object.class — дерево
+    Object parseWhole(ByteBuffer json, Class<?> type) throws Exception {
+        State state = acquire();
+        try {
+            JsonParser parser = state.parser(json);
+            if (type == Object.class) {
+                return state.end(parser.parse());
+            }
+            return state.end(ObjectMapper.isBean(type) ? state.bind(state.bytes, type) : parser.parse(type));
+        } finally {
+            release(state);
+        }
+    }
+
+    // свободное состояние из пула или новое, если все заняты; поиск начинается со случайного слота,
+    // чтобы потоки не толкались в одной ячейке
+    private State acquire() {
+        int length = pool.length();
+        int start = ThreadLocalRandom.current().nextInt(length);
+        for (int i = 0; i < length; i++) {
+            int slot = (start + i) % length;
+            if (pool.get(slot) != null) {
+                State state = pool.getAndSet(slot, null);
+                if (state != null) {
+                    return state;
+                }
+            }
+        }
+        return new State(compactTree, lazyNumbers, metrics);
+    }
+
+    private void release(State state) {
+        state.clear();
+        int length = pool.length();
+        int start = ThreadLocalRandom.current().nextInt(length);
+        for (int i = 0; i < length; i++) {
+            if (pool.compareAndSet((start + i) % length, null, state)) {
+                return;
+            }
+        }
+        // пул заполнен: состояние достанется сборщику мусора
+    }
+
+    // рабочее состояние одного разбора; используется одним потоком между acquire и release
+    private static final class State {
+        final JsonSymbolTable symbols = new JsonSymbolTable();
+        final JsonParser parser = new JsonParser((JsonTokenSource) null);
+        final ObjectMapper mapper = new ObjectMapper();
+        JsonTokenizer chars;
+        JsonByteTokenizer bytes;
+        JsonReader charsReader;
+        JsonReader bytesReader;
+        JsonTokenSource current;
+        final boolean measured;
+
+        State(boolean compactTree, boolean lazyNumbers, JsonMetricsListener metrics) {
+            measured = metrics != null;
+            parser.setCompactTree(compactTree);
+            parser.setLazyNumbers(lazyNumbers);
+            parser.setMetrics(metrics);
+            mapper.setMetrics(metrics);
+        }
+
+        JsonParser parser(String json) {
+            if (chars == null) {
+                chars = new JsonTokenizer(json);
+                chars.setSymbolTable(symbols);
+                charsReader = new JsonReader(chars);
+            } else {
+                chars.reuse(json);
+            }
+            parser.use(chars, json.length());
+            current = chars;
+            return parser;
+        }
+
+        JsonParser parser(byte[] json, int offset, int length) {
+            if (bytes == null) {
+                bytes = new JsonByteTokenizer(json, offset, length);
+                bytes.setSymbolTable(symbols);
+                bytesReader = new JsonReader(bytes);
+            }
+            bytes.reuse(json, offset, length);
+            parser.use(bytes, length);
+            current = bytes;
+            return parser;
+        }
+
+        JsonParser parser(ByteBuffer json) {
+            if (bytes == null) {
+                bytes = new JsonByteTokenizer(json);
+                bytes.setSymbolTable(symbols);
+                bytesReader = new JsonReader(bytes);
+            }
+            bytes.reuse(json);
+            parser.use(bytes, json.remaining());
+            current = bytes;
+            return parser;
+        }
+
+        // состояние в пуле не должно удерживать последний документ
+        void clear() {
+            if (chars != null) {
+                chars.release();
+            }
+            if (bytes != null) {
+                bytes.release();
+            }
+            parser.use(null, 0);
+            current = null;
+        }
+
+        <T> T bind(JsonTokenSource source, Class<T> clazz) throws Exception {
+            if (measured) {
+                return parser.parse(clazz);  // документ и привязка считаются через CountingTokenSource
+            }
+            JsonReader reader = source == chars ? charsReader : bytesReader;
+            reader.restart();
+            return mapper.readValue(reader, clazz);
+        }
+
+        // в отличие от JsonParser.parse(), после значения допустимы только пробелы
+        <T> T end(T value) throws IOException {
+            JsonToken.Type extra = current.next();
+            if (extra != null) {
+                throw new IllegalArgumentException("Unexpected token after end of document: " + extra);
+            }
+            return value;
+        }
+    }
+}
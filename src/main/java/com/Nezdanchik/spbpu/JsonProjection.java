@@ -0,0 +1,112 @@
+package com.Nezdanchik.spbpu;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// набор нужных полей для JsonParser.setProjection: на каждом уровне вложенности — дерево имён (JsonKeyTrie)
+// и проекции вложенных значений. Значения остальных полей пропускаются без разбора и ничего не выделяют.
+// Проекция строится один раз и переиспользуется, одновременное использование из разных потоков безопасно
+public final class JsonProjection {
+    private static final ClassValue<JsonProjection> CLASSES = new ClassValue<>() {
+        @Override
+        protected JsonProjection computeValue(Class<?> type) {
+            return forClass(type);
+        }
+    };
+
+    final JsonKeyTrie keys;
+    // проекции значений полей; null — значение нужно целиком. Для классов вложенные проекции
+    // берутся по типу лениво, поэтому ссылки класса на самого себя допустимы
+    private final JsonProjection[] children;
+    private final Class<?>[] childTypes;
+
+    private JsonProjection(JsonKeyTrie keys, JsonProjection[] children, Class<?>[] childTypes) {
+        this.keys = keys;
+        this.children = children;
+        this.childTypes = childTypes;
+    }
+
+    // поля класса, как их читает JsonParser.parse(Class<T>): вложенные классы, их массивы и List<T>
+    // проецируются по своим полям, остальные значения берутся целиком
+    public static JsonProjection of(Class<?> type) {
+        if (!ObjectMapper.isBean(type)) {
+            throw new IllegalArgumentException("Cannot project fields of " + type.getName());
+        }
+        return CLASSES.get(type);
+    }
+
+    // пути из имён полей через точку: "id", "user.address.city". Массивы на пути проецируются поэлементно;
+    // если нужен и путь, и его начало ("user" и "user.name"), значение "user" берётся целиком
+    public static JsonProjection of(String... paths) {
+        return of(Arrays.asList(paths));
+    }
+
+    @SuppressWarnings("unchecked")  // в дереве путей значения — только вложенные Map или null
+    public static JsonProjection of(Collection<String> paths) {
+        Map<String, Object> tree = new LinkedHashMap<>();
+        for (String path : paths) {
+            String[] segments = path.split("\\.", -1);
+            Map<String, Object> level = tree;
+            for (int i = 0; i < segments.length; i++) {
+                String segment = segments[i];
+                if (segment.isEmpty()) {
+                    throw new IllegalArgumentException("Invalid projection path: " + path);
+                }
+                if (i == segments.length - 1) {
+                    level.put(segment, null);  // значение целиком
+                    break;
+                }
+                if (level.containsKey(segment) && level.get(segment) == null) {
+                    break;  // начало пути уже нужно целиком
+                }
+                level = (Map<String, Object>) level.computeIfAbsent(segment, key -> new LinkedHashMap<String, Object>());
+            }
+        }
+        return fromTree(tree);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JsonProjection fromTree(Map<String, Object> tree) {
+        String[] names = tree.keySet().toArray(new String[0]);
+        JsonProjection[] children = new JsonProjection[names.length];
+        for (int i = 0; i < names.length; i++) {
+            Object child = tree.get(names[i]);
+            children[i] = child == null ? null : fromTree((Map<String, Object>) child);
+        }
+        return new JsonProjection(JsonKeyTrie.of(names), children, new Class<?>[names.length]);
+    }
+
+    private static JsonProjection forClass(Class<?> type) {
+        ClassBinder.FieldBinder[] fields = ClassBinder.of(type).fields;
+        String[] names = new String[fields.length];
+        Class<?>[] types = new Class<?>[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            names[i] = fields[i].name;
+            types[i] = projectedType(fields[i].type, fields[i].elementType);
+        }
+        return new JsonProjection(JsonKeyTrie.of(names), new JsonProjection[fields.length], types);
+    }
+
+    // класс, по полям которого проецируется значение поля, или null
+    private static Class<?> projectedType(Class<?> type, Class<?> elementType) {
+        if (type.isArray()) {
+            type = type.getComponentType();
+        } else if (List.class.isAssignableFrom(type)) {
+            type = elementType;
+        }
+        return type != null && ObjectMapper.isBean(type) ? type : null;
+    }
+
+    // проекция значения поля с номером index в keys; null — значение нужно целиком
+    JsonProjection child(int index) {
+        JsonProjection child = children[index];
+        if (child == null && childTypes[index] != null) {
+            child = CLASSES.get(childTypes[index]);
+            children[index] = child;  // гонка безопасна: в кэше классов одна проекция на класс
+        }
+        return child;
+    }
+}
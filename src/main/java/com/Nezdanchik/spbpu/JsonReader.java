@@ -0,0 +1,318 @@
+package com.Nezdanchik.spbpu;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// потоковое чтение JSON по событиям (в духе StAX): дерево документа не строится
+public class JsonReader {
+
+    public enum Event {
+        START_OBJECT,
+        END_OBJECT,
+        START_ARRAY,
+        END_ARRAY,
+        FIELD_NAME,
+        VALUE_STRING,
+        VALUE_NUMBER,
+        VALUE_TRUE,
+        VALUE_FALSE,
+        VALUE_NULL
+    }
+
+    // чего ждёт читатель от следующего токена
+    private enum State {
+        VALUE,          // значение (начало документа, после ':' или ',' в массиве)
+        VALUE_OR_END,   // значение или ']' сразу после '['
+        KEY,            // ключ после ',' в объекте
+        KEY_OR_END,     // ключ или '}' сразу после '{'
+        AFTER_KEY,      // ':' после ключа
+        AFTER_VALUE,    // ',' или закрывающая скобка
+        DONE            // документ прочитан
+    }
+
+    // токены читаются без создания объектов JsonToken; строки декодируются только по запросу
+    private final JsonTokenSource source;
+
+    private State state = State.VALUE;
+    private boolean[] objectStack = new boolean[16];
+    private int depth = 0;
+
+    private Event event;
+
+    public JsonReader(JsonTokenSource source) {
+        this.source = source;
+    }
+
+    public JsonReader(String json) {
+        this(new JsonTokenizer(json));
+    }
+
+    public JsonReader(Reader reader) {
+        this(new JsonTokenizer(reader));
+    }
+
+    public JsonReader(InputStream input) {
+        this(new JsonTokenizer(input));
+    }
+
+    public JsonReader(byte[] json) {
+        this(new JsonByteTokenizer(json));
+    }
+
+    public JsonReader(ByteBuffer json) {
+        this(new JsonByteTokenizer(json));
+    }
+
+    // чтение заново после reuse() источника; стек вложенности сохраняется
+    void restart() {
+        state = State.VALUE;
+        depth = 0;
+        event = null;
+    }
+
+    // следующее событие или null, когда документ прочитан полностью
+    public Event nextEvent() throws IOException {
+        JsonToken.Type token = advance();
+        switch (state) {
+            case DONE:
+                if (token != null) {
+                    throw new IllegalArgumentException("Unexpected token after end of document: " + token);
+                }
+                return event = null;
+            case AFTER_KEY:
+                if (token != JsonToken.Type.Colon) {
+                    throw unexpected(token, "Colon");
+                }
+                state = State.VALUE;
+                return value(advance());
+            case AFTER_VALUE:
+                if (token == JsonToken.Type.Comma) {
+                    state = objectStack[depth - 1] ? State.KEY : State.VALUE;
+                    return nextEvent();
+                }
+                return end(token);
+            case KEY_OR_END:
+                if (token == JsonToken.Type.BracketObjectRight) {
+                    return end(token);
+                }
+                return key(token);
+            case KEY:
+                return key(token);
+            case VALUE_OR_END:
+                if (token == JsonToken.Type.BracketArrayRight) {
+                    return end(token);
+                }
+                return value(token);
+            default:
+                return value(token);
+        }
+    }
+
+    // текущее событие (последнее возвращённое nextEvent())
+    public Event currentEvent() {
+        return event;
+    }
+
+    // глубина вложенности: 1 внутри объекта или массива верхнего уровня
+    public int getDepth() {
+        return depth;
+    }
+
+    // имя поля, строка или текст числа для текущего события
+    public String getText() {
+        if (event != Event.FIELD_NAME && event != Event.VALUE_STRING && event != Event.VALUE_NUMBER) {
+            throw new IllegalStateException("No text for event " + event);
+        }
+        return event == Event.FIELD_NAME ? source.keyText() : source.text();
+    }
+
+    // сравнение имени поля; для байтового ввода — без создания строки
+    public boolean fieldNameEquals(String name) {
+        if (event != Event.FIELD_NAME) {
+            return false;
+        }
+        return source.textEquals(name);
+    }
+
+    // номер имени текущего поля в keys или -1; байтовый и символьный ввод сравниваются без создания строки
+    public int fieldIndex(JsonKeyTrie keys) {
+        if (event != Event.FIELD_NAME) {
+            throw new IllegalStateException("Current event is not a field name: " + event);
+        }
+        return source.matchKey(keys);
+    }
+
+    // на FIELD_NAME пропускает значение поля целиком; источник, который умеет, делает это без разбора
+    // на токены, следующим событием будет следующее поле или END_OBJECT
+    public void skipFieldValue() throws IOException {
+        if (event != Event.FIELD_NAME) {
+            throw new IllegalStateException("Current event is not a field name: " + event);
+        }
+        if (source.skipFieldValue()) {
+            state = State.AFTER_VALUE;
+            return;
+        }
+        nextEvent();
+        skipChildren();
+    }
+
+    public Number getNumber() {
+        if (event != Event.VALUE_NUMBER) {
+            throw new IllegalStateException("Current event is not a number: " + event);
+        }
+        return source.number();
+    }
+
+    // число без упаковки; у getLong() дробная часть отбрасывается
+    public long getLong() {
+        if (event != Event.VALUE_NUMBER) {
+            throw new IllegalStateException("Current event is not a number: " + event);
+        }
+        return source.longValue();
+    }
+
+    public double getDouble() {
+        if (event != Event.VALUE_NUMBER) {
+            throw new IllegalStateException("Current event is not a number: " + event);
+        }
+        return source.doubleValue();
+    }
+
+    public boolean getBoolean() {
+        if (event != Event.VALUE_TRUE && event != Event.VALUE_FALSE) {
+            throw new IllegalStateException("Current event is not a boolean: " + event);
+        }
+        return event == Event.VALUE_TRUE;
+    }
+
+    // на START_OBJECT/START_ARRAY пропускает содержимое до парной закрывающей скобки;
+    // на остальных событиях ничего не делает
+    public void skipChildren() throws IOException {
+        if (event != Event.START_OBJECT && event != Event.START_ARRAY) {
+            return;
+        }
+        int target = depth - 1;
+        while (depth > target) {
+            if (nextEvent() == null) {
+                throw new IllegalArgumentException("Unexpected end of input");
+            }
+        }
+    }
+
+    // собирает значение текущего события в Map/List/примитив, как JsonParser.parse()
+    public Object readValue() throws IOException {
+        switch (event) {
+            case START_OBJECT: {
+                Map<String, Object> obj = new HashMap<>();
+                while (nextEvent() == Event.FIELD_NAME) {
+                    String key = getText();
+                    nextEvent();
+                    obj.put(key, readValue());
+                }
+                return obj;
+            }
+            case START_ARRAY: {
+                List<Object> array = new ArrayList<>();
+                while (nextEvent() != Event.END_ARRAY) {
+                    array.add(readValue());
+                }
+                return array;
+            }
+            case VALUE_STRING:
+                return getText();
+            case VALUE_NUMBER:
+                return getNumber();
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                return getBoolean();
+            case VALUE_NULL:
+                return null;
+            default:
+                throw new IllegalStateException("Current event is not a value: " + event);
+        }
+    }
+
+    private JsonToken.Type advance() throws IOException {
+        return source.next();
+    }
+
+    private Event key(JsonToken.Type token) {
+        if (token != JsonToken.Type.String) {
+            throw unexpected(token, "String");
+        }
+        state = State.AFTER_KEY;
+        return event = Event.FIELD_NAME;
+    }
+
+    private Event value(JsonToken.Type token) {
+        if (token == null) {
+            throw new IllegalArgumentException("Unexpected end of input");
+        }
+        switch (token) {
+            case BracketObjectLeft:
+                push(true);
+                state = State.KEY_OR_END;
+                return event = Event.START_OBJECT;
+            case BracketArrayLeft:
+                push(false);
+                state = State.VALUE_OR_END;
+                return event = Event.START_ARRAY;
+            case String:
+                afterValue();
+                return event = Event.VALUE_STRING;
+            case Number:
+                afterValue();
+                return event = Event.VALUE_NUMBER;
+            case True:
+                afterValue();
+                return event = Event.VALUE_TRUE;
+            case False:
+                afterValue();
+                return event = Event.VALUE_FALSE;
+            case Null:
+                afterValue();
+                return event = Event.VALUE_NULL;
+            default:
+                throw new IllegalArgumentException("Unexpected value type: " + token);
+        }
+    }
+
+    private Event end(JsonToken.Type token) {
+        boolean inObject = objectStack[depth - 1];
+        if (token == JsonToken.Type.BracketObjectRight && inObject) {
+            depth--;
+            afterValue();
+            return event = Event.END_OBJECT;
+        } else if (token == JsonToken.Type.BracketArrayRight && !inObject) {
+            depth--;
+            afterValue();
+            return event = Event.END_ARRAY;
+        }
+        throw unexpected(token, inObject ? "',' or '}'" : "',' or ']'");
+    }
+
+    private void push(boolean object) {
+        if (depth == objectStack.length) {
+            objectStack = Arrays.copyOf(objectStack, depth * 2);
+        }
+        objectStack[depth++] = object;
+    }
+
+    private void afterValue() {
+        state = depth == 0 ? State.DONE : State.AFTER_VALUE;
+    }
+
+    private static IllegalArgumentException unexpected(JsonToken.Type token, String expected) {
+        if (token == null) {
+            return new IllegalArgumentException("Unexpected end of input, expected " + expected);
+        }
+        return new IllegalArgumentException("Expected " + expected + " but found " + token);
+    }
+}
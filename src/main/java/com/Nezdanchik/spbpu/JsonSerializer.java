@@ -1,85 +1,250 @@
 package com.Nezdanchik.spbpu;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Array;
-import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 public class JsonSerializer {
+    private static final JsonSerializer PRETTY = new JsonSerializer(JsonSerializerOptions.pretty());
+    private static final JsonSerializer COMPACT = new JsonSerializer(JsonSerializerOptions.compact());
 
+    private final JsonSerializerOptions options;
+    private final boolean pretty;
+    private final JsonMetricsListener metrics;
+
+    // по умолчанию компактный вывод
+    public JsonSerializer() {
+        this(JsonSerializerOptions.compact());
+    }
+
+    public JsonSerializer(JsonSerializerOptions options) {
+        this.options = options;
+        this.pretty = options.isPrettyPrint();
+        this.metrics = options.getMetrics();
+    }
+
+    public JsonSerializerOptions getOptions() {
+        return options;
+    }
+
+    public String toJson(Object obj) {
+        long start = metrics == null ? 0 : System.nanoTime();
+        StringBuilder json = new StringBuilder();
+        try {
+            writeValue(obj, new JsonOutput.AppendableOutput(json), "", 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);  // StringBuilder не бросает IOException
+        }
+        if (metrics != null) {
+            written(obj, json.length(), start);
+        }
+        return json.toString();
+    }
+
+    public void write(Object obj, Appendable out) throws IOException {
+        if (metrics == null) {
+            writeValue(obj, new JsonOutput.AppendableOutput(out), "", 0);
+            return;
+        }
+        long start = System.nanoTime();
+        int before = out instanceof CharSequence chars ? chars.length() : -1;
+        writeValue(obj, new JsonOutput.AppendableOutput(out), "", 0);
+        written(obj, before < 0 ? -1 : ((CharSequence) out).length() - before, start);
+    }
+
+    public void write(Object obj, OutputStream out) throws IOException {
+        long start = metrics == null ? 0 : System.nanoTime();
+        JsonOutput.StreamOutput output = new JsonOutput.StreamOutput(out);
+        writeValue(obj, output, "", 0);
+        output.flush();
+        if (metrics != null) {
+            written(obj, output.drained, start);
+        }
+    }
+
+    public ByteBuffer write(Object obj, ByteBuffer target) throws IOException {
+        long start = metrics == null ? 0 : System.nanoTime();
+        JsonOutput.ByteBufferOutput output = new JsonOutput.ByteBufferOutput(target);
+        writeValue(obj, output, "", 0);
+        output.flush();
+        if (metrics != null) {
+            written(obj, output.drained, start);
+        }
+        return output.target;
+    }
+
+    private void written(Object obj, long length, long start) {
+        metrics.valueWritten(obj == null ? Void.class : obj.getClass(), length, System.nanoTime() - start);
+    }
+
+    // форматированный вывод для чтения человеком
     public static String serializeToJson(Object obj) throws IllegalAccessException {
         return serializeToJson(obj, "");
     }
 
     public static String serializeToJson(Object obj, String indent) throws IllegalAccessException {
+        StringBuilder json = new StringBuilder();
+        try {
+            PRETTY.writeValue(obj, new JsonOutput.AppendableOutput(json), indent, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return json.toString();
+    }
+
+    // запись в Appendable (StringBuilder, Writer, ...) без промежуточных строк, компактно
+    public static void serialize(Object obj, Appendable out) throws IOException {
+        COMPACT.write(obj, out);
+    }
+
+    // запись в OutputStream в UTF-8, компактно; поток не закрывается
+    public static void serialize(Object obj, OutputStream out) throws IOException {
+        COMPACT.write(obj, out);
+    }
+
+    // запись в ByteBuffer в UTF-8 начиная с его позиции, компактно; если места не хватает, возвращается
+    // новый буфер того же вида (heap или direct) с уже записанными данными
+    public static ByteBuffer serialize(Object obj, ByteBuffer target) throws IOException {
+        return COMPACT.write(obj, target);
+    }
+
+    // весь документ пишется в один приёмник; отступ уровня depth — indent и depth пар пробелов
+    void writeValue(Object obj, JsonOutput out, String indent, int depth) throws IOException {
         if (obj == null) {
-            return "null";
+            out.write("null");
+            return;
         }
         Class<?> clazz = obj.getClass();
-        StringBuilder json = new StringBuilder();
-        String nextIndent = indent + "  ";
 
         if (clazz.isArray()) {
-            json.append("[\n");
+            out.write('[');
             int length = Array.getLength(obj);
             for (int i = 0; i < length; i++) {
-                json.append(nextIndent).append(serializeToJson(Array.get(obj, i), nextIndent));
-                if (i < length - 1) {
-                    json.append(",");
+                if (i > 0) {
+                    out.write(',');
                 }
-                json.append("\n");
+                newLine(out, indent, depth + 1);
+                writeValue(Array.get(obj, i), out, indent, depth + 1);
             }
-            json.append(indent).append("]");
-        } else if (obj instanceof Collection) {
-            Collection<?> collection = (Collection<?>) obj;
-            json.append("[\n");
-            int i = 0;
+            closeContainer(out, indent, depth, ']');
+        } else if (obj instanceof Collection<?> collection) {
+            out.write('[');
+            boolean first = true;
             for (Object item : collection) {
-                json.append(nextIndent).append(serializeToJson(item, nextIndent));
-                if (i < collection.size() - 1) {
-                    json.append(",");
+                if (!first) {
+                    out.write(',');
                 }
-                json.append("\n");
-                i++;
+                newLine(out, indent, depth + 1);
+                writeValue(item, out, indent, depth + 1);
+                first = false;
             }
-            json.append(indent).append("]");
-        } else if (obj instanceof Map) {
-            Map<?, ?> map = (Map<?, ?>) obj;
-            json.append("{\n");
-            int i = 0;
-            for (Map.Entry<?, ?> entry : map.entrySet()) {
-                json.append(nextIndent).append("\"").append(entry.getKey().toString()).append("\": ");
-                json.append(serializeToJson(entry.getValue(), nextIndent));
-                if (i < map.size() - 1) {
-                    json.append(",");
+            closeContainer(out, indent, depth, ']');
+        } else if (obj instanceof Map<?, ?> map) {
+            out.write('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : entries(map, options)) {
+                if (entry.getValue() == null && options.isSkipNulls()) {
+                    continue;
                 }
-                json.append("\n");
-                i++;
-            }
-            json.append(indent).append("}");
-        } else if (clazz.isPrimitive() || obj instanceof String || obj instanceof Number || obj instanceof Boolean) {
-            if (obj instanceof String) {
-                json.append("\"").append(obj).append("\"");
-            } else {
-                json.append(obj.toString());
+                if (!first) {
+                    out.write(',');
+                }
+                newLine(out, indent, depth + 1);
+                out.writeQuoted(entry.getKey().toString());
+                out.write(':');
+                if (pretty) {
+                    out.write(' ');
+                }
+                writeValue(entry.getValue(), out, indent, depth + 1);
+                first = false;
             }
+            closeContainer(out, indent, depth, '}');
+        } else if (obj instanceof String || obj instanceof Character || obj instanceof Enum<?>) {
+            out.writeQuoted(obj instanceof Enum<?> e ? e.name() : obj.toString());
+        } else if (obj instanceof Number || obj instanceof Boolean) {
+            out.write(obj.toString());
         } else {
-            json.append("{\n");
-            Field[] fields = clazz.getDeclaredFields();
+            @SuppressWarnings("unchecked")
+            JsonTypeCodec<Object> codec = (JsonTypeCodec<Object>) JsonCodecs.find(clazz);
+            if (codec != null) {
+                // класс со сгенерированным кодеком пишется без рефлексии
+                codec.write(obj, new JsonWriter(this, out, indent, depth));
+                return;
+            }
+            out.write('{');
+            // поля и закодированные имена берутся из плана класса, рефлексия выполняется один раз на класс
             boolean first = true;
-            for (Field field : fields) {
-                field.setAccessible(true); // Дает доступ к приватным полям
+            for (ClassWriter.FieldWriter field : ClassWriter.of(clazz).fields) {
+                if (!field.included(options.getFieldInclusion())) {
+                    continue;
+                }
+                Object value = field.field.get(obj);
+                if (value == null && options.isSkipNulls()) {
+                    continue;
+                }
                 if (!first) {
-                    json.append(",\n");
+                    out.write(',');
+                }
+                newLine(out, indent, depth + 1);
+                out.writeFieldPrefix(field);
+                if (pretty) {
+                    out.write(' ');
                 }
-                json.append(nextIndent).append("\"").append(field.getName()).append("\": ");
-                json.append(serializeToJson(field.get(obj), nextIndent));
+                writeValue(value, out, indent, depth + 1);
                 first = false;
             }
-            json.append("\n").append(indent).append("}");
+            if (pretty) {
+                out.write('\n');
+                writeIndent(out, indent, depth);
+            }
+            out.write('}');
         }
-        return json.toString();
     }
-}
 
+    // порядок ключей Map по настройке; общий с CborSerializer
+    static Iterable<? extends Map.Entry<?, ?>> entries(Map<?, ?> map, JsonSerializerOptions options) {
+        if (options.getKeyOrder() != JsonSerializerOptions.KeyOrder.SORTED) {
+            return map.entrySet();
+        }
+        List<Map.Entry<?, ?>> sorted = new ArrayList<>(map.entrySet());
+        sorted.sort(Comparator.comparing(entry -> entry.getKey().toString()));
+        return sorted;
+    }
+
+    // в компактном режиме ни переводов строк, ни отступов не пишется
+    void newLine(JsonOutput out, String indent, int depth) throws IOException {
+        if (pretty) {
+            out.write('\n');
+            writeIndent(out, indent, depth);
+        }
+    }
+
+    private void closeContainer(JsonOutput out, String indent, int depth, char bracket) throws IOException {
+        newLine(out, indent, depth);
+        out.write(bracket);
+    }
+
+    static void writeIndent(JsonOutput out, String indent, int depth) throws IOException {
+        if (!indent.isEmpty()) {
+            out.write(indent);
+        }
+        out.writeSpaces(depth * 2);
+    }
 
+    // строка в кавычках с экранированием по RFC 8259
+    static void appendQuoted(StringBuilder out, String value) {
+        try {
+            new JsonOutput.AppendableOutput(out).writeQuoted(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
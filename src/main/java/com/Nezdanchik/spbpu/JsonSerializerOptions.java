@@ -0,0 +1,88 @@
+package com.Nezdanchik.spbpu;
+
+// настройки JsonSerializer; объект неизменяемый, with-методы возвращают копию
+public final class JsonSerializerOptions {
+
+    // порядок ключей Map в выводе
+    public enum KeyOrder {
+        INSERTION,  // порядок обхода самой Map
+        SORTED      // по строковому представлению ключа
+    }
+
+    // какие поля классов попадают в вывод
+    public enum FieldInclusion {
+        ALL,            // все нестатические поля
+        NON_TRANSIENT,  // без transient-полей
+        PUBLIC          // только public-поля
+    }
+
+    private static final JsonSerializerOptions COMPACT =
+            new JsonSerializerOptions(false, false, KeyOrder.INSERTION, FieldInclusion.ALL, null);
+
+    private final boolean prettyPrint;
+    private final boolean skipNulls;
+    private final KeyOrder keyOrder;
+    private final FieldInclusion fieldInclusion;
+    private final JsonMetricsListener metrics;
+
+    private JsonSerializerOptions(boolean prettyPrint, boolean skipNulls, KeyOrder keyOrder, FieldInclusion fieldInclusion,
+                                  JsonMetricsListener metrics) {
+        this.prettyPrint = prettyPrint;
+        this.skipNulls = skipNulls;
+        this.keyOrder = keyOrder;
+        this.fieldInclusion = fieldInclusion;
+        this.metrics = metrics;
+    }
+
+    // компактный вывод без пробелов и переводов строк (по умолчанию для машинного обмена)
+    public static JsonSerializerOptions compact() {
+        return COMPACT;
+    }
+
+    // вывод с переводами строк и отступом в два пробела, как у serializeToJson
+    public static JsonSerializerOptions pretty() {
+        return COMPACT.withPrettyPrint(true);
+    }
+
+    public JsonSerializerOptions withPrettyPrint(boolean prettyPrint) {
+        return new JsonSerializerOptions(prettyPrint, skipNulls, keyOrder, fieldInclusion, metrics);
+    }
+
+    // не писать поля классов и элементы Map со значением null
+    public JsonSerializerOptions withSkipNulls(boolean skipNulls) {
+        return new JsonSerializerOptions(prettyPrint, skipNulls, keyOrder, fieldInclusion, metrics);
+    }
+
+    public JsonSerializerOptions withKeyOrder(KeyOrder keyOrder) {
+        return new JsonSerializerOptions(prettyPrint, skipNulls, keyOrder, fieldInclusion, metrics);
+    }
+
+    public JsonSerializerOptions withFieldInclusion(FieldInclusion fieldInclusion) {
+        return new JsonSerializerOptions(prettyPrint, skipNulls, keyOrder, fieldInclusion, metrics);
+    }
+
+    // число, размер и время записей по классам; null — без замеров
+    public JsonSerializerOptions withMetrics(JsonMetricsListener metrics) {
+        return new JsonSerializerOptions(prettyPrint, skipNulls, keyOrder, fieldInclusion, metrics);
+    }
+
+    public boolean isPrettyPrint() {
+        return prettyPrint;
+    }
+
+    public boolean isSkipNulls() {
+        return skipNulls;
+    }
+
+    public KeyOrder getKeyOrder() {
+        return keyOrder;
+    }
+
+    public FieldInclusion getFieldInclusion() {
+        return fieldInclusion;
+    }
+
+    public JsonMetricsListener getMetrics() {
+        return metrics;
+    }
+}
@@ -0,0 +1,146 @@
+package com.Nezdanchik.spbpu;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// таблица имён полей: повторяющийся ключ ищется по символам (или байтам) прямо в буфере
+// и возвращается уже созданной строкой. Размер ограничен: когда таблица заполнена,
+// новые ключи просто создаются как обычные строки. Не потокобезопасна
+public final class JsonSymbolTable {
+    static final int MAX_KEY_LENGTH = 64;
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int DEFAULT_MAX_SIZE = 2048;
+
+    private static final ThreadLocal<JsonSymbolTable> PER_THREAD = ThreadLocal.withInitial(JsonSymbolTable::new);
+
+    private final int maxSize;
+    private String[] symbols = new String[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    public JsonSymbolTable() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public JsonSymbolTable(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    // общая таблица текущего потока, её можно передать нескольким парсерам подряд
+    public static JsonSymbolTable perThread() {
+        return PER_THREAD.get();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    String lookup(char[] chars, int start, int length) {
+        if (length > MAX_KEY_LENGTH) {
+            return new String(chars, start, length);
+        }
+        int hash = 0;
+        for (int i = start; i < start + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int mask = symbols.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            String symbol = symbols[slot];
+            if (symbol == null) {
+                return add(slot, hash, new String(chars, start, length));
+            }
+            if (hashes[slot] == hash && matches(symbol, chars, start, length)) {
+                return symbol;
+            }
+        }
+    }
+
+    // только для ASCII-байтов: каждый байт равен своему символу
+    String lookupAscii(byte[] bytes, int start, int length) {
+        if (length > MAX_KEY_LENGTH) {
+            return new String(bytes, start, length, StandardCharsets.ISO_8859_1);
+        }
+        int hash = 0;
+        for (int i = start; i < start + length; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        int mask = symbols.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            String symbol = symbols[slot];
+            if (symbol == null) {
+                return add(slot, hash, new String(bytes, start, length, StandardCharsets.ISO_8859_1));
+            }
+            if (hashes[slot] == hash && matches(symbol, bytes, start, length)) {
+                return symbol;
+            }
+        }
+    }
+
+    private String add(int slot, int hash, String symbol) {
+        if (size >= maxSize) {
+            return symbol;  // таблица заполнена: строка не запоминается
+        }
+        symbols[slot] = symbol;
+        hashes[slot] = hash;
+        size++;
+        if (size * 2 > symbols.length) {
+            rehash();
+        }
+        return symbol;
+    }
+
+    private void rehash() {
+        String[] oldSymbols = symbols;
+        int[] oldHashes = hashes;
+        symbols = new String[oldSymbols.length * 2];
+        hashes = new int[oldSymbols.length * 2];
+        int mask = symbols.length - 1;
+        for (int i = 0; i < oldSymbols.length; i++) {
+            if (oldSymbols[i] != null) {
+                int slot = mix(oldHashes[i]) & mask;
+                while (symbols[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                symbols[slot] = oldSymbols[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(symbols, null);
+        size = 0;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(String symbol, char[] chars, int start, int length) {
+        if (symbol.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (symbol.charAt(i) != chars[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(String symbol, byte[] bytes, int start, int length) {
+        if (symbol.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (symbol.charAt(i) != bytes[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,537 @@
+package com.Nezdanchik.spbpu;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// двухэтапный разбор UTF-8 для больших объёмов данных.
+// Этап 1 просматривает ввод блоками по 64 байта (по 8 байт за операцию, SWAR) и записывает в int[]
+// позиции структурных символов, кавычек и начал литералов вне строк.
+// Этап 2 идёт по этому индексу и строит ленту long[]: в старшем байте записи — тег, в остальных — данные.
+// Контейнер хранит номер записи за своим концом, поэтому вложенные значения пропускаются за O(1)
+public final class JsonTape {
+    private static final long TAG_OBJECT_START = (long) '{' << 56;
+    private static final long TAG_OBJECT_END = (long) '}' << 56;
+    private static final long TAG_ARRAY_START = (long) '[' << 56;
+    private static final long TAG_ARRAY_END = (long) ']' << 56;
+    private static final long TAG_STRING = (long) '"' << 56;   // + начало строки, следующее слово — её конец
+    private static final long TAG_LONG = (long) 'l' << 56;     // следующее слово — значение
+    private static final long TAG_DOUBLE = (long) 'd' << 56;   // следующее слово — биты double
+    private static final long TAG_BIG = (long) 'N' << 56;      // + начало текста числа, следующее слово — конец
+    private static final long TAG_TRUE = (long) 't' << 56;
+    private static final long TAG_FALSE = (long) 'f' << 56;
+    private static final long TAG_NULL = (long) 'n' << 56;
+    private static final long PAYLOAD = (1L << 56) - 1;
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long CASE_BIT = 0x2020202020202020L;
+
+    private final byte[] input;
+    private long[] tape = new long[64];
+    private int size = 0;
+
+    // индекс этапа 1
+    private int[] structurals;
+    private int structuralCount;
+
+    private char[] digits = new char[32];
+
+    private JsonTape(byte[] input) {
+        this.input = input;
+    }
+
+    public static JsonTape parse(byte[] json) {
+        JsonTape result = new JsonTape(json);
+        result.structurals = index(json, json.length);
+        result.structuralCount = result.structurals[result.structurals.length - 1];
+        result.buildTape();
+        return result;
+    }
+
+    public static JsonTape parse(String json) {
+        return parse(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // ---------- этап 1: структурный индекс ----------
+
+    // позиции структурных символов, открывающих и закрывающих кавычек и начал литералов;
+    // последний элемент массива — количество найденных позиций
+    static int[] index(byte[] input, int length) {
+        int[] positions = new int[Math.max(16, length / 4 + 2)];
+        int count = 0;
+        byte[] tail = new byte[64];
+
+        boolean escapeNext = false;  // последний байт предыдущего блока — неэкранированный '\'
+        long inStringCarry = 0;      // предыдущий блок закончился внутри строки: все биты 1
+        long atomCarry = 0;          // последний байт предыдущего блока принадлежал литералу
+
+        for (int base = 0; base < length; base += 64) {
+            byte[] block = input;
+            int offset = base;
+            if (length - base < 64) {
+                Arrays.fill(tail, (byte) ' ');
+                System.arraycopy(input, base, tail, 0, length - base);
+                block = tail;
+                offset = 0;
+            }
+
+            long quotes = 0;
+            long backslashes = 0;
+            long structural = 0;
+            long whitespace = 0;
+            for (int word = 0; word < 8; word++) {
+                long bytes = (long) LONGS.get(block, offset + word * 8);
+                int shift = word * 8;
+                quotes |= gather(matches(bytes, '"')) << shift;
+                backslashes |= gather(matches(bytes, '\\')) << shift;
+                // '[' и ']' отличаются от '{' и '}' одним битом 0x20
+                long folded = bytes | CASE_BIT;
+                structural |= gather(matches(folded, '{') | matches(folded, '}')
+                        | matches(bytes, ':') | matches(bytes, ',')) << shift;
+                whitespace |= gather(matches(bytes, ' ') | matches(bytes, '\t')
+                        | matches(bytes, '\n') | matches(bytes, '\r')) << shift;
+            }
+
+            // экранированные символы: обратные слэши встречаются редко, поэтому обходятся по одному
+            long escaped = 0;
+            if (escapeNext) {
+                escaped = 1;
+                backslashes &= ~1L;
+                escapeNext = false;
+            }
+            while (backslashes != 0) {
+                long bit = backslashes & -backslashes;
+                if (bit == Long.MIN_VALUE) {
+                    escapeNext = true;
+                } else {
+                    escaped |= bit << 1;
+                    backslashes &= ~(bit << 1);
+                }
+                backslashes &= ~bit;
+            }
+            quotes &= ~escaped;
+
+            // внутри строки: префиксный XOR по кавычкам (открывающая кавычка внутри, закрывающая — нет)
+            long inString = prefixXor(quotes) ^ inStringCarry;
+            inStringCarry = inString >> 63;
+
+            structural &= ~inString;
+            long atom = ~(whitespace | structural | quotes | inString);
+            long atomStart = atom & ~((atom << 1) | atomCarry);
+            atomCarry = atom >>> 63;
+
+            long found = structural | quotes | atomStart;
+            if (base + 64 > length) {
+                found &= (1L << (length - base)) - 1;  // дополнение пробелами в индекс не попадает
+            }
+            int bits = Long.bitCount(found);
+            if (count + bits + 1 > positions.length) {
+                positions = Arrays.copyOf(positions, Math.max(positions.length * 2, count + bits + 1));
+            }
+            while (found != 0) {
+                positions[count++] = base + Long.numberOfTrailingZeros(found);
+                found &= found - 1;
+            }
+        }
+        if (inStringCarry != 0) {
+            throw new IllegalArgumentException("Unterminated string");
+        }
+        if (count + 1 > positions.length) {
+            positions = Arrays.copyOf(positions, count + 1);
+        }
+        positions[positions.length - 1] = count;
+        return positions;
+    }
+
+    // старший бит каждого байта, равного c; без ложных срабатываний от переносов между байтами
+    private static long matches(long bytes, char c) {
+        long x = bytes ^ (ONES * c);
+        return ~(((x & LOW_BITS) + LOW_BITS) | x) & HIGH_BITS;
+    }
+
+    // старшие биты восьми байтов собираются в младшие 8 бит
+    private static long gather(long highBits) {
+        return ((highBits >>> 7) * 0x0102040810204080L) >>> 56;
+    }
+
+    private static long prefixXor(long bits) {
+        bits ^= bits << 1;
+        bits ^= bits << 2;
+        bits ^= bits << 4;
+        bits ^= bits << 8;
+        bits ^= bits << 16;
+        bits ^= bits << 32;
+        return bits;
+    }
+
+    // ---------- этап 2: лента ----------
+
+    private void buildTape() {
+        if (structuralCount == 0) {
+            throw new IllegalStateException("No tokens available for parsing.");
+        }
+        int k = parseValue(0);
+        if (k != structuralCount) {
+            throw new IllegalArgumentException("Unexpected data after JSON value at offset " + structurals[k]);
+        }
+        tape = Arrays.copyOf(tape, size);
+    }
+
+    // разбирает значение, начинающееся с k-й позиции индекса; возвращает номер следующей позиции
+    private int parseValue(int k) {
+        if (k >= structuralCount) {
+            throw new IllegalArgumentException("Unexpected end of input");
+        }
+        int position = structurals[k];
+        switch (input[position]) {
+            case '{':
+                return parseObject(k + 1);
+            case '[':
+                return parseArray(k + 1);
+            case '"':
+                return parseString(k);
+            case '}':
+            case ']':
+            case ',':
+            case ':':
+                throw new IllegalArgumentException("Unexpected value type: " + (char) input[position]);
+            default:
+                parseAtom(position);
+                return k + 1;
+        }
+    }
+
+    private int parseObject(int k) {
+        int start = append(TAG_OBJECT_START);
+        if (charAt(k) == '}') {
+            return closeContainer(start, TAG_OBJECT_END, k + 1);
+        }
+        while (true) {
+            if (charAt(k) != '"') {
+                throw new IllegalArgumentException("Expected String but found " + describe(k));
+            }
+            k = parseString(k);
+            if (charAt(k) != ':') {
+                throw new IllegalArgumentException("Expected Colon but found " + describe(k));
+            }
+            k = parseValue(k + 1);
+            int c = charAt(k);
+            if (c == '}') {
+                return closeContainer(start, TAG_OBJECT_END, k + 1);
+            }
+            if (c != ',') {
+                throw new IllegalArgumentException("Expected ',' or '}', but found: " + describe(k));
+            }
+            k++;
+        }
+    }
+
+    private int parseArray(int k) {
+        int start = append(TAG_ARRAY_START);
+        if (charAt(k) == ']') {
+            return closeContainer(start, TAG_ARRAY_END, k + 1);
+        }
+        while (true) {
+            k = parseValue(k);
+            int c = charAt(k);
+            if (c == ']') {
+                return closeContainer(start, TAG_ARRAY_END, k + 1);
+            }
+            if (c != ',') {
+                throw new IllegalArgumentException("Expected ',' or ']', but found: " + describe(k));
+            }
+            k++;
+        }
+    }
+
+    private int closeContainer(int start, long endTag, int next) {
+        append(endTag | start);
+        tape[start] |= size;
+        return next;
+    }
+
+    // открывающая и закрывающая кавычки — соседние позиции индекса
+    private int parseString(int k) {
+        if (k + 1 >= structuralCount) {
+            throw new IllegalArgumentException("Unterminated string");
+        }
+        append(TAG_STRING | (structurals[k] + 1));
+        append(structurals[k + 1]);
+        return k + 2;
+    }
+
+    private void parseAtom(int position) {
+        switch (input[position]) {
+            case 't':
+                expectLiteral(position, "true", "Invalid boolean value");
+                append(TAG_TRUE);
+                return;
+            case 'f':
+                expectLiteral(position, "false", "Invalid boolean value");
+                append(TAG_FALSE);
+                return;
+            case 'n':
+                expectLiteral(position, "null", "Invalid null value");
+                append(TAG_NULL);
+                return;
+            default:
+                parseNumber(position);
+        }
+    }
+
+    private void parseNumber(int start) {
+        int end = start;
+        while (end < input.length && JsonTokenizer.isNumberChar(input[end])) {
+            end++;
+        }
+        if (end == start) {
+            throw new IllegalArgumentException("Unexpected character: " + (char) (input[start] & 0xFF));
+        }
+        checkDelimiter(end);
+        int length = end - start;
+        if (digits.length < length) {
+            digits = new char[Math.max(length, digits.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            digits[i] = (char) input[start + i];
+        }
+        Number value = JsonNumbers.parse(digits, 0, length);
+        if (value instanceof Integer || value instanceof Long) {
+            append(TAG_LONG);
+            append(value.longValue());
+        } else if (value instanceof Double) {
+            append(TAG_DOUBLE);
+            append(Double.doubleToRawLongBits(value.doubleValue()));
+        } else {
+            append(TAG_BIG | start);
+            append(end);
+        }
+    }
+
+    private void expectLiteral(int position, String literal, String error) {
+        int end = position + literal.length();
+        if (end > input.length) {
+            throw new IllegalArgumentException(error);
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            if (input[position + i] != literal.charAt(i)) {
+                throw new IllegalArgumentException(error);
+            }
+        }
+        checkDelimiter(end);
+    }
+
+    // литерал должен заканчиваться пробелом, структурным символом или концом ввода
+    private void checkDelimiter(int end) {
+        if (end < input.length) {
+            switch (input[end]) {
+                case ' ': case '\t': case '\n': case '\r':
+                case ',': case ':': case '}': case ']': case '[': case '{': case '"':
+                    return;
+                default:
+                    throw new IllegalArgumentException("Unexpected character: " + (char) (input[end] & 0xFF));
+            }
+        }
+    }
+
+    private int charAt(int k) {
+        if (k >= structuralCount) {
+            throw new IllegalArgumentException("Unexpected end of input");
+        }
+        return input[structurals[k]];
+    }
+
+    private String describe(int k) {
+        return "'" + (char) (input[structurals[k]] & 0xFF) + "' at offset " + structurals[k];
+    }
+
+    private int append(long entry) {
+        if (size == tape.length) {
+            tape = Arrays.copyOf(tape, size * 2);
+        }
+        tape[size] = entry;
+        return size++;
+    }
+
+    // ---------- чтение ленты ----------
+
+    // число записей; значение верхнего уровня начинается с записи 0
+    public int size() {
+        return tape.length;
+    }
+
+    public JsonToken.Type type(int i) {
+        switch ((int) (tape[i] >>> 56)) {
+            case '{': return JsonToken.Type.BracketObjectLeft;
+            case '}': return JsonToken.Type.BracketObjectRight;
+            case '[': return JsonToken.Type.BracketArrayLeft;
+            case ']': return JsonToken.Type.BracketArrayRight;
+            case '"': return JsonToken.Type.String;
+            case 't': return JsonToken.Type.True;
+            case 'f': return JsonToken.Type.False;
+            case 'n': return JsonToken.Type.Null;
+            default: return JsonToken.Type.Number;
+        }
+    }
+
+    // запись, следующая за значением i (контейнер пропускается целиком)
+    public int next(int i) {
+        switch ((int) (tape[i] >>> 56)) {
+            case '{':
+            case '[':
+                return (int) (tape[i] & PAYLOAD);
+            case '"':
+            case 'l':
+            case 'd':
+            case 'N':
+                return i + 2;
+            default:
+                return i + 1;
+        }
+    }
+
+    public long getLong(int i) {
+        long tag = tape[i] & ~PAYLOAD;
+        if (tag == TAG_LONG) {
+            return tape[i + 1];
+        }
+        return getNumber(i).longValue();
+    }
+
+    public double getDouble(int i) {
+        long tag = tape[i] & ~PAYLOAD;
+        if (tag == TAG_DOUBLE) {
+            return Double.longBitsToDouble(tape[i + 1]);
+        }
+        if (tag == TAG_LONG) {
+            return tape[i + 1];
+        }
+        return getNumber(i).doubleValue();
+    }
+
+    public Number getNumber(int i) {
+        long tag = tape[i] & ~PAYLOAD;
+        if (tag == TAG_LONG) {
+            long value = tape[i + 1];
+            return value == (int) value ? (Number) (int) value : (Number) value;
+        }
+        if (tag == TAG_DOUBLE) {
+            return Double.longBitsToDouble(tape[i + 1]);
+        }
+        if (tag == TAG_BIG) {
+            int start = (int) (tape[i] & PAYLOAD);
+            return JsonNumbers.parse(new String(input, start, (int) tape[i + 1] - start, StandardCharsets.ISO_8859_1));
+        }
+        throw new IllegalStateException("Not a number: " + type(i));
+    }
+
+    public boolean getBoolean(int i) {
+        long tag = tape[i] & ~PAYLOAD;
+        if (tag != TAG_TRUE && tag != TAG_FALSE) {
+            throw new IllegalStateException("Not a boolean: " + type(i));
+        }
+        return tag == TAG_TRUE;
+    }
+
+    // строка декодируется из ввода при обращении
+    public String getString(int i) {
+        if ((tape[i] & ~PAYLOAD) != TAG_STRING) {
+            throw new IllegalStateException("Not a string: " + type(i));
+        }
+        int start = (int) (tape[i] & PAYLOAD);
+        int end = (int) tape[i + 1];
+        for (int p = start; p < end; p++) {
+            if (input[p] == '\\') {
+                return unescape(start, end);
+            }
+        }
+        return new String(input, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    private String unescape(int start, int end) {
+        StringBuilder sb = new StringBuilder(end - start);
+        int chunk = start;
+        int p = start;
+        while (p < end) {
+            if (input[p] != '\\') {
+                p++;
+                continue;
+            }
+            sb.append(new String(input, chunk, p - chunk, StandardCharsets.UTF_8));
+            int escape = input[p + 1];
+            p += 2;
+            switch (escape) {
+                case 'n': sb.append('\n'); break;
+                case 't': sb.append('\t'); break;
+                case 'r': sb.append('\r'); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'u':
+                    if (p + 4 > end) {
+                        throw new IllegalArgumentException("Invalid unicode escape");
+                    }
+                    int code = 0;
+                    for (int j = 0; j < 4; j++) {
+                        int digit = Character.digit(input[p++], 16);
+                        if (digit < 0) {
+                            throw new IllegalArgumentException("Invalid unicode escape");
+                        }
+                        code = (code << 4) | digit;
+                    }
+                    sb.append((char) code);
+                    break;
+                default: sb.append((char) escape); break;
+            }
+            chunk = p;
+        }
+        return sb.append(new String(input, chunk, end - chunk, StandardCharsets.UTF_8)).toString();
+    }
+
+    // значение верхнего уровня в виде обычного дерева Map/List, как у JsonParser.parse()
+    public Object toValue() {
+        return toValue(0);
+    }
+
+    public Object toValue(int i) {
+        switch ((int) (tape[i] >>> 56)) {
+            case '{': {
+                Map<String, Object> obj = new HashMap<>();
+                int end = next(i) - 1;
+                for (int p = i + 1; p < end; ) {
+                    String key = getString(p);
+                    p = next(p);
+                    obj.put(key, toValue(p));
+                    p = next(p);
+                }
+                return obj;
+            }
+            case '[': {
+                List<Object> array = new ArrayList<>();
+                int end = next(i) - 1;
+                for (int p = i + 1; p < end; p = next(p)) {
+                    array.add(toValue(p));
+                }
+                return array;
+            }
+            case '"':
+                return getString(i);
+            case 't':
+                return Boolean.TRUE;
+            case 'f':
+                return Boolean.FALSE;
+            case 'n':
+                return null;
+            default:
+                return getNumber(i);
+        }
+    }
+}
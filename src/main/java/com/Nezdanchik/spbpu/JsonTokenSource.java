@@ -0,0 +1,61 @@
+package com.Nezdanchik.spbpu;
+
+import java.io.IOException;
+
+// источник токенов, из которого парсер забирает токены по одному
+public interface JsonTokenSource {
+
+    // следующий токен или null, если ввод закончился
+    JsonToken nextToken() throws IOException;
+
+    // следующий токен без его извлечения, null в конце ввода
+    JsonToken peek() throws IOException;
+
+    // вернуться к началу ввода (для повторного разбора)
+    void reset() throws IOException;
+
+    // низкоуровневый доступ без создания объектов JsonToken: переход к следующему токену,
+    // возвращает его тип или null в конце ввода; учитывает токен, полученный через peek()
+    JsonToken.Type next() throws IOException;
+
+    // текст текущей строки или числа
+    String text();
+
+    // значение текущего числа, разобранное прямо из буфера ввода
+    Number number();
+
+    // значение текущего числа без упаковки; у longValue() дробная часть отбрасывается
+    default long longValue() {
+        return number().longValue();
+    }
+
+    default double doubleValue() {
+        return number().doubleValue();
+    }
+
+    // текст текущей строки в роли имени поля; реализации берут повторяющиеся ключи из таблицы имён
+    default String keyText() {
+        return text();
+    }
+
+    // таблица имён полей для keyText(); по умолчанию у каждого источника своя
+    default void setSymbolTable(JsonSymbolTable symbols) {
+    }
+
+    // сравнение текста текущего токена со строкой (реализации могут обходиться без создания строки)
+    default boolean textEquals(String value) {
+        return value.equals(text());
+    }
+
+    // номер имени текущей строки в keys или -1; реализации сравнивают байты или символы ввода с деревом,
+    // не создавая строку для ключа
+    default int matchKey(JsonKeyTrie keys) {
+        return keys.find(keyText());
+    }
+
+    // пропускает ':' и значение после текущего ключа без разбора на токены (проверяются только парность
+    // скобок и границы строк); false, если источник так не умеет — тогда значение пропускается по токенам
+    default boolean skipFieldValue() throws IOException {
+        return false;
+    }
+}
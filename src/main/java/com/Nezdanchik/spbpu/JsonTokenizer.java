@@ -1,58 +1,413 @@
 package com.Nezdanchik.spbpu;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
-public class JsonTokenizer {
-    private final String input;
+public class JsonTokenizer implements JsonTokenSource {
+    // токены-разделители не зависят от ввода, поэтому создаются один раз
+    static final JsonToken OBJECT_LEFT = new JsonToken(JsonToken.Type.BracketObjectLeft, "{");
+    static final JsonToken OBJECT_RIGHT = new JsonToken(JsonToken.Type.BracketObjectRight, "}");
+    static final JsonToken ARRAY_LEFT = new JsonToken(JsonToken.Type.BracketArrayLeft, "[");
+    static final JsonToken ARRAY_RIGHT = new JsonToken(JsonToken.Type.BracketArrayRight, "]");
+    static final JsonToken COMMA = new JsonToken(JsonToken.Type.Comma, ",");
+    static final JsonToken COLON = new JsonToken(JsonToken.Type.Colon, ":");
+    static final JsonToken TRUE = new JsonToken(JsonToken.Type.True, "true");
+    static final JsonToken FALSE = new JsonToken(JsonToken.Type.False, "false");
+    static final JsonToken NULL = new JsonToken(JsonToken.Type.Null, "null");
+
+    static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    // источник символов: либо строка, либо Reader; в буфер попадает только текущий кусок ввода
+    private String input;
+    private final Reader reader;
+    private int textPosition = 0;
+
+    private char[] buffer;
     private int position = 0;
+    private int limit = 0;
+    private boolean started = false;
+    private JsonToken peeked;
+
+    // текущий токен: тип и, для строк и чисел, текст или его границы в буфере
+    private JsonToken.Type type;
+    private String tokenText;
+    private int textStart;
+    private int textEnd;
+    private JsonSymbolTable symbols;
 
     public JsonTokenizer(String input) {
-        this.input = input.trim();
+        this.input = input;
+        this.reader = null;
+        this.buffer = new char[Math.max(1, Math.min(DEFAULT_BUFFER_SIZE, input.length()))];
+    }
+
+    public JsonTokenizer(Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    public JsonTokenizer(Reader reader, int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        this.input = null;
+        this.reader = reader;
+        this.buffer = new char[bufferSize];
+    }
+
+    // байтовый поток читается как UTF-8
+    public JsonTokenizer(InputStream input) {
+        this(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+
+    public JsonTokenizer(ReadableByteChannel channel) {
+        this(Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), -1));
+    }
+
+    // повторное использование с новой строкой: буфер и таблица имён остаются от прошлых разборов
+    void reuse(String input) {
+        if (reader != null) {
+            throw new IllegalStateException("Stream tokenizer cannot be reused");
+        }
+        if (buffer.length < DEFAULT_BUFFER_SIZE && input.length() > buffer.length) {
+            buffer = new char[Math.min(DEFAULT_BUFFER_SIZE, input.length())];
+        }
+        this.input = input;
+        textPosition = 0;
+        position = 0;
+        limit = 0;
+        started = false;
+        peeked = null;
+        type = null;
+        tokenText = null;
+    }
+
+    // строка отпускается, чтобы токенизатор в пуле не удерживал последний документ; дальше нужен reuse
+    void release() {
+        input = null;
+        peeked = null;
+        type = null;
+        tokenText = null;
+        position = 0;
+        limit = 0;
     }
 
     public List<JsonToken> tokenize() throws Exception {
         List<JsonToken> tokens = new ArrayList<>();
-        while (position < input.length()) {
-            char current = input.charAt(position);
+        JsonToken token;
+        while ((token = nextToken()) != null) {
+            tokens.add(token);
+        }
+        return tokens;
+    }
+
+    @Override
+    public JsonToken nextToken() throws IOException {
+        if (peeked != null) {
+            JsonToken token = peeked;
+            peeked = null;
+            return token;
+        }
+        return toToken(scan());
+    }
+
+    @Override
+    public JsonToken peek() throws IOException {
+        if (peeked == null) {
+            peeked = toToken(scan());
+        }
+        return peeked;
+    }
+
+    @Override
+    public void reset() {
+        if (!started) {
+            return;
+        }
+        if (input == null) {
+            throw new IllegalStateException("Stream input cannot be read twice");
+        }
+        textPosition = 0;
+        position = 0;
+        limit = 0;
+        started = false;
+        peeked = null;
+        type = null;
+    }
+
+    @Override
+    public JsonToken.Type next() throws IOException {
+        if (peeked != null) {
+            type = peeked.type();
+            tokenText = peeked.value();
+            peeked = null;
+            return type;
+        }
+        return scan();
+    }
+
+    // текст строки или числа создаётся только при обращении к нему
+    @Override
+    public String text() {
+        if (tokenText == null && (type == JsonToken.Type.String || type == JsonToken.Type.Number)) {
+            tokenText = new String(buffer, textStart, textEnd - textStart);
+        }
+        return tokenText;
+    }
+
+    // ключ ищется в таблице имён прямо по символам буфера, повторный ключ не создаёт новую строку
+    @Override
+    public String keyText() {
+        if (tokenText == null && type == JsonToken.Type.String) {
+            if (symbols == null) {
+                symbols = new JsonSymbolTable();
+            }
+            tokenText = symbols.lookup(buffer, textStart, textEnd - textStart);
+        }
+        return text();
+    }
+
+    @Override
+    public void setSymbolTable(JsonSymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    // число разбирается прямо из буфера, без промежуточной строки
+    @Override
+    public Number number() {
+        if (type != JsonToken.Type.Number) {
+            throw new IllegalStateException("Current token is not a number: " + type);
+        }
+        return tokenText != null ? JsonNumbers.parse(tokenText) : JsonNumbers.parse(buffer, textStart, textEnd);
+    }
+
+    @Override
+    public long longValue() {
+        if (type != JsonToken.Type.Number || tokenText != null) {
+            return number().longValue();
+        }
+        return JsonNumbers.parseLong(buffer, textStart, textEnd);
+    }
+
+    @Override
+    public double doubleValue() {
+        if (type != JsonToken.Type.Number || tokenText != null) {
+            return number().doubleValue();
+        }
+        return JsonNumbers.parseDouble(buffer, textStart, textEnd);
+    }
+
+    // ASCII-ключ сравнивается с деревом прямо по символам буфера
+    @Override
+    public int matchKey(JsonKeyTrie keys) {
+        if (tokenText != null || type != JsonToken.Type.String) {
+            return keys.find(keyText());
+        }
+        int node = JsonKeyTrie.ROOT;
+        for (int i = textStart; i < textEnd; i++) {
+            char c = buffer[i];
+            if (c >= 0x80) {
+                return keys.find(keyText());
+            }
+            node = keys.step(node, c);
+            if (node < 0) {
+                return -1;
+            }
+        }
+        return keys.value(node);
+    }
+
+    // пропуск значения ненужного поля: ищутся только кавычки и скобки, значения не разбираются
+    @Override
+    public boolean skipFieldValue() throws IOException {
+        if (peeked != null || type != JsonToken.Type.String) {
+            return false;
+        }
+        if (skipWhitespace() != ':') {
+            throw new IllegalArgumentException("Expected ':' after field name");
+        }
+        int current = skipWhitespace();
+        switch (current) {
+            case '{':
+            case '[':
+                skipContainer();
+                break;
+            case '"':
+                skipString();
+                break;
+            case 't':
+                expectLiteral("rue", "Invalid boolean value");
+                break;
+            case 'f':
+                expectLiteral("alse", "Invalid boolean value");
+                break;
+            case 'n':
+                expectLiteral("ull", "Invalid null value");
+                break;
+            case -1:
+                throw new IllegalArgumentException("Unexpected end of input");
+            default:
+                if ((current < '0' || current > '9') && current != '-') {
+                    throw new IllegalArgumentException("Unexpected character: " + (char) current);
+                }
+                while ((position < limit || fill()) && isNumberChar(buffer[position])) {
+                    position++;
+                }
+        }
+        type = null;
+        tokenText = null;
+        return true;
+    }
+
+    private int skipWhitespace() throws IOException {
+        int current;
+        do {
+            current = read();
+        } while (current != -1 && Character.isWhitespace(current));
+        return current;
+    }
+
+    private void skipContainer() throws IOException {
+        int depth = 1;
+        while (position < limit || fill()) {
+            char[] chars = buffer;
+            int i = position;
+            while (i < limit) {
+                char c = chars[i];
+                if (c == '"' || c == '{' || c == '[' || c == '}' || c == ']') {
+                    break;
+                }
+                i++;
+            }
+            if (i == limit) {
+                position = limit;
+                continue;
+            }
+            char c = chars[i];
+            position = i + 1;
+            if (c == '"') {
+                skipString();
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (--depth == 0) {
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Unexpected end of input");
+    }
+
+    private void skipString() throws IOException {
+        while (position < limit || fill()) {
+            int i = position;
+            while (i < limit && buffer[i] != '"' && buffer[i] != '\\') {
+                i++;
+            }
+            if (i == limit) {
+                position = limit;
+                continue;
+            }
+            position = i + 1;
+            if (buffer[i] == '"') {
+                return;
+            }
+            if (read() == -1) {
+                break;  // экранированный символ пропускается целиком
+            }
+        }
+        throw new IllegalArgumentException("Unterminated string");
+    }
+
+    private JsonToken toToken(JsonToken.Type type) {
+        if (type == null) {
+            return null;
+        }
+        switch (type) {
+            case BracketObjectLeft: return OBJECT_LEFT;
+            case BracketObjectRight: return OBJECT_RIGHT;
+            case BracketArrayLeft: return ARRAY_LEFT;
+            case BracketArrayRight: return ARRAY_RIGHT;
+            case Comma: return COMMA;
+            case Colon: return COLON;
+            case True: return TRUE;
+            case False: return FALSE;
+            case Null: return NULL;
+            default: return new JsonToken(type, text());
+        }
+    }
+
+    // подгружает следующий кусок ввода в буфер; false, если ввод закончился
+    private boolean fill() throws IOException {
+        started = true;
+        int count;
+        if (input != null) {
+            count = Math.min(buffer.length, input.length() - textPosition);
+            input.getChars(textPosition, textPosition + count, buffer, 0);
+            textPosition += count;
+        } else {
+            do {
+                count = reader.read(buffer, 0, buffer.length);
+            } while (count == 0);
+        }
+        position = 0;
+        limit = Math.max(count, 0);
+        return count > 0;
+    }
+
+    // следующий символ или -1 в конце ввода
+    private int read() throws IOException {
+        if (position >= limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    // читает ровно один токен, пропуская пробелы; null в конце ввода
+    private JsonToken.Type scan() throws IOException {
+        tokenText = null;
+        while (position < limit || fill()) {
+            char current = buffer[position];
             switch (current) {
                 case '{':
-                    tokens.add(new JsonToken(JsonToken.Type.BracketObjectLeft, "{"));
                     position++;
-                    break;
+                    return type = JsonToken.Type.BracketObjectLeft;
                 case '}':
-                    tokens.add(new JsonToken(JsonToken.Type.BracketObjectRight, "}"));
                     position++;
-                    break;
+                    return type = JsonToken.Type.BracketObjectRight;
                 case '[':
-                    tokens.add(new JsonToken(JsonToken.Type.BracketArrayLeft, "["));
                     position++;
-                    break;
+                    return type = JsonToken.Type.BracketArrayLeft;
                 case ']':
-                    tokens.add(new JsonToken(JsonToken.Type.BracketArrayRight, "]"));
                     position++;
-                    break;
+                    return type = JsonToken.Type.BracketArrayRight;
                 case ',':
-                    tokens.add(new JsonToken(JsonToken.Type.Comma, ","));
                     position++;
-                    break;
+                    return type = JsonToken.Type.Comma;
                 case ':':
-                    tokens.add(new JsonToken(JsonToken.Type.Colon, ":"));
                     position++;
-                    break;
+                    return type = JsonToken.Type.Colon;
                 case '"':
-                    tokens.add(parseString());
-                    break;
+                    position++;
+                    scanString();
+                    return type = JsonToken.Type.String;
                 case 't':
+                    expectLiteral("true", "Invalid boolean value");
+                    return type = JsonToken.Type.True;
                 case 'f':
-                    tokens.add(parseBoolean());
-                    break;
+                    expectLiteral("false", "Invalid boolean value");
+                    return type = JsonToken.Type.False;
                 case 'n':
-                    tokens.add(parseNull());
-                    break;
+                    expectLiteral("null", "Invalid null value");
+                    return type = JsonToken.Type.Null;
                 default:
-                    if (Character.isDigit(current) || current == '-') {
-                        tokens.add(parseNumber());
+                    if ((current >= '0' && current <= '9') || current == '-') {
+                        scanNumber();
+                        return type = JsonToken.Type.Number;
                     } else if (Character.isWhitespace(current)) {
                         position++;
                     } else {
@@ -61,68 +416,94 @@ public class JsonTokenizer {
                     break;
             }
         }
-        return tokens;
+        return type = null;
     }
 
-    private JsonToken parseString() {
+    private void scanString() throws IOException {
+        // быстрый путь: строка без экранирования целиком лежит в буфере
+        int start = position;
+        for (int i = start; i < limit; i++) {
+            char current = buffer[i];
+            if (current == '"') {
+                position = i + 1;
+                textStart = start;
+                textEnd = i;
+                return;
+            } else if (current == '\\') {
+                break;
+            }
+        }
+        tokenText = readStringSlow();
+    }
+
+    private String readStringSlow() throws IOException {
         StringBuilder sb = new StringBuilder();
-        position++;  // Пропустить начальные кавычки
-        while (position < input.length()) {
-            char current = input.charAt(position);
+        int current;
+        while ((current = read()) != -1) {
             if (current == '"') {
-                position++;  // Пропустить закрывающие кавычки
-                return new JsonToken(JsonToken.Type.String, sb.toString());
+                return sb.toString();
             } else if (current == '\\') {
-                position++;
-                if (position < input.length()) {
-                    current = input.charAt(position);
-                    switch (current) {
-                        case 'n': sb.append('\n'); break;
-                        case 't': sb.append('\t'); break;
-                        case 'r': sb.append('\r'); break;
-                        case 'b': sb.append('\b'); break;
-                        case 'f': sb.append('\f'); break;
-                        case '"': sb.append('\"'); break;
-                        case '\\': sb.append('\\'); break;
-                        default: sb.append(current); break;
-                    }
+                current = read();
+                switch (current) {
+                    case -1: throw new IllegalArgumentException("Unterminated string");
+                    case 'n': sb.append('\n'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u': sb.append(parseUnicodeEscape()); break;
+                    default: sb.append((char) current); break;
                 }
             } else {
-                sb.append(current);
+                sb.append((char) current);
             }
-            position++;
         }
         throw new IllegalArgumentException("Unterminated string");
     }
 
-
-    private JsonToken parseNumber() {
-        StringBuilder sb = new StringBuilder();
-        while (position < input.length() && (Character.isDigit(input.charAt(position)) || input.charAt(position) == '.' || input.charAt(position) == '-')) {
-            sb.append(input.charAt(position));
-            position++;
+    private char parseUnicodeEscape() throws IOException {
+        int code = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(read(), 16);
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid unicode escape");
+            }
+            code = (code << 4) | digit;
         }
-        return new JsonToken(JsonToken.Type.Number, sb.toString());
+        return (char) code;
     }
 
-    private JsonToken parseBoolean() throws Exception {
-        if (input.startsWith("true", position)) {
-            position += 4;
-            return new JsonToken(JsonToken.Type.True, "true");
-        } else if (input.startsWith("false", position)) {
-            position += 5;
-            return new JsonToken(JsonToken.Type.False, "false");
-        } else {
-            throw new IllegalArgumentException("Invalid boolean value");
+    private void scanNumber() throws IOException {
+        int start = position;
+        int i = start;
+        while (i < limit && isNumberChar(buffer[i])) {
+            i++;
+        }
+        if (i < limit) {
+            position = i;
+            textStart = start;
+            textEnd = i;
+            return;
         }
+        // число упирается в конец буфера: дочитываем его посимвольно
+        StringBuilder sb = new StringBuilder().append(buffer, start, i - start);
+        position = i;
+        while ((position < limit || fill()) && isNumberChar(buffer[position])) {
+            sb.append(buffer[position++]);
+        }
+        tokenText = sb.toString();
     }
 
-    private JsonToken parseNull() throws Exception {
-        if (input.startsWith("null", position)) {
-            position += 4;
-            return new JsonToken(JsonToken.Type.Null, "null");
-        } else {
-            throw new IllegalArgumentException("Invalid null value");
+    // символы, из которых может состоять число; грамматика проверяется при разборе значения
+    static boolean isNumberChar(int c) {
+        return (c >= '0' && c <= '9') || c == '.' || c == '-' || c == '+' || c == 'e' || c == 'E';
+    }
+
+    private void expectLiteral(String literal, String error) throws IOException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (read() != literal.charAt(i)) {
+                throw new IllegalArgumentException(error);
+            }
         }
     }
 }
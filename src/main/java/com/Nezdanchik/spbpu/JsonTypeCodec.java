@@ -0,0 +1,16 @@
+package com.Nezdanchik.spbpu;
+
+import java.io.IOException;
+
+// сгенерированный (или написанный вручную) кодек класса; регистрируется через
+// META-INF/services/com.Nezdanchik.spbpu.JsonTypeCodec и подхватывается ObjectMapper и JsonSerializer
+public interface JsonTypeCodec<T> {
+
+    Class<T> type();
+
+    // читает объект; reader стоит на событии START_OBJECT
+    T read(JsonReader reader) throws IOException;
+
+    // пишет объект целиком, от '{' до '}'
+    void write(T value, JsonWriter writer) throws IOException;
+}
@@ -0,0 +1,30 @@
+package com.Nezdanchik.spbpu;
+
+// ошибка проверки документа с позицией первого нарушения: смещение от начала ввода
+// (в символах для CharSequence, в байтах для byte[] и InputStream), строка и столбец с единицы
+public class JsonValidationException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    private final long offset;
+    private final long line;
+    private final long column;
+
+    public JsonValidationException(String reason, long offset, long line, long column) {
+        super(reason + " at line " + line + ", column " + column + " (offset " + offset + ")");
+        this.offset = offset;
+        this.line = line;
+        this.column = column;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public long getColumn() {
+        return column;
+    }
+}
@@ -0,0 +1,442 @@
+package com.Nezdanchik.spbpu;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// строгая проверка документа по RFC 8259 без построения токенов и дерева.
+// Ввод просматривается один раз конечным автоматом: CharSequence и byte[] читаются на месте,
+// поток — через буфер из общего пула. Вложенность хранится битами в long (массив заводится только
+// глубже 64 уровней), поэтому в обычном случае создаётся только сам валидатор.
+// Первая ошибка сообщается через JsonValidationException
+public final class JsonValidator {
+    private static final int BUFFER_SIZE = 8192;
+    // буферы для чтения потоков: берутся на время проверки и возвращаются, как состояния JsonParserFactory
+    private static final AtomicReferenceArray<byte[]> BUFFERS =
+            new AtomicReferenceArray<>(Runtime.getRuntime().availableProcessors());
+
+    // состояния автомата: чего ожидаем дальше
+    private static final int VALUE = 0;
+    private static final int VALUE_OR_END = 1;
+    private static final int KEY = 2;
+    private static final int KEY_OR_END = 3;
+    private static final int COLON = 4;
+    private static final int AFTER_VALUE = 5;
+    private static final int DONE = 6;
+
+    private final CharSequence chars;  // символьный ввод читается через charAt, buffer тогда не нужен
+    private final InputStream stream;
+    private final boolean utf8;   // для байтового ввода дополнительно проверяются последовательности UTF-8
+
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+    private long base;            // смещение buffer[0] от начала ввода
+
+    private long line = 1;
+    private long lineStart = 0;
+
+    private int depth = 0;
+    private long objects = 0;     // бит уровня: 1 — объект, 0 — массив
+    private long[] deepObjects;
+
+    private JsonValidator(CharSequence chars, InputStream stream, byte[] buffer, int offset, int length) {
+        this.chars = chars;
+        this.stream = stream;
+        this.utf8 = chars == null;
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = chars != null ? chars.length() : offset + length;
+        this.base = -offset;
+    }
+
+    public static void validate(CharSequence json) {
+        try {
+            new JsonValidator(json, null, null, 0, 0).run();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);  // CharSequence не бросает IOException
+        }
+    }
+
+    public static void validate(byte[] json) {
+        validate(json, 0, json.length);
+    }
+
+    public static void validate(byte[] json, int offset, int length) {
+        try {
+            new JsonValidator(null, null, json, offset, length).run();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // поток читается до конца документа (и дальше, чтобы убедиться, что за ним ничего нет); не закрывается
+    public static void validate(InputStream input) throws IOException {
+        byte[] buffer = acquireBuffer();
+        try {
+            new JsonValidator(null, input, buffer, 0, 0).run();
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    // свободный буфер из пула или новый, если все заняты; ThreadLocal дал бы свой буфер каждому виртуальному потоку
+    private static byte[] acquireBuffer() {
+        int length = BUFFERS.length();
+        int start = ThreadLocalRandom.current().nextInt(length);
+        for (int i = 0; i < length; i++) {
+            int slot = (start + i) % length;
+            if (BUFFERS.get(slot) != null) {
+                byte[] buffer = BUFFERS.getAndSet(slot, null);
+                if (buffer != null) {
+                    return buffer;
+                }
+            }
+        }
+        return new byte[BUFFER_SIZE];
+    }
+
+    private static void releaseBuffer(byte[] buffer) {
+        int length = BUFFERS.length();
+        int start = ThreadLocalRandom.current().nextInt(length);
+        for (int i = 0; i < length; i++) {
+            if (BUFFERS.compareAndSet((start + i) % length, null, buffer)) {
+                return;
+            }
+        }
+    }
+
+    public static boolean isValid(CharSequence json) {
+        try {
+            validate(json);
+            return true;
+        } catch (JsonValidationException e) {
+            return false;
+        }
+    }
+
+    public static boolean isValid(byte[] json) {
+        try {
+            validate(json);
+            return true;
+        } catch (JsonValidationException e) {
+            return false;
+        }
+    }
+
+    private void run() throws IOException {
+        int state = VALUE;
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                if (state == DONE) {
+                    return;
+                }
+                throw error("Unexpected end of input", offset());
+            }
+            long at = offset() - 1;
+            if (c == ' ' || c == '\t' || c == '\r') {
+                continue;
+            }
+            if (c == '\n') {
+                line++;
+                lineStart = at + 1;
+                continue;
+            }
+            switch (state) {
+                case DONE:
+                    throw error("Unexpected data after JSON value", at);
+                case KEY_OR_END:
+                case KEY:
+                    if (state == KEY_OR_END && c == '}') {
+                        state = close();
+                        break;
+                    }
+                    if (c != '"') {
+                        throw error("Expected string key", at);
+                    }
+                    scanString();
+                    state = COLON;
+                    break;
+                case COLON:
+                    if (c != ':') {
+                        throw error("Expected ':'", at);
+                    }
+                    state = VALUE;
+                    break;
+                case AFTER_VALUE: {
+                    boolean inObject = inObject();
+                    if (c == ',') {
+                        state = inObject ? KEY : VALUE;
+                    } else if (c == (inObject ? '}' : ']')) {
+                        state = close();
+                    } else {
+                        throw error("Expected ',' or '" + (inObject ? '}' : ']') + "'", at);
+                    }
+                    break;
+                }
+                default:
+                    state = state == VALUE_OR_END && c == ']' ? close() : value(c, at);
+            }
+        }
+    }
+
+    private int value(int c, long at) throws IOException {
+        switch (c) {
+            case '{':
+                push(true);
+                return KEY_OR_END;
+            case '[':
+                push(false);
+                return VALUE_OR_END;
+            case '"':
+                scanString();
+                return afterValue();
+            case 't':
+                literal("rue", at);
+                return afterValue();
+            case 'f':
+                literal("alse", at);
+                return afterValue();
+            case 'n':
+                literal("ull", at);
+                return afterValue();
+            default:
+                if (c == '-' || isDigit(c)) {
+                    scanNumber(c, at);
+                    return afterValue();
+                }
+                throw error(c == ',' || c == ']' || c == '}' || c == ':'
+                        ? "Expected value but found '" + (char) c + "'"
+                        : "Unexpected character", at);
+        }
+    }
+
+    private int afterValue() {
+        return depth == 0 ? DONE : AFTER_VALUE;
+    }
+
+    // ---------- строки, числа, литералы ----------
+
+    private void scanString() throws IOException {
+        while (true) {
+            // быстрый цикл по обычным символам внутри буфера
+            if (chars != null) {
+                while (position < limit) {
+                    char c = chars.charAt(position);
+                    if (c < 0x20 || c == '"' || c == '\\') {
+                        break;
+                    }
+                    position++;
+                }
+            } else {
+                while (position < limit) {
+                    int b = buffer[position];
+                    if (b < 0x20 || b == '"' || b == '\\') {  // байты >= 0x80 отрицательны
+                        break;
+                    }
+                    position++;
+                }
+            }
+            int c = read();
+            long at = offset() - 1;
+            if (c < 0) {
+                throw error("Unterminated string", offset());
+            }
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                escape(at);
+            } else if (c < 0x20) {
+                throw error("Unescaped control character in string", at);
+            } else if (c >= 0x80 && utf8) {
+                checkUtf8(c, at);
+            }
+        }
+    }
+
+    private void escape(long at) throws IOException {
+        switch (read()) {
+            case '"': case '\\': case '/': case 'b': case 'f': case 'n': case 'r': case 't':
+                return;
+            case 'u':
+                for (int i = 0; i < 4; i++) {
+                    if (!isHexDigit(read())) {
+                        throw error("Invalid unicode escape", at);
+                    }
+                }
+                return;
+            default:
+                throw error("Invalid escape sequence", at);
+        }
+    }
+
+    // корректная последовательность UTF-8: без избыточных форм, суррогатов и значений больше U+10FFFF
+    private void checkUtf8(int lead, long at) throws IOException {
+        int count;
+        int min = 0x80;
+        int max = 0xBF;
+        if (lead >= 0xC2 && lead <= 0xDF) {
+            count = 1;
+        } else if (lead == 0xE0) {
+            count = 2;
+            min = 0xA0;
+        } else if (lead == 0xED) {
+            count = 2;
+            max = 0x9F;
+        } else if (lead >= 0xE1 && lead <= 0xEF) {
+            count = 2;
+        } else if (lead == 0xF0) {
+            count = 3;
+            min = 0x90;
+        } else if (lead >= 0xF1 && lead <= 0xF3) {
+            count = 3;
+        } else if (lead == 0xF4) {
+            count = 3;
+            max = 0x8F;
+        } else {
+            throw error("Invalid UTF-8 sequence", at);
+        }
+        for (int i = 0; i < count; i++) {
+            int b = read();
+            if (b < min || b > max) {
+                throw error("Invalid UTF-8 sequence", at);
+            }
+            min = 0x80;
+            max = 0xBF;
+        }
+    }
+
+    // '-'? ('0' | [1-9][0-9]*) ('.' [0-9]+)? ([eE] [+-]? [0-9]+)?
+    private void scanNumber(int c, long at) throws IOException {
+        if (c == '-') {
+            c = read();
+            if (!isDigit(c)) {
+                throw error("Invalid number", at);
+            }
+        }
+        if (c == '0') {
+            if (isDigit(peek())) {
+                throw error("Invalid number: leading zeros are not allowed", at);
+            }
+        } else {
+            skipDigits();
+        }
+        if (peek() == '.') {
+            position++;
+            requireDigit(at);
+        }
+        int next = peek();
+        if (next == 'e' || next == 'E') {
+            position++;
+            next = peek();
+            if (next == '+' || next == '-') {
+                position++;
+            }
+            requireDigit(at);
+        }
+    }
+
+    private void requireDigit(long at) throws IOException {
+        if (!isDigit(read())) {
+            throw error("Invalid number", at);
+        }
+        skipDigits();
+    }
+
+    private void skipDigits() throws IOException {
+        while (isDigit(peek())) {
+            position++;
+        }
+    }
+
+    private void literal(String rest, long at) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            if (read() != rest.charAt(i)) {
+                throw error("Invalid literal", at);
+            }
+        }
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // только ASCII: Character.digit принял бы и полноширинные цифры из символьного ввода
+    private static boolean isHexDigit(int c) {
+        return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    // ---------- вложенность ----------
+
+    private void push(boolean object) {
+        if (depth < 64) {
+            objects = object ? objects | (1L << depth) : objects & ~(1L << depth);
+        } else {
+            int word = (depth - 64) >>> 6;
+            if (deepObjects == null) {
+                deepObjects = new long[4];
+            } else if (word == deepObjects.length) {
+                deepObjects = Arrays.copyOf(deepObjects, word * 2);
+            }
+            long bit = 1L << (depth & 63);
+            deepObjects[word] = object ? deepObjects[word] | bit : deepObjects[word] & ~bit;
+        }
+        depth++;
+    }
+
+    private boolean inObject() {
+        int level = depth - 1;
+        if (level < 64) {
+            return (objects & (1L << level)) != 0;
+        }
+        return (deepObjects[(level - 64) >>> 6] & (1L << (level & 63))) != 0;
+    }
+
+    private int close() {
+        depth--;
+        return afterValue();
+    }
+
+    // ---------- ввод ----------
+
+    private int read() throws IOException {
+        if (chars != null) {
+            return position < limit ? chars.charAt(position++) : -1;
+        }
+        return position < limit || fill() ? buffer[position++] & 0xFF : -1;
+    }
+
+    private int peek() throws IOException {
+        if (chars != null) {
+            return position < limit ? chars.charAt(position) : -1;
+        }
+        return position < limit || fill() ? buffer[position] & 0xFF : -1;
+    }
+
+    private long offset() {
+        return base + position;
+    }
+
+    // дочитывает поток; массив байтов и CharSequence доступны целиком с самого начала
+    private boolean fill() throws IOException {
+        base += limit;
+        position = 0;
+        limit = 0;
+        if (stream != null) {
+            int n;
+            do {
+                n = stream.read(buffer, 0, buffer.length);
+            } while (n == 0);
+            limit = Math.max(n, 0);
+        }
+        return limit > 0;
+    }
+
+    private JsonValidationException error(String reason, long offset) {
+        return new JsonValidationException(reason, offset, line, offset - lineStart + 1);
+    }
+}
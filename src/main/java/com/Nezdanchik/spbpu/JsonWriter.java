@@ -0,0 +1,142 @@
+package com.Nezdanchik.spbpu;
+
+import java.io.IOException;
+
+// запись полей одного объекта для JsonTypeCodec: запятые, отступы и настройки
+// (компактный вывод, пропуск null, политика полей) берутся у JsonSerializer.
+// Тот же кодек пишет и CBOR: тогда объект — отображение неопределённой длины, значения в двоичном виде
+public final class JsonWriter {
+    private final JsonSerializer serializer;
+    private final CborSerializer cbor;
+    private final JsonSerializerOptions options;
+    private final JsonOutput out;
+    private final String indent;
+    private final int depth;
+    private boolean first = true;
+
+    JsonWriter(JsonSerializer serializer, JsonOutput out, String indent, int depth) {
+        this.serializer = serializer;
+        this.cbor = null;
+        this.options = serializer.getOptions();
+        this.out = out;
+        this.indent = indent;
+        this.depth = depth;
+    }
+
+    JsonWriter(CborSerializer cbor, JsonOutput.Utf8Output out) {
+        this.serializer = null;
+        this.cbor = cbor;
+        this.options = cbor.getOptions();
+        this.out = out;
+        this.indent = "";
+        this.depth = 0;
+    }
+
+    public boolean isSkipNulls() {
+        return options.isSkipNulls();
+    }
+
+    // попадает ли поле в вывод при текущей политике JsonSerializerOptions.FieldInclusion
+    public boolean includes(boolean isTransient, boolean isPublic) {
+        switch (options.getFieldInclusion()) {
+            case NON_TRANSIENT:
+                return !isTransient;
+            case PUBLIC:
+                return isPublic;
+            default:
+                return true;
+        }
+    }
+
+    public void beginObject() throws IOException {
+        if (cbor != null) {
+            binary().writeByte(0xbf);
+            return;
+        }
+        out.write('{');
+    }
+
+    public void name(String name) throws IOException {
+        if (cbor != null) {
+            CborSerializer.writeText(binary(), name);
+            return;
+        }
+        if (!first) {
+            out.write(',');
+        }
+        first = false;
+        serializer.newLine(out, indent, depth + 1);
+        out.writeQuoted(name);
+        out.write(':');
+        if (options.isPrettyPrint()) {
+            out.write(' ');
+        }
+    }
+
+    public void value(long value) throws IOException {
+        if (cbor != null) {
+            CborSerializer.writeLong(binary(), value);
+            return;
+        }
+        out.write(Long.toString(value));
+    }
+
+    public void value(double value) throws IOException {
+        if (cbor != null) {
+            CborSerializer.writeDouble(binary(), value);
+            return;
+        }
+        out.write(Double.toString(value));
+    }
+
+    public void value(float value) throws IOException {
+        if (cbor != null) {
+            CborSerializer.writeFloat(binary(), value);
+            return;
+        }
+        out.write(Float.toString(value));
+    }
+
+    public void value(boolean value) throws IOException {
+        if (cbor != null) {
+            binary().writeByte(value ? 0xf5 : 0xf4);
+            return;
+        }
+        out.write(value ? "true" : "false");
+    }
+
+    public void value(String value) throws IOException {
+        if (cbor != null) {
+            cbor.writeValue(value, binary());
+        } else if (value == null) {
+            out.write("null");
+        } else {
+            out.writeQuoted(value);
+        }
+    }
+
+    // любое значение (списки, массивы, вложенные объекты) через JsonSerializer
+    public void value(Object value) throws IOException {
+        if (cbor != null) {
+            cbor.writeValue(value, binary());
+            return;
+        }
+        serializer.writeValue(value, out, indent, depth + 1);
+    }
+
+    public void endObject() throws IOException {
+        if (cbor != null) {
+            binary().writeByte(0xff);
+            return;
+        }
+        if (options.isPrettyPrint()) {
+            out.write('\n');
+            JsonSerializer.writeIndent(out, indent, depth);
+        }
+        out.write('}');
+    }
+
+    private JsonOutput.Utf8Output binary() {
+        return (JsonOutput.Utf8Output) out;
+    }
+}
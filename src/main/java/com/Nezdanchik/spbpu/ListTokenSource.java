@@ -0,0 +1,46 @@
+package com.Nezdanchik.spbpu;
+
+import java.util.List;
+
+// источник токенов поверх уже готового списка (для совместимости с JsonParser(List<JsonToken>))
+class ListTokenSource implements JsonTokenSource {
+    private final List<JsonToken> tokens;
+    private int position = 0;
+    private JsonToken current;
+
+    ListTokenSource(List<JsonToken> tokens) {
+        this.tokens = tokens;
+    }
+
+    @Override
+    public JsonToken nextToken() {
+        return position < tokens.size() ? tokens.get(position++) : null;
+    }
+
+    @Override
+    public JsonToken peek() {
+        return position < tokens.size() ? tokens.get(position) : null;
+    }
+
+    @Override
+    public void reset() {
+        position = 0;
+        current = null;
+    }
+
+    @Override
+    public JsonToken.Type next() {
+        current = nextToken();
+        return current == null ? null : current.type();
+    }
+
+    @Override
+    public String text() {
+        return current == null ? null : current.value();
+    }
+
+    @Override
+    public Number number() {
+        return JsonParser.parseNumber(current);
+    }
+}
@@ -1,44 +1,232 @@
 package com.Nezdanchik.spbpu;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
 public class ObjectMapper {
+    private JsonMetricsListener metrics;
 
-
-
+    // число и время привязок по классам верхнего уровня; null — без замеров
+    public void setMetrics(JsonMetricsListener metrics) {
+        this.metrics = metrics;
+    }
 
     public <T> T mapToObject(Map<String, Object> map, Class<T> clazz) throws Exception {
-        T obj = clazz.getDeclaredConstructor().newInstance();
-        for (Field field : clazz.getDeclaredFields()) {
-            field.setAccessible(true);  // сделать приватные поля доступными
-            Object value = map.get(field.getName());
+        if (metrics == null) {
+            return bindMap(map, clazz);
+        }
+        long start = System.nanoTime();
+        T value = bindMap(map, clazz);
+        metrics.valueBound(clazz, System.nanoTime() - start);
+        return value;
+    }
+
+    private <T> T bindMap(Map<String, Object> map, Class<T> clazz) throws Exception {
+        JsonTypeCodec<T> codec = JsonCodecs.find(clazz);
+        if (codec != null) {
+            // кодек читает поток событий: он идёт прямо по дереву, без повторной сериализации,
+            // и получает числа в том виде, в каком их построил парсер
+            JsonReader reader = new JsonReader(new TreeTokenSource(map));
+            reader.nextEvent();
+            return codec.read(reader);
+        }
+        // конструктор и поля класса берутся из кэша, рефлексия выполняется один раз на класс
+        ClassBinder binder = ClassBinder.of(clazz);
+        T obj = clazz.cast(binder.newInstance());
+        for (ClassBinder.FieldBinder field : binder.fields) {
+            Object value = map.get(field.name);
 
             if (value == null) {
                 continue;
             }
 
-            Class<?> fieldType = field.getType();
-            Object convertedValue = convertValueToFieldType(value, fieldType, field);
+            Object convertedValue = convertValueToFieldType(value, field.type, field.elementType);
             field.set(obj, convertedValue);
         }
         return obj;
     }
 
-    private Object convertValueToFieldType(Object value, Class<?> fieldType, Field field) throws Exception {
+    // привязка прямо из потока событий: поля заполняются по мере чтения, без промежуточного Map;
+    // числа и логические значения пишутся в примитивные поля без упаковки
+    @SuppressWarnings("unchecked")  // clazz может быть примитивным, поэтому не clazz.cast
+    public <T> T readValue(JsonReader reader, Class<T> clazz) throws Exception {
+        if (reader.nextEvent() == null) {
+            throw new IllegalStateException("No tokens available for parsing.");
+        }
+        if (metrics == null) {
+            return (T) read(reader, clazz, null);
+        }
+        long start = System.nanoTime();
+        T value = (T) read(reader, clazz, null);
+        metrics.valueBound(clazz, System.nanoTime() - start);
+        return value;
+    }
+
+    // классы, которые заполняются по полям (не коллекции, не строки, не числа и т. п.)
+    static boolean isBean(Class<?> type) {
+        return !type.isPrimitive() && !type.isArray() && !type.isEnum() && type != Object.class
+                && !Map.class.isAssignableFrom(type) && !Collection.class.isAssignableFrom(type)
+                && !CharSequence.class.isAssignableFrom(type) && !Number.class.isAssignableFrom(type)
+                && type != Boolean.class && type != Character.class;
+    }
+
+    // значение текущего события, приведённое к типу type
+    Object read(JsonReader reader, Class<?> type, Class<?> elementType) throws Exception {
+        JsonReader.Event event = reader.currentEvent();
+        switch (event) {
+            case VALUE_NULL:
+                return null;
+            case START_OBJECT:
+                if (isBean(type)) {
+                    JsonTypeCodec<?> codec = JsonCodecs.find(type);
+                    return codec != null ? codec.read(reader) : readBean(reader, ClassBinder.of(type));
+                }
+                break;
+            case START_ARRAY:
+                if (type.isArray()) {
+                    return readArray(reader, type.getComponentType());
+                } else if (type.isAssignableFrom(ArrayList.class) && type != Object.class) {
+                    return readList(reader, elementType == null ? Object.class : elementType);
+                }
+                break;
+            case VALUE_STRING:
+                if (type.isAssignableFrom(String.class) && type != Object.class) {
+                    return reader.getText();
+                } else if (type == char.class || type == Character.class) {
+                    return JsonCodecs.readChar(reader);
+                }
+                break;
+            case VALUE_NUMBER:
+                if (type != Object.class && (Number.class.isAssignableFrom(type) || type.isPrimitive())) {
+                    return convertNumber(reader.getNumber(), type);
+                }
+                break;
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                if (type == boolean.class || type == Boolean.class) {
+                    return reader.getBoolean();
+                }
+                break;
+            default:
+                throw new IllegalStateException("Current event is not a value: " + event);
+        }
+        // Object, Map и прочие типы получают обычное дерево, как при разборе через Map
+        Object value = reader.readValue();
+        if (type.isInstance(value)) {
+            return value;
+        }
+        throw new IllegalArgumentException("Cannot assign value of type " + value.getClass() + " to field of type " + type);
+    }
+
+    private Object readBean(JsonReader reader, ClassBinder binder) throws Exception {
+        Object obj = binder.newInstance();
+        while (reader.nextEvent() == JsonReader.Event.FIELD_NAME) {
+            // имя сравнивается с деревом имён класса по байтам ввода, строка для ключа не создаётся
+            int index = reader.fieldIndex(binder.keys);
+            if (index < 0) {
+                reader.skipFieldValue();  // поля нет в классе: значение пропускается без разбора
+                continue;
+            }
+            JsonReader.Event event = reader.nextEvent();
+            if (event != JsonReader.Event.VALUE_NULL) {
+                readField(reader, obj, binder.fields[index], event);
+            }
+        }
+        return obj;
+    }
+
+    private void readField(JsonReader reader, Object obj, ClassBinder.FieldBinder field, JsonReader.Event event)
+            throws Exception {
+        if (field.kind == ClassBinder.FieldBinder.INTEGRAL && event == JsonReader.Event.VALUE_NUMBER) {
+            field.setLong(obj, reader.getLong());
+        } else if (field.kind == ClassBinder.FieldBinder.FLOATING && event == JsonReader.Event.VALUE_NUMBER) {
+            field.setDouble(obj, reader.getDouble());
+        } else if (field.kind == ClassBinder.FieldBinder.BOOLEAN
+                && (event == JsonReader.Event.VALUE_TRUE || event == JsonReader.Event.VALUE_FALSE)) {
+            field.setBoolean(obj, reader.getBoolean());
+        } else {
+            field.set(obj, read(reader, field.type, field.elementType));
+        }
+    }
+
+    private List<Object> readList(JsonReader reader, Class<?> elementType) throws Exception {
+        List<Object> list = new ArrayList<>();
+        while (reader.nextEvent() != JsonReader.Event.END_ARRAY) {
+            list.add(read(reader, elementType, null));
+        }
+        return list;
+    }
+
+    // массивы int[], long[] и double[] собираются без упаковки элементов
+    private Object readArray(JsonReader reader, Class<?> componentType) throws Exception {
+        if (componentType == int.class) {
+            int[] values = new int[16];
+            int size = 0;
+            while (nextElement(reader)) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                values[size++] = (int) reader.getLong();
+            }
+            return Arrays.copyOf(values, size);
+        } else if (componentType == long.class) {
+            long[] values = new long[16];
+            int size = 0;
+            while (nextElement(reader)) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                values[size++] = reader.getLong();
+            }
+            return Arrays.copyOf(values, size);
+        } else if (componentType == double.class) {
+            double[] values = new double[16];
+            int size = 0;
+            while (nextElement(reader)) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                values[size++] = reader.getDouble();
+            }
+            return Arrays.copyOf(values, size);
+        }
+        List<Object> items = readList(reader, componentType);
+        Object array = Array.newInstance(componentType, items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Array.set(array, i, items.get(i));
+        }
+        return array;
+    }
+
+    // следующий элемент числового массива; false на ']'
+    private static boolean nextElement(JsonReader reader) throws Exception {
+        JsonReader.Event event = reader.nextEvent();
+        if (event == JsonReader.Event.END_ARRAY) {
+            return false;
+        }
+        if (event != JsonReader.Event.VALUE_NUMBER) {
+            throw new IllegalArgumentException("Cannot assign " + event + " to numeric array element");
+        }
+        return true;
+    }
+
+    private Object convertValueToFieldType(Object value, Class<?> fieldType, Class<?> elementType) throws Exception {
         if (fieldType.isInstance(value)) {
             return value; // типы совпадают
         }
 
         if (value instanceof Map<?, ?> && !Map.class.isAssignableFrom(fieldType)) {
             // рекурсивное преобразование для вложенных объектов
-            return mapToObject((Map<String, Object>) value, fieldType);
+            return bindMap((Map<String, Object>) value, fieldType);
         } else if (value instanceof List<?> && List.class.isAssignableFrom(fieldType)) {
             // специальная обработка для полей типа List
-            return convertList((List<?>) value, field);
+            return convertList((List<?>) value, elementType);
         } else if (value instanceof Number) {
             //преобразование числовых типов, если значение - число
             return convertNumber((Number) value, fieldType);
@@ -49,21 +237,15 @@ public class ObjectMapper {
         throw new IllegalArgumentException("Cannot assign value of type " + value.getClass() + " to field of type " + fieldType);
     }
 
-    private List<Object> convertList(List<?> originalList, Field field) throws Exception {
-        List<Object> newList = new ArrayList<>();
-        Class<?> genericType = getGenericType(field);
+    private List<Object> convertList(List<?> originalList, Class<?> elementType) throws Exception {
+        List<Object> newList = new ArrayList<>(originalList.size());
         for (Object item : originalList) {
-            newList.add(convertValueToFieldType(item, genericType, field));
+            newList.add(item == null ? null : convertValueToFieldType(item, elementType, null));
         }
         return newList;
     }
 
-    private Class<?> getGenericType(Field field) {
-        ParameterizedType listType = (ParameterizedType) field.getGenericType();
-        return (Class<?>) listType.getActualTypeArguments()[0];
-    }
-
-    private Object convertNumber(Number number, Class<?> fieldType) {
+    static Object convertNumber(Number number, Class<?> fieldType) {
         if (fieldType == int.class || fieldType == Integer.class) {
             return number.intValue();
         } else if (fieldType == double.class || fieldType == Double.class) {
@@ -76,6 +258,10 @@ public class ObjectMapper {
             return number.shortValue();
         } else if (fieldType == byte.class || fieldType == Byte.class) {
             return number.byteValue();
+        } else if (fieldType == BigInteger.class) {
+            return number instanceof BigDecimal decimal ? decimal.toBigInteger() : new BigInteger(number.toString());
+        } else if (fieldType == BigDecimal.class) {
+            return new BigDecimal(number.toString());
         }
         return number;
     }
@@ -0,0 +1,154 @@
+package com.Nezdanchik.spbpu;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+// источник токенов поверх готового дерева из Map/List (результат JsonParser.parse()): кодеки читают его
+// через JsonReader без повторной сериализации, числа отдаются как есть (BigDecimal, JsonLazyNumber)
+class TreeTokenSource implements JsonTokenSource {
+    private final Object root;
+    // открытые контейнеры: итератор по элементам (Map.Entry для объектов) и нужен ли разделитель
+    private final ArrayDeque<Level> levels = new ArrayDeque<>();
+    private boolean started;
+    private Object pending;          // значение поля после ':'
+    private boolean colon;           // ключ выдан, следующий токен — ':'
+    private boolean hasPending;
+
+    private String text;
+    private Number number;
+    private JsonToken peeked;
+
+    TreeTokenSource(Object root) {
+        this.root = root;
+    }
+
+    private static final class Level {
+        final Iterator<?> items;
+        final boolean object;
+        boolean separator;
+
+        Level(Iterator<?> items, boolean object) {
+            this.items = items;
+            this.object = object;
+        }
+    }
+
+    @Override
+    public JsonToken nextToken() {
+        if (peeked != null) {
+            JsonToken token = peeked;
+            peeked = null;
+            return token;
+        }
+        JsonToken.Type next = advance();
+        return next == null ? null : new JsonToken(next, text());
+    }
+
+    @Override
+    public JsonToken peek() {
+        if (peeked == null) {
+            JsonToken.Type next = advance();
+            peeked = next == null ? null : new JsonToken(next, text());
+        }
+        return peeked;
+    }
+
+    @Override
+    public void reset() {
+        levels.clear();
+        started = false;
+        pending = null;
+        colon = false;
+        hasPending = false;
+        text = null;
+        number = null;
+        peeked = null;
+    }
+
+    @Override
+    public JsonToken.Type next() {
+        if (peeked != null) {
+            JsonToken.Type type = peeked.type();
+            text = peeked.value();
+            number = null;  // после peek() число известно только текстом
+            peeked = null;
+            return type;
+        }
+        return advance();
+    }
+
+    private JsonToken.Type advance() {
+        text = null;
+        number = null;
+        if (colon) {
+            colon = false;
+            hasPending = true;
+            return JsonToken.Type.Colon;
+        }
+        if (hasPending) {
+            hasPending = false;
+            Object value = pending;
+            pending = null;
+            return value(value);
+        }
+        if (!started) {
+            started = true;
+            return value(root);
+        }
+        Level level = levels.peek();
+        if (level == null) {
+            return null;
+        }
+        if (!level.items.hasNext()) {
+            levels.pop();
+            return level.object ? JsonToken.Type.BracketObjectRight : JsonToken.Type.BracketArrayRight;
+        }
+        if (level.separator) {
+            level.separator = false;
+            return JsonToken.Type.Comma;
+        }
+        level.separator = true;
+        Object item = level.items.next();
+        if (level.object) {
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) item;
+            text = String.valueOf(entry.getKey());
+            pending = entry.getValue();
+            colon = true;
+            return JsonToken.Type.String;
+        }
+        return value(item);
+    }
+
+    private JsonToken.Type value(Object value) {
+        if (value == null) {
+            return JsonToken.Type.Null;
+        } else if (value instanceof Boolean flag) {
+            return flag ? JsonToken.Type.True : JsonToken.Type.False;
+        } else if (value instanceof Number n) {
+            number = n;
+            return JsonToken.Type.Number;
+        } else if (value instanceof CharSequence || value instanceof Character) {
+            text = value.toString();
+            return JsonToken.Type.String;
+        } else if (value instanceof Map<?, ?> map) {
+            levels.push(new Level(map.entrySet().iterator(), true));
+            return JsonToken.Type.BracketObjectLeft;
+        } else if (value instanceof List<?> list) {
+            levels.push(new Level(list.iterator(), false));
+            return JsonToken.Type.BracketArrayLeft;
+        }
+        throw new IllegalArgumentException("Cannot read value of type " + value.getClass().getName() + " as JSON");
+    }
+
+    @Override
+    public String text() {
+        return number != null ? number.toString() : text;
+    }
+
+    @Override
+    public Number number() {
+        return number != null ? number : JsonNumbers.parse(text);
+    }
+}
@@ -0,0 +1,107 @@
+package com.Nezdanchik.spbpu.processor;
+
+import javax.lang.model.type.TypeKind;
+import java.util.List;
+
+// исходный текст сгенерированного кодека: чтение — switch по имени поля, запись — поля подряд
+final class CodecSource {
+    private CodecSource() {
+    }
+
+    static String render(String packageName, String codecName, String target, List<JsonCodecProcessor.CodecField> fields) {
+        StringBuilder out = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            out.append("package ").append(packageName).append(";\n\n");
+        }
+        out.append("import com.Nezdanchik.spbpu.JsonCodecs;\n")
+                .append("import com.Nezdanchik.spbpu.JsonReader;\n")
+                .append("import com.Nezdanchik.spbpu.JsonTypeCodec;\n")
+                .append("import com.Nezdanchik.spbpu.JsonWriter;\n")
+                .append("import java.io.IOException;\n\n")
+                .append("// создано JsonCodecProcessor для ").append(target).append(", не редактировать\n")
+                .append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+                .append("public final class ").append(codecName).append(" implements JsonTypeCodec<").append(target).append("> {\n\n");
+
+        out.append("    @Override\n")
+                .append("    public Class<").append(target).append("> type() {\n")
+                .append("        return ").append(target).append(".class;\n")
+                .append("    }\n\n");
+
+        out.append("    @Override\n")
+                .append("    public ").append(target).append(" read(JsonReader reader) throws IOException {\n")
+                .append("        ").append(target).append(" value = new ").append(target).append("();\n")
+                .append("        while (reader.nextEvent() == JsonReader.Event.FIELD_NAME) {\n")
+                .append("            String name = reader.getText();\n")
+                .append("            if (reader.nextEvent() == JsonReader.Event.VALUE_NULL) {\n")
+                .append("                continue;\n")
+                .append("            }\n")
+                .append("            switch (name) {\n");
+        for (JsonCodecProcessor.CodecField field : fields) {
+            if (field.setter == null) {
+                continue;  // final-поле только пишется
+            }
+            out.append("                case \"").append(field.name).append("\":\n")
+                    .append("                    ").append(String.format(field.setter, readExpression(field))).append(";\n")
+                    .append("                    break;\n");
+        }
+        out.append("                default:\n")
+                .append("                    reader.skipChildren();\n")
+                .append("            }\n")
+                .append("        }\n")
+                .append("        return value;\n")
+                .append("    }\n\n");
+
+        out.append("    @Override\n")
+                .append("    public void write(").append(target).append(" value, JsonWriter writer) throws IOException {\n")
+                .append("        writer.beginObject();\n");
+        for (JsonCodecProcessor.CodecField field : fields) {
+            out.append("        if (writer.includes(").append(field.isTransient).append(", ").append(field.isPublic).append(")) {\n");
+            if (field.type.getKind().isPrimitive()) {
+                String argument = field.type.getKind() == TypeKind.CHAR ? "(Object) " + field.getter : field.getter;
+                out.append("            writer.name(\"").append(field.name).append("\");\n")
+                        .append("            writer.value(").append(argument).append(");\n");
+            } else {
+                String localType = field.rawType.equals("java.lang.String") ? "String" : "Object";
+                out.append("            ").append(localType).append(" v = ").append(field.getter).append(";\n")
+                        .append("            if (v != null || !writer.isSkipNulls()) {\n")
+                        .append("                writer.name(\"").append(field.name).append("\");\n")
+                        .append("                writer.value(v);\n")
+                        .append("            }\n");
+            }
+            out.append("        }\n");
+        }
+        out.append("        writer.endObject();\n")
+                .append("    }\n")
+                .append("}\n");
+        return out.toString();
+    }
+
+    // выражение, читающее значение поля из reader, который стоит на событии значения
+    private static String readExpression(JsonCodecProcessor.CodecField field) {
+        switch (field.type.getKind()) {
+            case INT:
+                return "(int) JsonCodecs.readLong(reader)";
+            case LONG:
+                return "JsonCodecs.readLong(reader)";
+            case SHORT:
+                return "(short) JsonCodecs.readLong(reader)";
+            case BYTE:
+                return "(byte) JsonCodecs.readLong(reader)";
+            case DOUBLE:
+                return "JsonCodecs.readDouble(reader)";
+            case FLOAT:
+                return "(float) JsonCodecs.readDouble(reader)";
+            case BOOLEAN:
+                return "JsonCodecs.readBoolean(reader)";
+            case CHAR:
+                return "JsonCodecs.readChar(reader)";
+            default:
+                if (field.rawType.equals("java.lang.String")) {
+                    return "JsonCodecs.readString(reader)";
+                }
+                String cast = field.type.getKind() == TypeKind.TYPEVAR ? field.rawType : field.typeName;
+                String elementType = field.elementType == null ? "null" : field.elementType + ".class";
+                return "(" + cast + ") JsonCodecs.readValue(reader, " + field.rawType + ".class, " + elementType + ")";
+        }
+    }
+}
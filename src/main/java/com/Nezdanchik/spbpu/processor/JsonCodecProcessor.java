@@ -0,0 +1,265 @@
+package com.Nezdanchik.spbpu.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// создаёт для классов с @JsonCodec реализации JsonTypeCodec (<Класс>_JsonCodec в том же пакете)
+// и регистрирует их в META-INF/services. Подключается явно: -processor или annotationProcessorPaths
+@SupportedAnnotationTypes(JsonCodecProcessor.ANNOTATION)
+public class JsonCodecProcessor extends AbstractProcessor {
+    static final String ANNOTATION = "com.Nezdanchik.spbpu.JsonCodec";
+    private static final String SERVICE_FILE = "META-INF/services/com.Nezdanchik.spbpu.JsonTypeCodec";
+
+    private final List<String> generated = new ArrayList<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : round.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    error(element, "@JsonCodec can only be applied to classes");
+                    continue;
+                }
+                generate((TypeElement) element);
+            }
+        }
+        if (round.processingOver() && !generated.isEmpty()) {
+            writeServiceFile();
+        }
+        return true;
+    }
+
+    private void generate(TypeElement type) {
+        if (!checkAccessible(type)) {
+            return;
+        }
+        List<CodecField> fields = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            if (field.getModifiers().contains(Modifier.STATIC)) {
+                continue;
+            }
+            CodecField codecField = CodecField.of(field, type, processingEnv);
+            if (codecField == null) {
+                error(field, "Field must not be private or needs non-private get/set methods for @JsonCodec");
+                return;
+            }
+            TypeElement nested = nestedBean(field.asType());
+            if (nested != null && !hasCodec(nested)) {
+                // иначе вложенный класс читался бы через рефлексию, и кодек терял бы смысл
+                error(field, "Field type " + nested.getQualifiedName() + " must also be annotated with @JsonCodec");
+                return;
+            }
+            fields.add(codecField);
+        }
+
+        String packageName = packageOf(type);
+        String codecName = codecName(type, packageName);
+        String qualifiedCodec = packageName.isEmpty() ? codecName : packageName + "." + codecName;
+        try {
+            try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedCodec, type).openWriter()) {
+                writer.write(CodecSource.render(packageName, codecName, type.getQualifiedName().toString(), fields));
+            }
+            generated.add(qualifiedCodec);
+        } catch (IOException e) {
+            error(type, "Cannot write " + qualifiedCodec + ": " + e.getMessage());
+        }
+    }
+
+    // класс должен быть доступен из своего пакета и создаваться конструктором без аргументов
+    private boolean checkAccessible(TypeElement type) {
+        for (Element e = type; e.getKind() != ElementKind.PACKAGE; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE)) {
+                error(type, "@JsonCodec class must not be private");
+                return false;
+            }
+        }
+        if (type.getNestingKind().isNested() && !type.getModifiers().contains(Modifier.STATIC)) {
+            error(type, "@JsonCodec nested class must be static");
+            return false;
+        }
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            error(type, "@JsonCodec class must not be abstract");
+            return false;
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        error(type, "@JsonCodec class needs a non-private no-argument constructor");
+        return false;
+    }
+
+    // класс, который поле хранит само, в массиве или в List<T>, если он читается по полям
+    // (как ObjectMapper.isBean); null для строк, чисел, коллекций и прочих значений
+    private TypeElement nestedBean(TypeMirror type) {
+        Types types = processingEnv.getTypeUtils();
+        while (type.getKind() == TypeKind.ARRAY) {
+            type = ((ArrayType) type).getComponentType();
+        }
+        if (!(type instanceof DeclaredType declared)) {
+            return null;
+        }
+        if (isA(type, "java.util.List") && declared.getTypeArguments().size() == 1) {
+            return nestedBean(declared.getTypeArguments().get(0));
+        }
+        TypeElement element = (TypeElement) types.asElement(type);
+        if (element.getKind() != ElementKind.CLASS || isA(type, "java.util.Map") || isA(type, "java.util.Collection")
+                || isA(type, "java.lang.CharSequence") || isA(type, "java.lang.Number")) {
+            return null;
+        }
+        String name = element.getQualifiedName().toString();
+        return name.equals("java.lang.Object") || name.equals("java.lang.Boolean") || name.equals("java.lang.Character")
+                ? null : element;
+    }
+
+    private boolean isA(TypeMirror type, String className) {
+        Types types = processingEnv.getTypeUtils();
+        TypeElement target = processingEnv.getElementUtils().getTypeElement(className);
+        return target != null && types.isAssignable(types.erasure(type), types.erasure(target.asType()));
+    }
+
+    private static boolean hasCodec(TypeElement type) {
+        for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(ANNOTATION)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeServiceFile() {
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (Writer writer = file.openWriter()) {
+                for (String codec : generated) {
+                    writer.write(codec);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot write " + SERVICE_FILE + ": " + e);
+        }
+    }
+
+    private static String packageOf(TypeElement type) {
+        Element e = type;
+        while (!(e instanceof PackageElement)) {
+            e = e.getEnclosingElement();
+        }
+        return ((PackageElement) e).getQualifiedName().toString();
+    }
+
+    // Outer.Inner -> Outer_Inner_JsonCodec
+    private static String codecName(TypeElement type, String packageName) {
+        String name = type.getQualifiedName().toString();
+        if (!packageName.isEmpty()) {
+            name = name.substring(packageName.length() + 1);
+        }
+        return name.replace('.', '_') + "_JsonCodec";
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    // поле в сгенерированном коде: как прочитать и записать его значение
+    static final class CodecField {
+        final String name;
+        final TypeMirror type;
+        final String typeName;          // тип в исходнике, с параметрами
+        final String rawType;           // стёртый тип для литерала класса
+        final String elementType;       // для List<T> — стёртый T, иначе null
+        final String getter;            // выражение чтения из value
+        final String setter;            // шаблон записи в value, %s — значение; null для final-полей
+        final boolean isTransient;
+        final boolean isPublic;
+
+        private CodecField(String name, TypeMirror type, String typeName, String rawType, String elementType,
+                           String getter, String setter, boolean isTransient, boolean isPublic) {
+            this.name = name;
+            this.type = type;
+            this.typeName = typeName;
+            this.rawType = rawType;
+            this.elementType = elementType;
+            this.getter = getter;
+            this.setter = setter;
+            this.isTransient = isTransient;
+            this.isPublic = isPublic;
+        }
+
+        static CodecField of(VariableElement field, TypeElement owner,
+                             ProcessingEnvironment env) {
+            String name = field.getSimpleName().toString();
+            TypeMirror type = field.asType();
+            Set<Modifier> modifiers = field.getModifiers();
+            String getter;
+            String setter;
+            if (!modifiers.contains(Modifier.PRIVATE)) {
+                getter = "value." + name;
+                setter = modifiers.contains(Modifier.FINAL) ? null : "value." + name + " = %s";
+            } else {
+                String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+                String getterName = accessor(owner, type.getKind() == TypeKind.BOOLEAN ? "is" + suffix : "get" + suffix, 0);
+                if (getterName == null) {
+                    getterName = accessor(owner, "get" + suffix, 0);
+                }
+                String setterName = accessor(owner, "set" + suffix, 1);
+                if (getterName == null || (setterName == null && !modifiers.contains(Modifier.FINAL))) {
+                    return null;
+                }
+                getter = "value." + getterName + "()";
+                setter = setterName == null ? null : "value." + setterName + "(%s)";
+            }
+            String rawType = env.getTypeUtils().erasure(type).toString();
+            String elementType = null;
+            if (type instanceof DeclaredType declared && !declared.getTypeArguments().isEmpty()
+                    && rawType.equals("java.util.List")) {
+                elementType = env.getTypeUtils().erasure(declared.getTypeArguments().get(0)).toString();
+            }
+            return new CodecField(name, type, type.toString(), rawType, elementType, getter, setter,
+                    modifiers.contains(Modifier.TRANSIENT), modifiers.contains(Modifier.PUBLIC));
+        }
+
+        private static String accessor(TypeElement owner, String name, int parameters) {
+            for (ExecutableElement method : ElementFilter.methodsIn(owner.getEnclosedElements())) {
+                if (method.getSimpleName().contentEquals(name) && method.getParameters().size() == parameters
+                        && !method.getModifiers().contains(Modifier.PRIVATE)
+                        && !method.getModifiers().contains(Modifier.STATIC)) {
+                    return name;
+                }
+            }
+            return null;
+        }
+    }
+}
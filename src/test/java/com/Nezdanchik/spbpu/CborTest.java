@@ -0,0 +1,172 @@
+package com.Nezdanchik.spbpu;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CborTest {
+
+    public static class Sample {
+        public String name;
+        public int count;
+        public long big;
+        public double ratio;
+        public float small;
+        public boolean flag;
+        public int[] ints;
+        public long[] longs;
+        public double[] doubles;
+        public float[] floats;
+        public List<String> tags;
+        public Sample child;
+    }
+
+    private static Object parse(byte[] cbor) throws Exception {
+        return new JsonParser(new CborTokenSource(cbor)).parse();
+    }
+
+    private static Object cbor(String hex) throws Exception {
+        return parse(HexFormat.of().parseHex(hex));
+    }
+
+    @Test
+    public void testSameTreeAsJson() throws Exception {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("text", "юникод \"q\" 😀");
+        value.put("ints", new int[]{0, -1, 23, 24, 255, 256, 65536, Integer.MIN_VALUE});
+        value.put("longs", new long[]{1L << 40, Long.MAX_VALUE, Long.MIN_VALUE});
+        value.put("doubles", new double[]{0.1, -2.5e300});
+        value.put("floats", new float[]{0.1f, 1.5f});
+        value.put("bytes", new byte[]{-1, 0, 127});
+        value.put("list", List.of(true, false, "x", 1.25, 12345678901L));
+        value.put("nothing", null);
+        value.put("big", new BigInteger("123456789012345678901234567890"));
+        value.put("negative", new BigInteger("-123456789012345678901234567890"));
+        value.put("decimal", new BigDecimal("12.375"));
+        value.put("nested", Map.of("a", List.of(Map.of(), List.of())));
+
+        Object expected = new JsonParser(new JsonSerializer().toJson(value)).parse();
+        byte[] bytes = new CborSerializer().toCbor(value);
+        assertEquals(expected, parse(bytes));
+        // direct-буфер и смещение внутри массива
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+        assertEquals(expected, new JsonParser(new CborTokenSource(direct)).parse());
+        byte[] framed = new byte[bytes.length + 4];
+        System.arraycopy(bytes, 0, framed, 2, bytes.length);
+        assertEquals(expected, new JsonParser(new CborTokenSource(framed, 2, bytes.length)).parse());
+    }
+
+    @Test
+    public void testBindingRoundTrip() throws Exception {
+        Sample sample = new Sample();
+        sample.name = "root";
+        sample.count = -7;
+        sample.big = 1L << 50;
+        sample.ratio = 0.3;
+        sample.small = 0.7f;
+        sample.flag = true;
+        sample.ints = new int[]{1, 2, 3};
+        sample.longs = new long[]{-1, Long.MAX_VALUE};
+        sample.doubles = new double[]{1.5, -0.25};
+        sample.floats = new float[]{0.1f};
+        sample.tags = List.of("a", "b");
+        sample.child = new Sample();
+        sample.child.name = "child";
+
+        byte[] bytes = new CborSerializer().toCbor(sample);
+        Sample copy = new JsonParser(new CborTokenSource(bytes)).parse(Sample.class);
+        assertEquals("root", copy.name);
+        assertEquals(-7, copy.count);
+        assertEquals(1L << 50, copy.big);
+        assertEquals(0.3, copy.ratio);
+        assertEquals(0.7f, copy.small);
+        assertTrue(copy.flag);
+        assertArrayEquals(new int[]{1, 2, 3}, copy.ints);
+        assertArrayEquals(new long[]{-1, Long.MAX_VALUE}, copy.longs);
+        assertArrayEquals(new double[]{1.5, -0.25}, copy.doubles);
+        assertArrayEquals(new float[]{0.1f}, copy.floats);
+        assertEquals(List.of("a", "b"), copy.tags);
+        assertEquals("child", copy.child.name);
+        assertNull(copy.child.ints);
+
+        // пропуск null даёт отображение неопределённой длины
+        byte[] skipped = new CborSerializer(JsonSerializerOptions.compact().withSkipNulls(true)).toCbor(sample.child);
+        assertEquals(0xbf, skipped[0] & 0xFF);
+        Map<?, ?> map = (Map<?, ?>) parse(skipped);
+        assertEquals("child", map.get("name"));
+        assertFalse(map.containsKey("ints"));
+
+        // классы со сгенерированным кодеком пишутся через JsonWriter и читаются через JsonReader
+        JsonCodecTest.Order order = new JsonCodecTest.Order();
+        order.id = 42;
+        order.total = 99.5;
+        order.codes = new int[]{7, 8};
+        order.items = List.of(new JsonCodecTest.Item("pen", 3));
+        order.setStatus("new");
+        JsonCodecTest.Order read = new JsonParser(new CborTokenSource(new CborSerializer().toCbor(order)))
+                .parse(JsonCodecTest.Order.class);
+        assertEquals(42, read.id);
+        assertEquals(99.5, read.total);
+        assertArrayEquals(new int[]{7, 8}, read.codes);
+        assertEquals("pen", read.items.get(0).title);
+        assertEquals("new", read.getStatus());
+    }
+
+    @Test
+    public void testRfcExamples() throws Exception {
+        // примеры из приложения A RFC 8949 и RFC 8746
+        assertEquals(0, cbor("00"));
+        assertEquals(1000000, cbor("1a000f4240"));
+        assertEquals(1000000000000L, cbor("1b000000e8d4a51000"));
+        assertEquals(new BigInteger("18446744073709551615"), cbor("1bffffffffffffffff"));
+        assertEquals(new BigInteger("18446744073709551616"), cbor("c249010000000000000000"));
+        assertEquals(new BigInteger("-18446744073709551617"), cbor("c349010000000000000000"));
+        assertEquals(-1000, cbor("3903e7"));
+        assertEquals(1.5, cbor("f93e00"));
+        assertEquals(65504.0, cbor("f97bff"));
+        assertEquals(100000.0, cbor("fa47c35000"));
+        assertEquals(1.1, cbor("fb3ff199999999999a"));
+        assertEquals(273.15, cbor("c48221196ab3"));
+        assertNull(cbor("f7"));
+        assertEquals("ü", cbor("62c3bc"));
+        assertEquals("streaming", cbor("7f657374726561646d696e67ff"));
+        assertEquals(List.of(1, List.of(2, 3), List.of(4, 5)), cbor("9f01820203820405ff"));
+        assertEquals(Map.of("a", 1, "b", List.of(2, 3)), cbor("a26161016162820203"));
+        assertEquals(Map.of("Fun", true, "Amt", -2), cbor("bf6346756ef563416d7421ff"));
+        assertEquals("2013-03-21T20:04:00Z", cbor("c074323031332d30332d32315432303a30343a30305a"));
+        assertEquals(List.of(1, 2, 3, 4), cbor("4401020304"));
+        // uint16 big-endian и float32 little-endian
+        assertEquals(List.of(1, 65535), cbor("d84144" + "0001ffff"));
+        assertEquals(List.of(1.5), cbor("d85544" + "0000c03f"));
+    }
+
+    @Test
+    public void testReaderAndErrors() throws Exception {
+        JsonReader reader = new JsonReader(new CborTokenSource(HexFormat.of().parseHex("a2616101616282f5f6")));
+        List<JsonReader.Event> events = new ArrayList<>();
+        for (JsonReader.Event event = reader.nextEvent(); event != null; event = reader.nextEvent()) {
+            events.add(event);
+        }
+        assertEquals(Arrays.asList(JsonReader.Event.START_OBJECT, JsonReader.Event.FIELD_NAME, JsonReader.Event.VALUE_NUMBER,
+                JsonReader.Event.FIELD_NAME, JsonReader.Event.START_ARRAY, JsonReader.Event.VALUE_TRUE,
+                JsonReader.Event.VALUE_NULL, JsonReader.Event.END_ARRAY, JsonReader.Event.END_OBJECT), events);
+
+        assertThrows(IllegalArgumentException.class, () -> cbor("a10102"));      // ключ не строка
+        assertThrows(IllegalArgumentException.class, () -> cbor("830102"));      // обрезанный массив
+        assertThrows(IllegalArgumentException.class, () -> cbor("6361"));        // обрезанная строка
+        assertThrows(IllegalArgumentException.class, () -> cbor("bf6161ff"));    // ключ без значения
+        assertThrows(IllegalArgumentException.class, () -> cbor("1c"));          // зарезервированный заголовок
+        assertThrows(IllegalArgumentException.class, () -> cbor("d84e43010203")); // длина не кратна 4
+        assertThrows(IllegalArgumentException.class, () -> cbor("c4823a7fffffff01")); // порядок -2^31 не помещается в scale
+    }
+}
@@ -0,0 +1,168 @@
+package com.Nezdanchik.spbpu;
+
+import org.junit.jupiter.api.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonCodecTest {
+
+    @JsonCodec
+    public static class Item {
+        String title;
+        int count;
+
+        public Item() {
+        }
+
+        Item(String title, int count) {
+            this.title = title;
+            this.count = count;
+        }
+    }
+
+    @JsonCodec
+    public static class Order {
+        long id;
+        double total;
+        float discount;
+        boolean paid;
+        Integer priority;
+        int[] codes;
+        List<Item> items;
+        Map<String, Object> meta;
+        transient String note;
+        private String status;  // закрытое поле доступно через get/set
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+    }
+
+    @JsonCodec
+    public static class Grade {
+        char mark;
+        Character letter;
+    }
+
+    // тот же набор полей без @JsonCodec, сериализуется через рефлексию
+    public static class PlainItem {
+        String title;
+        int count;
+    }
+
+    @Test
+    public void testCodecsAreRegistered() {
+        assertNotNull(JsonCodecs.find(Order.class));
+        assertNotNull(JsonCodecs.find(Item.class));
+        assertNull(JsonCodecs.find(PlainItem.class));
+    }
+
+    @Test
+    public void testReadWithGeneratedCodec() throws Exception {
+        String json = "{\"id\": 7, \"total\": 12.5, \"discount\": 0.5, \"paid\": true, \"priority\": 3,"
+                + " \"codes\": [1, 2], \"items\": [{\"title\": \"a\", \"count\": 2}], \"meta\": {\"k\": null},"
+                + " \"status\": \"new\", \"unknown\": [1, {\"x\": 2}], \"note\": null}";
+        Order order = new JsonParser(json).parse(Order.class);
+        assertEquals(7L, order.id);
+        assertEquals(12.5, order.total);
+        assertEquals(0.5f, order.discount);
+        assertTrue(order.paid);
+        assertEquals(3, order.priority);
+        assertArrayEquals(new int[]{1, 2}, order.codes);
+        assertEquals("a", order.items.get(0).title);
+        assertEquals(2, order.items.get(0).count);
+        assertTrue(order.meta.containsKey("k"));
+        assertEquals("new", order.getStatus());
+        assertThrows(IllegalArgumentException.class, () -> new JsonParser("{\"id\": \"x\"}").parse(Order.class));
+    }
+
+    @Test
+    public void testCharFields() throws Exception {
+        Grade grade = new Grade();
+        grade.mark = 'A';
+        grade.letter = 'я';
+        String json = new JsonSerializer().toJson(grade);
+        assertEquals("{\"mark\":\"A\",\"letter\":\"я\"}", json);
+        Grade read = new JsonParser(json).parse(Grade.class);
+        assertEquals('A', read.mark);
+        assertEquals('я', read.letter);
+        assertThrows(IllegalArgumentException.class, () -> new JsonParser("{\"mark\": \"AB\"}").parse(Grade.class));
+        assertThrows(IllegalArgumentException.class, () -> new JsonParser("{\"mark\": \"\"}").parse(Grade.class));
+    }
+
+    @Test
+    public void testMapBindingUsesCodec() throws Exception {
+        // привязка из дерева тоже идёт через кодек, в том числе для вложенных классов
+        Map<String, Object> item = Map.of("title", "a", "count", 2);
+        Order order = new ObjectMapper().mapToObject(Map.of("id", 5, "status", "new", "items", List.of(item)), Order.class);
+        assertEquals(5L, order.id);
+        assertEquals("new", order.getStatus());
+        assertEquals(2, order.items.get(0).count);
+        assertEquals('Z', new ObjectMapper().mapToObject(Map.of("mark", "Z"), Grade.class).mark);
+
+        // кодек идёт по самому дереву: числа приходят в исходном виде, без обратного перевода в JSON
+        Object tree = new JsonParser("{\"total\": 1e400, \"codes\": [1, 12345678901234567890], \"meta\": {\"x\": [null, true]}}").parse();
+        JsonReader reader = new JsonReader(new TreeTokenSource(tree));
+        reader.nextEvent();
+        assertEquals(tree, reader.readValue());
+        assertNull(reader.nextEvent());
+        Order big = new ObjectMapper().mapToObject(Map.of("total", new BigDecimal("12.5"), "meta", Map.of("x", List.of())), Order.class);
+        assertEquals(12.5, big.total);
+        assertEquals(Map.of("x", List.of()), big.meta);
+    }
+
+    @Test
+    public void testWriteWithGeneratedCodec() throws Exception {
+        Order order = new Order();
+        order.id = 1;
+        order.items = List.of(new Item("b\"q", 3));
+        order.note = "skip";
+        order.setStatus("done");
+        String compact = new JsonSerializer().toJson(order);
+        assertEquals("{\"id\":1,\"total\":0.0,\"discount\":0.0,\"paid\":false,\"priority\":null,\"codes\":null,"
+                + "\"items\":[{\"title\":\"b\\\"q\",\"count\":3}],\"meta\":null,\"note\":\"skip\",\"status\":\"done\"}", compact);
+
+        JsonSerializer filtered = new JsonSerializer(JsonSerializerOptions.compact().withSkipNulls(true)
+                .withFieldInclusion(JsonSerializerOptions.FieldInclusion.NON_TRANSIENT));
+        assertFalse(filtered.toJson(order).contains("note"));
+        assertFalse(filtered.toJson(order).contains("null"));
+
+        // форматированный вывод совпадает с выводом через рефлексию
+        PlainItem plain = new PlainItem();
+        plain.title = "x";
+        plain.count = 1;
+        assertEquals(JsonSerializer.serializeToJson(plain), JsonSerializer.serializeToJson(new Item("x", 1)));
+    }
+
+    @Test
+    public void testProcessorRejectsNestedClassWithoutCodec() throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Path dir = Files.createTempDirectory("codec");
+        Path source = dir.resolve("Holder.java");
+        Files.writeString(source, "@com.Nezdanchik.spbpu.JsonCodec public class Holder {\n"
+                + "    public java.util.List<Plain> items;\n"
+                + "    public static class Plain { public int x; }\n"
+                + "}\n");
+        StringWriter output = new StringWriter();
+        boolean compiled = compiler.getTask(output, null, null,
+                List.of("-proc:only", "-processor", "com.Nezdanchik.spbpu.processor.JsonCodecProcessor",
+                        "-cp", System.getProperty("java.class.path"), "-s", dir.toString(), "-d", dir.toString()),
+                null, compiler.getStandardFileManager(null, null, null).getJavaFileObjects(source)).call();
+        // вложенный класс без кодека читался бы через рефлексию: это ошибка компиляции
+        assertFalse(compiled);
+        assertTrue(output.toString().contains("Holder.Plain must also be annotated with @JsonCodec"), output.toString());
+    }
+}
@@ -0,0 +1,132 @@
+package com.Nezdanchik.spbpu;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonFeedParserTest {
+
+    private static final String JSON = "{\"name\":\"caf\\u00e9 \\\"q\\\" юникод 😀\",\"n\":[12345678901,-1.5e3,0],"
+            + "\"ok\":true,\"no\":false,\"none\":null,\"nested\":{\"a\":[{},[]]}}";
+
+    @Test
+    public void testByteByByteFeedMatchesParser() throws Exception {
+        Object expected = new JsonParser(JSON).parse();
+        byte[] bytes = JSON.getBytes(StandardCharsets.UTF_8);
+        // каждый размер куска режет строки, числа, литералы и многобайтовые символы в разных местах
+        for (int chunk = 1; chunk <= bytes.length; chunk++) {
+            JsonFeedParser parser = new JsonFeedParser();
+            byte[] buffer = new byte[chunk];
+            Object value = JsonFeedParser.NEED_MORE_INPUT;
+            for (int offset = 0; value == JsonFeedParser.NEED_MORE_INPUT; offset += chunk) {
+                if (offset >= bytes.length) {
+                    parser.endOfInput();
+                } else {
+                    // один и тот же массив переиспользуется, как буфер чтения из сокета
+                    int length = Math.min(chunk, bytes.length - offset);
+                    System.arraycopy(bytes, offset, buffer, 0, length);
+                    parser.feed(buffer, 0, length);
+                }
+                value = parser.nextValue();
+            }
+            assertEquals(expected, value, "chunk size " + chunk);
+        }
+    }
+
+    @Test
+    public void testEventsAcrossChunks() {
+        JsonFeedParser parser = new JsonFeedParser();
+        assertEquals(JsonFeedParser.Event.NEED_MORE_INPUT, parser.nextEvent());
+        assertTrue(parser.needsInput());
+
+        parser.feed("[\"ab".getBytes(StandardCharsets.UTF_8));
+        assertEquals(JsonFeedParser.Event.START_ARRAY, parser.nextEvent());
+        assertEquals(JsonFeedParser.Event.NEED_MORE_INPUT, parser.nextEvent());
+        parser.feed(ByteBuffer.allocateDirect(8).put("cd\",12".getBytes(StandardCharsets.UTF_8)).flip());
+        assertEquals(JsonFeedParser.Event.VALUE_STRING, parser.nextEvent());
+        assertEquals("abcd", parser.getText());
+        // число может продолжиться в следующем куске
+        assertEquals(JsonFeedParser.Event.NEED_MORE_INPUT, parser.nextEvent());
+        parser.feed(ByteBuffer.wrap("34,tr".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(JsonFeedParser.Event.VALUE_NUMBER, parser.nextEvent());
+        assertEquals(1234L, parser.getLong());
+        assertEquals(JsonFeedParser.Event.NEED_MORE_INPUT, parser.nextEvent());
+        parser.feed("ue]".getBytes(StandardCharsets.UTF_8));
+        assertEquals(JsonFeedParser.Event.VALUE_TRUE, parser.nextEvent());
+        assertEquals(1, parser.getDepth());
+        assertEquals(JsonFeedParser.Event.END_ARRAY, parser.nextEvent());
+        assertEquals(JsonFeedParser.Event.NEED_MORE_INPUT, parser.nextEvent());
+        parser.endOfInput();
+        assertNull(parser.nextEvent());
+    }
+
+    @Test
+    public void testStringAcrossChunksWithOffsets() {
+        // продолжение строки читается с начала куска, а не с нулевого байта массива
+        JsonFeedParser parser = new JsonFeedParser();
+        parser.feed("[\"ab".getBytes(StandardCharsets.UTF_8));
+        assertEquals(JsonFeedParser.Event.START_ARRAY, parser.nextEvent());
+        assertEquals(JsonFeedParser.Event.NEED_MORE_INPUT, parser.nextEvent());
+        parser.feed("XXcd\",\"e".getBytes(StandardCharsets.UTF_8), 2, 6);
+        assertEquals(JsonFeedParser.Event.VALUE_STRING, parser.nextEvent());
+        assertEquals("abcd", parser.getText());
+        assertEquals(JsonFeedParser.Event.NEED_MORE_INPUT, parser.nextEvent());
+
+        // heap-буфер со сдвинутой позицией и срез с ненулевым arrayOffset
+        parser.feed(ByteBuffer.wrap("ZZZfg".getBytes(StandardCharsets.UTF_8)).position(3));
+        assertEquals(JsonFeedParser.Event.NEED_MORE_INPUT, parser.nextEvent());
+        parser.feed(ByteBuffer.wrap("YYhi\"]".getBytes(StandardCharsets.UTF_8)).position(2).slice());
+        assertEquals(JsonFeedParser.Event.VALUE_STRING, parser.nextEvent());
+        assertEquals("efghi", parser.getText());
+        assertEquals(JsonFeedParser.Event.END_ARRAY, parser.nextEvent());
+    }
+
+    @Test
+    public void testMultipleRootValues() {
+        JsonFeedParser parser = new JsonFeedParser();
+        List<Object> values = new ArrayList<>();
+        for (String chunk : new String[]{"{\"id\":1}\n{\"id\"", ":2} 3", " \"x\" [", "]"}) {
+            parser.feed(chunk.getBytes(StandardCharsets.UTF_8));
+            Object value;
+            while ((value = parser.nextValue()) != JsonFeedParser.NEED_MORE_INPUT) {
+                values.add(value);
+            }
+        }
+        parser.endOfInput();
+        assertEquals(JsonFeedParser.END_OF_INPUT, parser.nextValue());
+        assertEquals(List.of(Map.of("id", 1), Map.of("id", 2), 3, "x", List.of()), values);
+    }
+
+    @Test
+    public void testErrors() {
+        assertThrows(IllegalArgumentException.class, () -> feedAll("{\"a\" 1}"));
+        assertThrows(IllegalArgumentException.class, () -> feedAll("[1 2]"));
+        assertThrows(IllegalArgumentException.class, () -> feedAll("[tru]"));
+        assertThrows(IllegalArgumentException.class, () -> feedAll("{\"a\":1]"));
+        assertThrows(IllegalArgumentException.class, () -> feedAll("[\"open"));
+        assertThrows(IllegalArgumentException.class, () -> feedAll("{\"a\":"));
+        assertThrows(IllegalArgumentException.class, () -> feedAll("[\"bad \\x escape\"]"));
+
+        JsonFeedParser parser = new JsonFeedParser();
+        parser.feed("[1,".getBytes(StandardCharsets.UTF_8));
+        // пока кусок не разобран, следующий подать нельзя
+        assertThrows(IllegalStateException.class, () -> parser.feed(new byte[]{'2'}));
+    }
+
+    private static Object feedAll(String json) {
+        JsonFeedParser parser = new JsonFeedParser();
+        parser.feed(json.getBytes(StandardCharsets.UTF_8));
+        parser.endOfInput();
+        Object value;
+        do {
+            value = parser.nextValue();
+        } while (value != JsonFeedParser.END_OF_INPUT);
+        return value;
+    }
+}
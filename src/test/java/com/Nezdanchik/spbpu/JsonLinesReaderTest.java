@@ -0,0 +1,138 @@
+package com.Nezdanchik.spbpu;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class JsonLinesReaderTest {
+
+    public static class Event {
+        public int id;
+        public String kind;
+    }
+
+    private static String lines(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append("{\"id\":").append(i).append(",\"kind\":\"k").append(i % 7).append("\"}");
+            sb.append(i % 5 == 0 ? "\r\n" : "\n");
+            if (i % 11 == 0) {
+                sb.append("   \n");  // пустые строки пропускаются
+            }
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testOrderedAcrossChunks() {
+        byte[] json = lines(2000).getBytes(StandardCharsets.UTF_8);
+        try (Stream<Object> stream = JsonLinesReader.of(json).withChunkSize(100).withParallelism(3).stream()) {
+            List<Object> records = stream.toList();
+            assertEquals(2000, records.size());
+            for (int i = 0; i < records.size(); i++) {
+                assertEquals(i, ((Map<?, ?>) records.get(i)).get("id"));
+            }
+        }
+        // последняя строка без '\n' и единственный кусок
+        assertEquals(List.of(1, List.of(2), "x"), JsonLinesReader.of("1\n[2]\n\"x\"".getBytes(StandardCharsets.UTF_8)).stream().toList());
+        assertEquals(List.of(), JsonLinesReader.of(new byte[0]).stream().toList());
+    }
+
+    @Test
+    public void testUnorderedAndTypedFromFile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("events.ndjson");
+        Files.writeString(file, lines(3000));
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            JsonLinesReader reader = JsonLinesReader.of(file).withChunkSize(512).withOrdered(false).withExecutor(executor);
+            try (Stream<Event> stream = reader.stream(Event.class)) {
+                Set<Integer> ids = stream.map(e -> {
+                    assertEquals("k" + (e.id % 7), e.kind);
+                    return e.id;
+                }).collect(Collectors.toSet());
+                assertEquals(3000, ids.size());
+            }
+        }
+        // direct-буфер, отличный от начала
+        ByteBuffer direct = ByteBuffer.allocateDirect(64);
+        direct.put("junk{\"a\":1}\n{\"a\":2}\n".getBytes(StandardCharsets.UTF_8)).flip().position(4);
+        assertEquals(List.of(Map.of("a", 1), Map.of("a", 2)), JsonLinesReader.of(direct).withChunkSize(3).stream().toList());
+    }
+
+    @Test
+    public void testFileClosedWhenExhausted(@TempDir Path dir) throws Exception {
+        Path fds = Path.of("/proc/self/fd");
+        assumeTrue(Files.isDirectory(fds), "нужен /proc/self/fd");
+        Path file = dir.resolve("small.ndjson");
+        Files.writeString(file, lines(20));
+        long before;
+        try (Stream<Path> open = Files.list(fds)) {
+            before = open.count();
+        }
+        // поток дочитан, но не закрыт: канал файла закрывается сам
+        for (int i = 0; i < 50; i++) {
+            Iterator<Object> it = JsonLinesReader.of(file).stream().iterator();
+            int count = 0;
+            while (it.hasNext()) {
+                it.next();
+                count++;
+            }
+            assertEquals(20, count);
+        }
+        long after;
+        try (Stream<Path> open = Files.list(fds)) {
+            after = open.count();
+        }
+        assertTrue(after - before < 5, "open descriptors: " + before + " -> " + after);
+    }
+
+    @Test
+    public void testBackpressureAndErrors() {
+        byte[] json = lines(1000).getBytes(StandardCharsets.UTF_8);
+        AtomicInteger submitted = new AtomicInteger();
+        JsonLinesReader reader = JsonLinesReader.of(json).withChunkSize(64).withParallelism(2)
+                .withExecutor(task -> {
+                    submitted.incrementAndGet();
+                    task.run();
+                });
+        try (Stream<Object> stream = reader.stream()) {
+            Iterator<Object> it = stream.iterator();
+            it.next();
+            assertTrue(submitted.get() <= 4, "submitted " + submitted.get());
+        }
+
+        byte[] broken = "{\"a\":1}\n{\"a\":}\n{\"a\":3}\n".getBytes(StandardCharsets.UTF_8);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> JsonLinesReader.of(broken).withChunkSize(1).stream().toList());
+        assertTrue(e.getMessage().contains("offset 8"), e.getMessage());
+
+        // в строке ровно одно значение: остаток после него — ошибка, а не отброшенные данные
+        for (String line : List.of("{\"a\":1} {\"b\":2}", "3 garbage", "[1,2]]]")) {
+            byte[] trailing = ("1\n  " + line + "\n2\n").getBytes(StandardCharsets.UTF_8);
+            e = assertThrows(IllegalArgumentException.class, () -> JsonLinesReader.of(trailing).stream().toList(), line);
+            assertTrue(e.getMessage().contains("offset 4"), e.getMessage());
+            assertThrows(IllegalArgumentException.class, () -> JsonLinesReader.of(trailing).stream(Event.class).toList(), line);
+        }
+
+        Set<Object> seen = new HashSet<>();
+        JsonLinesReader.of("[1]\n[2]\n".getBytes(StandardCharsets.UTF_8))
+                .withFactory(new JsonParserFactory().withCompactTree(true)).stream().forEach(seen::add);
+        assertTrue(seen.stream().allMatch(v -> v instanceof JsonArray));
+    }
+}
@@ -0,0 +1,99 @@
+package com.Nezdanchik.spbpu;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonMetricsTest {
+
+    public static class Point {
+        public int x;
+        public int y;
+    }
+
+    @Test
+    public void testParserAndMapperMetrics() throws Exception {
+        JsonMetrics metrics = new JsonMetrics();
+        String json = "{\"a\":[1,[2,{\"b\":null}]],\"c\":\"d\"}";
+        JsonParser parser = new JsonParser(json);
+        parser.setMetrics(metrics);
+        assertEquals(new JsonParser(json).parse(), parser.parse());
+
+        assertEquals(1, metrics.getDocumentsParsed());
+        assertEquals(json.length(), metrics.getBytesParsed());
+        assertEquals(new JsonTokenizer(json).tokenize().size(), metrics.getTokensParsed());
+        assertEquals(4, metrics.getMaxDepth());
+        assertTrue(metrics.getParseTimeNanos() > 0);
+
+        // привязка из потока и из дерева считается по классу верхнего уровня
+        JsonParser bean = new JsonParser("{\"x\":1,\"y\":2}".getBytes(StandardCharsets.UTF_8));
+        bean.setMetrics(metrics);
+        assertEquals(2, bean.parse(Point.class).y);
+        assertEquals(2, metrics.getDocumentsParsed());
+        assertEquals(json.length() + 13, metrics.getBytesParsed());
+        assertEquals(new JsonTokenizer(json).tokenize().size() + 9, metrics.getTokensParsed());
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setMetrics(metrics);
+        mapper.mapToObject(Map.of("x", 3), Point.class);
+        assertEquals(2, metrics.getValuesBound());
+        assertEquals(Map.of(Point.class.getName(), 2L), metrics.getBindCountsByClass());
+
+        metrics.reset();
+        assertEquals(0, metrics.getDocumentsParsed());
+        assertEquals(0, metrics.getMaxDepth());
+        assertEquals(Map.of(), metrics.getBindCountsByClass());
+    }
+
+    @Test
+    public void testFactoryAndSerializerMetrics() throws Exception {
+        JsonMetrics metrics = new JsonMetrics();
+        JsonParserFactory factory = new JsonParserFactory().withMetrics(metrics);
+        factory.parse("[1,2,3]");
+        factory.parse("{\"x\":5}".getBytes(StandardCharsets.UTF_8), Point.class);
+        // привязка к классу — тоже разобранный документ
+        assertEquals(2, metrics.getDocumentsParsed());
+        assertEquals(14, metrics.getBytesParsed());
+        assertEquals(12, metrics.getTokensParsed());
+        assertEquals(1, metrics.getMaxDepth());
+        assertEquals(1, metrics.getValuesBound());
+
+        JsonSerializer serializer = new JsonSerializer(JsonSerializerOptions.compact().withMetrics(metrics));
+        String text = serializer.toJson(List.of(1, "é"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Point point = new Point();
+        serializer.write(point, out);
+        serializer.write(point, new StringBuilder("prefix"));
+        assertEquals(3, metrics.getValuesWritten());
+        assertEquals(text.length() + out.size() + out.size(), metrics.getBytesWritten());
+        assertEquals(2L, metrics.getWriteCountsByClass().get(Point.class.getName()));
+
+        // без метрик ничего не считается
+        new JsonSerializer().toJson(point);
+        assertEquals(3, metrics.getValuesWritten());
+    }
+
+    @Test
+    public void testJmxRegistration() throws Exception {
+        JsonMetrics metrics = new JsonMetrics();
+        ObjectName name = metrics.register("test");
+        try {
+            JsonParser parser = new JsonParser("[[[]]]");
+            parser.setMetrics(metrics);
+            parser.parse();
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(1L, server.getAttribute(name, "DocumentsParsed"));
+            assertEquals(3, server.getAttribute(name, "MaxDepth"));
+            assertThrows(IllegalStateException.class, () -> metrics.register("test"));
+        } finally {
+            metrics.unregister("test");
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.Nezdanchik.spbpu;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonParallelArrayParserTest {
+
+    public static class Item {
+        public long id;
+        public String name;
+        public List<Integer> tags;
+    }
+
+    private static String array(int count) {
+        StringBuilder sb = new StringBuilder("[\n");
+        for (int i = 0; i < count; i++) {
+            sb.append(i > 0 ? ",\n  " : "  ")
+                    .append("{\"id\":").append(i)
+                    .append(",\"name\":\"a,b]}[{\\\"").append(i).append("\\\\\"")
+                    .append(",\"tags\":[").append(i % 3).append(",").append(i).append("]}");
+        }
+        return sb.append("\n]").toString();
+    }
+
+    @Test
+    public void testMatchesSequentialParser() throws Exception {
+        String json = array(3000);
+        Object expected = new JsonParser(json).parse();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<Object> parallel = JsonParallelArrayParser.of(json.getBytes(StandardCharsets.UTF_8))
+                    .withChunkSize(200).withPool(pool).parse();
+            assertEquals(expected, parallel);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(List.of(), JsonParallelArrayParser.of(" [ ] ".getBytes(StandardCharsets.UTF_8)).parse());
+        assertEquals(List.of(1, "x", List.of(), Map.of()), JsonParallelArrayParser.of("[1,\"x\",[],{}]".getBytes(StandardCharsets.UTF_8)).parse());
+        assertInstanceOf(JsonArray.class, JsonParallelArrayParser.of("[1,2]".getBytes(StandardCharsets.UTF_8))
+                .withFactory(new JsonParserFactory().withCompactTree(true)).parse());
+    }
+
+    @Test
+    public void testFileAndBinding(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("export.json");
+        Files.writeString(file, array(500));
+        List<Item> items = JsonParallelArrayParser.of(file).withChunkSize(1000).parse(Item.class);
+        assertEquals(500, items.size());
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals(i, items.get(i).id);
+            assertEquals("a,b]}[{\"" + i + "\\", items.get(i).name);
+            assertEquals(List.of(i % 3, i), items.get(i).tags);
+        }
+        assertEquals(500, JsonParser.parseParallel(file).size());
+    }
+
+    @Test
+    public void testRejectsInvalidArrays() {
+        for (String json : new String[]{"{\"a\":1}", "[1,2", "[1,,2]", "[1,]", "[,1]", "[1 2]", "[1,2] 3", "[{]}", "[1}", "\"[1]\""}) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> JsonParallelArrayParser.of(json.getBytes(StandardCharsets.UTF_8)).withChunkSize(1).parse(), json);
+        }
+        assertThrows(IllegalStateException.class, () -> JsonParallelArrayParser.of(new byte[0]).parse());
+    }
+}
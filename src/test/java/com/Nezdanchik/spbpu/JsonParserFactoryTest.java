@@ -0,0 +1,126 @@
+package com.Nezdanchik.spbpu;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonParserFactoryTest {
+
+    public static class Point {
+        public int x;
+        public long y;
+        public String name;
+    }
+
+    @Test
+    public void testReuseBetweenDocuments() throws Exception {
+        JsonParserFactory factory = new JsonParserFactory().withPoolSize(1);
+
+        // длинный документ, затем короткий: остатки буфера не должны попасть во второй разбор
+        StringBuilder longJson = new StringBuilder("[");
+        for (int i = 0; i < 5000; i++) {
+            longJson.append(i > 0 ? "," : "").append("{\"id\":").append(i).append(",\"tag\":\"t").append(i).append("\"}");
+        }
+        longJson.append("]");
+        List<?> list = (List<?>) factory.parse(longJson.toString());
+        assertEquals(5000, list.size());
+        assertEquals(4999, ((Map<?, ?>) list.get(4999)).get("id"));
+
+        assertEquals(Map.of("a", 1), factory.parse("{\"a\":1}"));
+        assertEquals(Map.of("a", "b"), factory.parse("{\"a\":\"b\"}".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(7, factory.parse("7"));
+
+        // ошибка не портит состояние, которое вернётся в пул
+        assertThrows(IllegalArgumentException.class, () -> factory.parse("{\"a\":[1,2,}"));
+        assertEquals(List.of(1, 2), factory.parse("[1,2]"));
+
+        // как и JsonParser, фабрика читает первое значение документа
+        assertEquals(1, factory.parse("1 2"));
+        assertEquals(1, factory.parse("{\"x\":1} {}", Point.class).x);
+
+        byte[] framed = "xx{\"k\":true}yy".getBytes(StandardCharsets.UTF_8);
+        assertEquals(Map.of("k", true), factory.parse(framed, 2, framed.length - 4));
+    }
+
+    @Test
+    public void testPoolDoesNotRetainDocument() throws Exception {
+        JsonParserFactory factory = new JsonParserFactory().withPoolSize(1);
+        byte[] bytes = "{\"x\":1,\"name\":\"big\"}".getBytes(StandardCharsets.UTF_8);
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        WeakReference<byte[]> bytesRef = new WeakReference<>(bytes);
+        WeakReference<String> textRef = new WeakReference<>(text);
+        assertEquals(1, factory.parse(bytes, Point.class).x);
+        assertEquals(1, factory.parse(text, Point.class).x);
+        bytes = null;
+        text = null;
+        for (int i = 0; i < 10 && (bytesRef.get() != null || textRef.get() != null); i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        // состояние вернулось в пул, но последний документ больше не держит
+        assertNull(bytesRef.get());
+        assertNull(textRef.get());
+        assertEquals(Map.of("a", 2), factory.parse("{\"a\":2}"));
+    }
+
+    @Test
+    public void testBindingAndOptions() throws Exception {
+        JsonParserFactory factory = new JsonParserFactory();
+        Point point = factory.parse("{\"x\":3,\"y\":12345678901,\"name\":\"p\",\"extra\":[1]}", Point.class);
+        assertEquals(3, point.x);
+        assertEquals(12345678901L, point.y);
+        assertEquals("p", point.name);
+
+        point = factory.parse("{\"name\":\"q\",\"x\":-1}".getBytes(StandardCharsets.UTF_8), Point.class);
+        assertEquals(-1, point.x);
+        assertEquals("q", point.name);
+
+        assertEquals(List.of(1L, 2L), factory.parse("[1,2]", List.class).stream().map(n -> ((Number) n).longValue()).toList());
+
+        Object compact = new JsonParserFactory().withCompactTree(true).parse("{\"a\":[1,2]}");
+        assertInstanceOf(JsonObject.class, compact);
+        assertInstanceOf(JsonArray.class, ((Map<?, ?>) compact).get("a"));
+
+        Object lazy = new JsonParserFactory().withLazyNumbers(true).parse("[1.5]");
+        assertInstanceOf(JsonLazyNumber.class, ((List<?>) lazy).get(0));
+
+        assertThrows(IllegalArgumentException.class, () -> new JsonParserFactory().withPoolSize(0));
+    }
+
+    @Test
+    public void testConcurrentParsingOnVirtualThreads() throws Exception {
+        JsonParserFactory factory = new JsonParserFactory().withPoolSize(2);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 200; t++) {
+                int id = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        String json = "{\"x\":" + id + ",\"y\":" + i + ",\"name\":\"n" + id + "\"}";
+                        Point point = i % 2 == 0
+                                ? factory.parse(json, Point.class)
+                                : factory.parse(json.getBytes(StandardCharsets.UTF_8), Point.class);
+                        assertEquals(id, point.x);
+                        assertEquals(i, point.y);
+                        assertEquals("n" + id, point.name);
+                        Map<?, ?> map = (Map<?, ?>) factory.parse(json);
+                        assertEquals(id, map.get("x"));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+    }
+}
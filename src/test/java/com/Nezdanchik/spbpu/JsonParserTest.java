@@ -1,7 +1,18 @@
 package com.Nezdanchik.spbpu;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -195,5 +206,255 @@ public class JsonParserTest {
         assertEquals(123, nested.get("nestedKey"));
     }
 
+    @Test
+    public void testTokenizerPullMode() throws Exception {
+        JsonTokenizer tokenizer = new JsonTokenizer("{\"a\": [1, true]}");
+        assertEquals(JsonToken.Type.BracketObjectLeft, tokenizer.peek().type());
+        assertEquals(JsonToken.Type.BracketObjectLeft, tokenizer.nextToken().type());
+        assertEquals(new JsonToken(JsonToken.Type.String, "a"), tokenizer.nextToken());
+        assertEquals(JsonToken.Type.Colon, tokenizer.nextToken().type());
+        assertEquals(JsonToken.Type.BracketArrayLeft, tokenizer.nextToken().type());
+        assertEquals(new JsonToken(JsonToken.Type.Number, "1"), tokenizer.nextToken());
+        assertEquals(JsonToken.Type.Comma, tokenizer.nextToken().type());
+        assertEquals(JsonToken.Type.True, tokenizer.nextToken().type());
+        assertEquals(JsonToken.Type.BracketArrayRight, tokenizer.nextToken().type());
+        assertEquals(JsonToken.Type.BracketObjectRight, tokenizer.nextToken().type());
+        assertNull(tokenizer.peek());
+        assertNull(tokenizer.nextToken());
+    }
+
+    @Test
+    public void testParseStringTwice() throws Exception {
+        JsonParser parser = new JsonParser("{\"key\": [1, 2]}");
+        Map<String, Object> first = (Map<String, Object>) parser.parse();
+        Map<String, Object> second = (Map<String, Object>) parser.parse();
+        assertEquals(first, second);
+        assertEquals(List.of(1, 2), second.get("key"));
+    }
+
+    @Test
+    public void testTokensAcrossBufferBoundaries() throws Exception {
+        String json = "{\"name\": \"long string value\", \"esc\": \"a\\\"b\\u0041\", \"n\": 12345, \"ok\": false}";
+        // буфер в 3 символа заставляет почти каждый токен пересекать границу
+        JsonParser parser = new JsonParser(new JsonTokenizer(new StringReader(json), 3));
+        Map<String, Object> result = (Map<String, Object>) parser.parse();
+        assertEquals("long string value", result.get("name"));
+        assertEquals("a\"bA", result.get("esc"));
+        assertEquals(12345, result.get("n"));
+        assertEquals(false, result.get("ok"));
+    }
+
+    @Test
+    public void testParseInputStreamAndChannel() throws Exception {
+        byte[] bytes = "[\"\u043f\u0440\u0438\u0432\u0435\u0442\", 1]".getBytes(StandardCharsets.UTF_8);
+        List<Object> fromStream = (List<Object>) new JsonParser(new ByteArrayInputStream(bytes)).parse();
+        List<Object> fromChannel = (List<Object>) new JsonParser(
+                Channels.newChannel(new ByteArrayInputStream(bytes))).parse();
+        assertEquals(List.of("\u043f\u0440\u0438\u0432\u0435\u0442", 1), fromStream);
+        assertEquals(fromStream, fromChannel);
+    }
+
+    @Test
+    public void testParseUtf8Bytes() throws Exception {
+        String json = "{\"ascii\": \"plain\", \"text\": \"\u043f\u0440\u0438\u0432\u0435\u0442\", \"esc\": \"tab\\there\\u00e9\", \"list\": [1, -2.5, null]}";
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+
+        Map<String, Object> fromArray = (Map<String, Object>) new JsonParser(bytes).parse();
+        Map<String, Object> fromDirect = (Map<String, Object>) new JsonParser(direct).parse();
+        assertEquals("plain", fromArray.get("ascii"));
+        assertEquals("\u043f\u0440\u0438\u0432\u0435\u0442", fromArray.get("text"));
+        assertEquals("tab\there\u00e9", fromArray.get("esc"));
+        assertEquals(Arrays.asList(1, -2.5, null), fromArray.get("list"));
+        assertEquals(fromArray, fromDirect);
+        assertEquals(fromArray, new JsonParser(json).parse());
+    }
+
+    @Test
+    public void testByteTokensAcrossSegments() throws Exception {
+        byte[] bytes = "[\"\u043f\u0440\u0438\", 12345, true, \"a\\\"b\"]".getBytes(StandardCharsets.UTF_8);
+        // режем ввод на сегменты по 3 байта, в том числе посреди многобайтовых символов
+        ByteBuffer[] segments = new ByteBuffer[(bytes.length + 2) / 3];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = ByteBuffer.wrap(bytes, i * 3, Math.min(3, bytes.length - i * 3));
+        }
+        List<Object> result = (List<Object>) new JsonParser(new JsonByteTokenizer(segments)).parse();
+        assertEquals(List.of("\u043f\u0440\u0438", 12345, true, "a\"b"), result);
+    }
+
+    @Test
+    public void testParseMappedFile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("data.json");
+        Files.writeString(file, "{\"items\": [\"\u043e\u0434\u0438\u043d\", 2, {\"deep\": true}]}");
+
+        Map<String, Object> result = (Map<String, Object>) JsonParser.parse(file);
+        assertEquals(List.of("\u043e\u0434\u0438\u043d", 2, Map.of("deep", true)), result.get("items"));
+
+        // маленькие отображения проверяют переход токенов через границы, как у файлов больше 2 ГБ
+        ByteBuffer[] segments = JsonByteTokenizer.map(file, 5);
+        assertTrue(segments.length > 1);
+        assertEquals(result, new JsonParser(new JsonByteTokenizer(segments)).parse());
+    }
+
+    @Test
+    public void testParseByKeyStreaming() throws Exception {
+        String json = "{\"meta\": {\"skip\": [1, 2, {\"deep\": null}]}, \"event\": {\"id\": 42, \"name\": \"click\"}}";
+        assertEquals(42, new JsonParser(json).parseByKey("id", Integer.class));
+        assertEquals("click", new JsonParser(json.getBytes(StandardCharsets.UTF_8)).parseByKey("name", String.class));
+        // ключ с null-значением считается не найденным, как и раньше
+        assertThrows(IllegalArgumentException.class, () -> new JsonParser(json).parseByKey("deep", Object.class));
+        assertThrows(IllegalArgumentException.class, () -> new JsonParser(json).parseByKey("missing", Object.class));
+    }
+
+    @Test
+    public void testParseByKeyStopsAtFirstMatch() throws Exception {
+        // после совпадения документ дальше не читается, поэтому ошибка в хвосте не мешает
+        assertEquals("first", new JsonParser("{\"k\": \"first\", \"broken\": [1 2 3").parseByKey("k", String.class));
+    }
+
+    @Test
+    public void testParseByPointerAndPath() throws Exception {
+        String json = "{\"items\": [{\"name\": \"a\"}, {\"name\": \"b\", \"tags\": [\"x\", \"y\"]}], \"a/b\": {\"c~d\": 7}}";
+        JsonParser parser = new JsonParser(json);
+        assertEquals("b", parser.parseByPointer("/items/1/name", String.class));
+        assertEquals("y", parser.parseByPointer("/items/1/tags/1", String.class));
+        assertEquals(7, parser.parseByPointer("/a~1b/c~0d", Integer.class));
+        assertEquals("a", parser.parseByPath("items.0.name", String.class));
+        assertEquals(List.of("x", "y"), parser.parseByPath("items.1.tags", List.class));
+        assertThrows(IllegalArgumentException.class, () -> parser.parseByPath("items.5.name", String.class));
+        assertThrows(IllegalArgumentException.class, () -> parser.parseByPointer("/items/name", String.class));
+    }
+
+    @Test
+    public void testParseNumbers() throws Exception {
+        String json = "[0, -7, 2147483647, 2147483648, -9223372036854775808, 123456789012345678901234567890,"
+                + " 1.5, -0.25, 1e3, 2.5E-3, 1E+2, 0.1, 123456789.123456789, 1e400]";
+        List<Object> numbers = (List<Object>) new JsonParser(json).parse();
+        assertEquals(0, numbers.get(0));
+        assertEquals(-7, numbers.get(1));
+        assertEquals(Integer.MAX_VALUE, numbers.get(2));
+        assertEquals(2147483648L, numbers.get(3));
+        assertEquals(Long.MIN_VALUE, numbers.get(4));
+        assertEquals(new BigInteger("123456789012345678901234567890"), numbers.get(5));
+        assertEquals(1.5, numbers.get(6));
+        assertEquals(-0.25, numbers.get(7));
+        assertEquals(1000.0, numbers.get(8));
+        assertEquals(0.0025, numbers.get(9));
+        assertEquals(100.0, numbers.get(10));
+        assertEquals(0.1, numbers.get(11));
+        assertEquals(123456789.123456789, numbers.get(12));
+        assertEquals(new BigDecimal("1e400"), numbers.get(13));
+        assertEquals(numbers, new JsonParser(json.getBytes(StandardCharsets.UTF_8)).parse());
+
+        // порядок за пределами BigDecimal: как раньше, бесконечность
+        assertEquals(List.of(Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY),
+                new JsonParser("[1E45678901234567190, -2.5e99999999999]").parse());
+    }
+
+    @Test
+    public void testRejectInvalidNumbers() {
+        for (String json : List.of("[01]", "[1.]", "[-]", "[1e]", "[.5]", "[1.2.3]", "[1-2]")) {
+            assertThrows(IllegalArgumentException.class, () -> new JsonParser(json).parse(), json);
+        }
+    }
+
+    @Test
+    public void testLazyNumbers() throws Exception {
+        JsonParser parser = new JsonParser("{\"id\": 9007199254740993, \"ratio\": 0.1}");
+        parser.setLazyNumbers(true);
+        Map<String, Object> result = (Map<String, Object>) parser.parse();
+        JsonLazyNumber id = (JsonLazyNumber) result.get("id");
+        assertEquals("9007199254740993", id.toString());
+        assertEquals(9007199254740993L, id.longValue());
+        assertEquals(new BigDecimal("0.1"), ((JsonLazyNumber) result.get("ratio")).bigDecimalValue());
+    }
+
+    @Test
+    public void testRepeatedKeysShareOneString() throws Exception {
+        String json = "[{\"id\": 1, \"name\": \"a\"}, {\"id\": 2, \"name\": \"b\"}]";
+        for (JsonParser parser : List.of(new JsonParser(json), new JsonParser(json.getBytes(StandardCharsets.UTF_8)))) {
+            List<Map<String, Object>> records = (List<Map<String, Object>>) parser.parse();
+            String first = records.get(0).keySet().stream().filter("name"::equals).findFirst().orElseThrow();
+            String second = records.get(1).keySet().stream().filter("name"::equals).findFirst().orElseThrow();
+            assertSame(first, second);
+        }
+
+        // общая таблица переиспользует ключи между парсерами
+        JsonSymbolTable shared = new JsonSymbolTable();
+        JsonParser one = new JsonParser("{\"key\": 1}");
+        JsonParser two = new JsonParser("{\"key\": 2}".getBytes(StandardCharsets.UTF_8));
+        one.setSymbolTable(shared);
+        two.setSymbolTable(shared);
+        String key1 = ((Map<String, Object>) one.parse()).keySet().iterator().next();
+        String key2 = ((Map<String, Object>) two.parse()).keySet().iterator().next();
+        assertSame(key1, key2);
+        assertEquals(1, shared.size());
+    }
+
+    @Test
+    public void testCompactTree() throws Exception {
+        String json = "{\"name\": \"John\", \"ids\": [1, 2, 3000000000], \"scores\": [0.5, 1.5],"
+                + " \"mixed\": [1, 2.5, \"x\", null], \"nested\": {\"flag\": true}, \"name\": \"Jane\"}";
+        JsonParser parser = new JsonParser(json);
+        parser.setCompactTree(true);
+        JsonObject result = (JsonObject) parser.parse();
+
+        // дерево читается как обычные Map/List и равно результату обычного разбора
+        assertEquals(new JsonParser(json).parse(), result);
+        assertEquals(5, result.size());
+        assertEquals("Jane", result.get("name"));
+
+        JsonArray ids = (JsonArray) result.get("ids");
+        assertTrue(ids.isLongArray());
+        assertEquals(List.of(1, 2, 3000000000L), ids);
+        assertEquals(3000000000L, ids.getLong(2));
+        JsonArray scores = (JsonArray) result.get("scores");
+        assertTrue(scores.isDoubleArray());
+        assertEquals(1.5, scores.getDouble(1));
+        assertFalse(((JsonArray) result.get("mixed")).isLongArray());
+        assertEquals(true, ((Map<String, Object>) result.get("nested")).get("flag"));
+        assertThrows(UnsupportedOperationException.class, () -> result.put("x", 1));
+    }
+
+    @Test
+    public void testCompactTreeEmptyContainers() throws Exception {
+        for (String json : List.of("{}", "[]", "[[]]", "{\"a\":{}}", "[{}, [], {\"b\": []}]", "{\"a\": [[], {}], \"c\": 1}")) {
+            JsonParser parser = new JsonParser(json);
+            parser.setCompactTree(true);
+            assertEquals(new JsonParser(json).parse(), parser.parse(), json);
+        }
+        JsonParser parser = new JsonParser("[[]]".getBytes(StandardCharsets.UTF_8));
+        parser.setCompactTree(true);
+        JsonArray outer = (JsonArray) parser.parse();
+        assertEquals(1, outer.size());
+        assertTrue(((JsonArray) outer.get(0)).isEmpty());
+    }
+
+    @Test
+    public void testCompactTreeLargeObject() throws Exception {
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i < 100; i++) {
+            json.append(i > 0 ? "," : "").append("\"k").append(i).append("\":").append(i);
+        }
+        JsonParser parser = new JsonParser(json.append('}').toString().getBytes(StandardCharsets.UTF_8));
+        parser.setCompactTree(true);
+        JsonObject result = (JsonObject) parser.parse();
+        assertEquals(100, result.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, result.get("k" + i));
+            assertEquals("k" + i, result.keyAt(i));
+        }
+        assertNull(result.get("missing"));
+    }
+
+    @Test
+    public void testRejectMissingAndTrailingCommas() throws Exception {
+        for (String json : List.of("{\"a\": 1 \"b\": 2}", "{\"a\": 1,}", "[1, 2,]", "{\"a\": [1,], \"b\": 2}")) {
+            assertThrows(IllegalArgumentException.class, () -> new JsonParser(json).parse(), json);
+            JsonParser compact = new JsonParser(json);
+            compact.setCompactTree(true);
+            assertThrows(IllegalArgumentException.class, compact::parse, json);
+        }
+    }
 
 }
@@ -0,0 +1,95 @@
+package com.Nezdanchik.spbpu;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonProjectionTest {
+
+    public static class Address {
+        public String city;
+    }
+
+    public static class User {
+        public int id;
+        public Address address;
+        public List<Address> previous;
+        public User friend;
+    }
+
+    private static final String JSON = "{\"noise\":{\"a\":[1,{\"b\":\"}]\\\"[{\"}],\"c\":null},"
+            + "\"id\":7,\"skip\":\"x\\\"y\",\"address\":{\"street\":\"s\",\"city\":\"Spb\"},"
+            + "\"previous\":[{\"city\":\"Msk\",\"zip\":1}],\"flag\":true,"
+            + "\"friend\":{\"id\":8,\"friend\":null,\"extra\":[[],{}]},\"ключ\":-1.5e3}";
+
+    private static Object parse(JsonParser parser, JsonProjection projection) throws Exception {
+        parser.setProjection(projection);
+        return parser.parse();
+    }
+
+    // одинаковый результат у всех источников токенов
+    private static Object parseAll(String json, JsonProjection projection) throws Exception {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        Object expected = parse(new JsonParser(bytes), projection);
+        assertEquals(expected, parse(new JsonParser(json), projection));
+        assertEquals(expected, parse(new JsonParser(new StringReader(json)), projection));
+        assertEquals(expected, parse(new JsonParser(ByteBuffer.allocateDirect(bytes.length).put(bytes).flip()), projection));
+        Object tree = new JsonParser(json).parse();
+        assertEquals(expected, parse(new JsonParser(new CborTokenSource(new CborSerializer().toCbor(tree))), projection));
+        return expected;
+    }
+
+    @Test
+    public void testClassProjection() throws Exception {
+        Map<?, ?> result = (Map<?, ?>) parseAll(JSON, JsonProjection.of(User.class));
+        assertEquals(4, result.size());
+        assertEquals(7, result.get("id"));
+        assertEquals(Map.of("city", "Spb"), result.get("address"));
+        assertEquals(List.of(Map.of("city", "Msk")), result.get("previous"));
+        Map<?, ?> friend = (Map<?, ?>) result.get("friend");
+        assertEquals(8, friend.get("id"));
+        assertTrue(friend.containsKey("friend"));
+        assertNull(friend.get("friend"));
+        assertEquals(2, friend.size());
+        // привязка к классу тоже пропускает ненужные поля без разбора
+        User user = new JsonParser(JSON).parse(User.class);
+        assertEquals(7, user.id);
+        assertEquals("Spb", user.address.city);
+        assertEquals("Msk", user.previous.get(0).city);
+        assertEquals(8, user.friend.id);
+        assertNull(user.friend.friend);
+        assertSame(JsonProjection.of(User.class), JsonProjection.of(User.class));
+        assertThrows(IllegalArgumentException.class, () -> JsonProjection.of(String.class));
+    }
+
+    @Test
+    public void testPathProjection() throws Exception {
+        Object result = parseAll(JSON, JsonProjection.of("address.city", "previous.zip", "noise.a", "ключ"));
+        assertEquals(Map.of(
+                "address", Map.of("city", "Spb"),
+                "previous", List.of(Map.of("zip", 1)),
+                "noise", Map.of("a", List.of(1, Map.of("b", "}]\"[{"))),
+                "ключ", -1500.0), result);
+        // путь и его начало: значение берётся целиком
+        assertEquals(Map.of("address", Map.of("street", "s", "city", "Spb")),
+                parseAll(JSON, JsonProjection.of("address.city", "address")));
+        assertEquals(Map.of(), parseAll(JSON, JsonProjection.of("missing.value")));
+        assertEquals(List.of(Map.of("id", 1), Map.of()), parseAll("[{\"id\":1,\"x\":2},{\"y\":[3]}]", JsonProjection.of("id")));
+        assertThrows(IllegalArgumentException.class, () -> JsonProjection.of("a..b"));
+    }
+
+    @Test
+    public void testSkippedValueErrors() {
+        JsonProjection projection = JsonProjection.of("id");
+        assertThrows(IllegalArgumentException.class, () -> parse(new JsonParser("{\"x\":[1,2".getBytes(StandardCharsets.UTF_8)), projection));
+        assertThrows(IllegalArgumentException.class, () -> parse(new JsonParser("{\"x\":\"abc".getBytes(StandardCharsets.UTF_8)), projection));
+        assertThrows(IllegalArgumentException.class, () -> parse(new JsonParser("{\"x\":{\"y\":1}"), projection));
+        assertThrows(IllegalArgumentException.class, () -> parse(new JsonParser("{\"x\":tru}".getBytes(StandardCharsets.UTF_8)), projection));
+    }
+}
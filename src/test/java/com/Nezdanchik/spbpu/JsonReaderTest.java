@@ -0,0 +1,90 @@
+package com.Nezdanchik.spbpu;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonReaderTest {
+
+    @Test
+    public void testEventSequence() throws Exception {
+        JsonReader reader = new JsonReader("{\"a\": [1, \"x\", true, false, null], \"b\": {}}");
+        List<JsonReader.Event> events = new ArrayList<>();
+        JsonReader.Event event;
+        while ((event = reader.nextEvent()) != null) {
+            events.add(event);
+        }
+        assertEquals(List.of(
+                JsonReader.Event.START_OBJECT,
+                JsonReader.Event.FIELD_NAME,
+                JsonReader.Event.START_ARRAY,
+                JsonReader.Event.VALUE_NUMBER,
+                JsonReader.Event.VALUE_STRING,
+                JsonReader.Event.VALUE_TRUE,
+                JsonReader.Event.VALUE_FALSE,
+                JsonReader.Event.VALUE_NULL,
+                JsonReader.Event.END_ARRAY,
+                JsonReader.Event.FIELD_NAME,
+                JsonReader.Event.START_OBJECT,
+                JsonReader.Event.END_OBJECT,
+                JsonReader.Event.END_OBJECT), events);
+    }
+
+    @Test
+    public void testPullFieldsAndSkipChildren() throws Exception {
+        String json = "[{\"id\": 1, \"payload\": {\"big\": [1, 2, {\"x\": \"y\"}]}, \"name\": \"first\"},"
+                + " {\"id\": 2, \"payload\": [], \"name\": \"second\"}]";
+        JsonReader reader = new JsonReader(json.getBytes(StandardCharsets.UTF_8));
+        List<String> names = new ArrayList<>();
+        int idSum = 0;
+        assertEquals(JsonReader.Event.START_ARRAY, reader.nextEvent());
+        while (reader.nextEvent() == JsonReader.Event.START_OBJECT) {
+            while (reader.nextEvent() == JsonReader.Event.FIELD_NAME) {
+                String field = reader.getText();
+                reader.nextEvent();
+                if (field.equals("id")) {
+                    idSum += reader.getNumber().intValue();
+                } else if (field.equals("name")) {
+                    names.add(reader.getText());
+                } else {
+                    reader.skipChildren();
+                }
+            }
+        }
+        assertEquals(JsonReader.Event.END_ARRAY, reader.currentEvent());
+        assertNull(reader.nextEvent());
+        assertEquals(3, idSum);
+        assertEquals(List.of("first", "second"), names);
+    }
+
+    @Test
+    public void testReadValue() throws Exception {
+        JsonReader reader = new JsonReader("{\"k\": [1, {\"n\": null}], \"s\": \"v\"}");
+        reader.nextEvent();
+        Map<String, Object> value = (Map<String, Object>) reader.readValue();
+        assertEquals("v", value.get("s"));
+        assertEquals(2, ((List<?>) value.get("k")).size());
+        assertNull(reader.nextEvent());
+    }
+
+    @Test
+    public void testRejectsMalformedStructure() {
+        assertThrows(IllegalArgumentException.class, () -> readAll("[1 2]"));
+        assertThrows(IllegalArgumentException.class, () -> readAll("[1,]"));
+        assertThrows(IllegalArgumentException.class, () -> readAll("{\"a\" 1}"));
+        assertThrows(IllegalArgumentException.class, () -> readAll("{\"a\": 1"));
+        assertThrows(IllegalArgumentException.class, () -> readAll("[1}"));
+    }
+
+    private static void readAll(String json) throws Exception {
+        JsonReader reader = new JsonReader(json);
+        while (reader.nextEvent() != null) {
+            // просто читаем до конца
+        }
+    }
+}
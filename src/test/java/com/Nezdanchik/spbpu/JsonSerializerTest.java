@@ -0,0 +1,121 @@
+package com.Nezdanchik.spbpu;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonSerializerTest {
+
+    public static class Point {
+        private static final String KIND = "point";  // статические поля не сериализуются
+        private int x = 1;
+        private int y = 2;
+    }
+
+    public static class Shape {
+        private String name = "line";
+        private Point start = new Point();
+        private List<Integer> sizes = List.of(3, 4);
+    }
+
+    @Test
+    public void testSerializeObject() throws Exception {
+        String expected = "{\n"
+                + "  \"name\": \"line\",\n"
+                + "  \"start\": {\n"
+                + "    \"x\": 1,\n"
+                + "    \"y\": 2\n"
+                + "  },\n"
+                + "  \"sizes\": [\n"
+                + "    3,\n"
+                + "    4\n"
+                + "  ]\n"
+                + "}";
+        assertEquals(expected, JsonSerializer.serializeToJson(new Shape()));
+    }
+
+    @Test
+    public void testWriterPlanIsCachedPerClass() {
+        ClassWriter writer = ClassWriter.of(Point.class);
+        assertSame(writer, ClassWriter.of(Point.class));
+        assertEquals(2, writer.fields.length);
+        assertEquals("\"x\":", new String(writer.fields[0].prefix));
+        assertArrayEquals("\"y\":".getBytes(), writer.fields[1].prefixUtf8);
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        String json = JsonSerializer.serializeToJson(new Shape());
+        Map<String, Object> parsed = (Map<String, Object>) new JsonParser(json).parse();
+        assertEquals("line", parsed.get("name"));
+        assertEquals(Map.of("x", 1, "y", 2), parsed.get("start"));
+        assertEquals(List.of(3, 4), parsed.get("sizes"));
+    }
+
+    @Test
+    public void testSerializeToSinks() throws Exception {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("text", "\u043f\u0440\u0438\u0432\u0435\u0442 \"quoted\"\n\ud83d\ude00");
+        value.put("items", List.of(1, 2.5, true));
+        String expected = new JsonSerializer().toJson(value);
+
+        StringWriter writer = new StringWriter();
+        JsonSerializer.serialize(value, writer);
+        assertEquals(expected, writer.toString());
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        JsonSerializer.serialize(value, stream);
+        assertEquals(expected, stream.toString(StandardCharsets.UTF_8));
+
+        // маленький direct-буфер заменяется большим, уже записанные байты сохраняются
+        ByteBuffer buffer = ByteBuffer.allocateDirect(4).put((byte) '#');
+        buffer = JsonSerializer.serialize(value, buffer);
+        assertTrue(buffer.isDirect());
+        buffer.flip();
+        assertEquals('#', buffer.get());
+        assertEquals(expected, StandardCharsets.UTF_8.decode(buffer).toString());
+        assertEquals(value, new JsonParser(expected).parse());
+    }
+
+    public static class Options {
+        public String name = "n";
+        public String missing = null;
+        private transient int cache = 5;
+        private int hidden = 1;
+    }
+
+    @Test
+    public void testCompactAndOptions() throws Exception {
+        assertEquals("{\"name\":\"line\",\"start\":{\"x\":1,\"y\":2},\"sizes\":[3,4]}",
+                new JsonSerializer().toJson(new Shape()));
+        assertEquals(JsonSerializer.serializeToJson(new Shape()),
+                new JsonSerializer(JsonSerializerOptions.pretty()).toJson(new Shape()));
+
+        assertEquals("{\"name\":\"n\",\"missing\":null,\"cache\":5,\"hidden\":1}",
+                new JsonSerializer().toJson(new Options()));
+        assertEquals("{\"name\":\"n\",\"hidden\":1}", new JsonSerializer(JsonSerializerOptions.compact()
+                .withSkipNulls(true)
+                .withFieldInclusion(JsonSerializerOptions.FieldInclusion.NON_TRANSIENT)).toJson(new Options()));
+        assertEquals("{\"name\":\"n\",\"missing\":null}", new JsonSerializer(JsonSerializerOptions.compact()
+                .withFieldInclusion(JsonSerializerOptions.FieldInclusion.PUBLIC)).toJson(new Options()));
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("b", 1);
+        map.put("a", null);
+        map.put("c", List.of());
+        assertEquals("{\"b\":1,\"a\":null,\"c\":[]}", new JsonSerializer().toJson(map));
+        assertEquals("{\"b\":1,\"c\":[]}",
+                new JsonSerializer(JsonSerializerOptions.compact().withSkipNulls(true)).toJson(map));
+        assertEquals("{\"a\":null,\"b\":1,\"c\":[]}", new JsonSerializer(JsonSerializerOptions.compact()
+                .withKeyOrder(JsonSerializerOptions.KeyOrder.SORTED)).toJson(map));
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.Nezdanchik.spbpu;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonTapeTest {
+
+    @Test
+    public void testSameResultAsParser() throws Exception {
+        StringBuilder longString = new StringBuilder();
+        for (int i = 0; i < 70; i++) {
+            longString.append(i % 7 == 0 ? "\\\\\\\"" : "{x}, ");  // экранирование на границах 64-байтовых блоков
+        }
+        List<String> documents = List.of(
+                "{\"name\": \"John\", \"age\": 30, \"ratio\": -1.5e3, \"ok\": true, \"no\": false, \"none\": null}",
+                "[1, 3000000000, 12345678901234567890, 0.1, [], {}, [[{\"a\": []}]]]",
+                "{\"s\": \"" + longString + "\", \"after\": [true]}",
+                "\"\\u0041\\n\\\\\"",
+                "  42  ",
+                "{\"юникод\": \"значение 😀\", \"k\": \"\\\"quoted\\\"\"}");
+        for (String json : documents) {
+            assertEquals(new JsonParser(json).parse(), JsonTape.parse(json).toValue(), json);
+        }
+    }
+
+    @Test
+    public void testStructuralIndex() {
+        String json = "{\"a\": [12, \"b,c\"], \"d\": true}";
+        int[] index = JsonTape.index(json.getBytes(), json.length());
+        int count = index[index.length - 1];
+        StringBuilder found = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            found.append(json.charAt(index[i]));
+        }
+        // запятая внутри строки не структурная, у литералов отмечается только первый символ
+        assertEquals("{\"\":[1,\"\"],\"\":t}", found.toString());
+    }
+
+    @Test
+    public void testNavigateTape() {
+        JsonTape tape = JsonTape.parse("{\"skip\": {\"deep\": [1, 2, 3]}, \"id\": 7, \"score\": 2.5}");
+        assertEquals(JsonToken.Type.BracketObjectLeft, tape.type(0));
+        int p = tape.next(1);            // значение "skip"
+        p = tape.next(p);                // объект пропускается целиком
+        assertEquals("id", tape.getString(p));
+        p = tape.next(p);
+        assertEquals(7, tape.getLong(p));
+        p = tape.next(tape.next(p));
+        assertEquals(2.5, tape.getDouble(p));
+        assertEquals(JsonToken.Type.BracketObjectRight, tape.type(tape.next(p)));
+        assertEquals(tape.size(), tape.next(0));
+    }
+
+    @Test
+    public void testRejectInvalidInput() {
+        for (String json : List.of("{\"a\" 1}", "[1 2]", "[1,]", "{\"a\": tru}", "[01]", "\"open", "[1]]", "[12x]", "{1: 2}")) {
+            assertThrows(IllegalArgumentException.class, () -> JsonTape.parse(json), json);
+        }
+        assertThrows(IllegalStateException.class, () -> JsonTape.parse("   "));
+    }
+}
@@ -0,0 +1,120 @@
+package com.Nezdanchik.spbpu;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class JsonValidatorTest {
+
+    @Test
+    public void testValidDocuments() throws Exception {
+        StringBuilder deep = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            deep.append(i % 2 == 0 ? "[" : "{\"k\":");
+        }
+        deep.append('1');
+        for (int i = 199; i >= 0; i--) {
+            deep.append(i % 2 == 0 ? "]" : "}");
+        }
+        List<String> documents = List.of(
+                "{\"name\": \"John\", \"tags\": [\"a\", \"b\"], \"age\": 30, \"ok\": true, \"none\": null}",
+                "[0, -0, 1.5, -2e10, 3E+2, 4.0e-3, 12345678901234567890]",
+                "\"\\u0041\\n\\\"\\\\\\/\"",
+                "  false \r\n",
+                "{\"юникод\": \"значение 😀\"}",
+                "{}", "[]", "7", deep.toString(),
+                // длиннее буфера: строка дочитывается несколькими заполнениями
+                "[" + "\"abcdefgh\",".repeat(2000) + "0]");
+        for (String json : documents) {
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            JsonValidator.validate(json);
+            JsonValidator.validate(bytes);
+            JsonValidator.validate(new ByteArrayInputStream(bytes));
+            JsonValidator.validate(new OneByteInputStream(bytes));  // каждый байт — на границе буфера
+        }
+    }
+
+    @Test
+    public void testRejectInvalidDocuments() {
+        List<String> documents = List.of("", "{", "[1,]", "{\"a\": 1,}", "{\"a\": 1 \"b\": 2}", "[1 2]",
+                "{a: 1}", "{\"a\" 1}", "[01]", "[1.]", "[.5]", "[-]", "[1e]", "[tru]", "[nul]", "\"a\tb\"",
+                "\"\\x\"", "\"\\u12G4\"", "\"open", "[1]]", "{} {}", "[+1]", "[NaN]", "['a']",
+                "\"\\u１２３４\"");  // полноширинные цифры не шестнадцатеричные
+        for (String json : documents) {
+            assertFalse(JsonValidator.isValid(json), json);
+            assertFalse(JsonValidator.isValid(json.getBytes(StandardCharsets.UTF_8)), json);
+        }
+    }
+
+    @Test
+    public void testRejectInvalidUtf8() {
+        byte[][] documents = {
+                {'"', (byte) 0xC0, (byte) 0xAF, '"'},              // избыточная форма
+                {'"', (byte) 0xED, (byte) 0xA0, (byte) 0x80, '"'}, // суррогат
+                {'"', (byte) 0xE2, (byte) 0x82, '"'},              // обрыв последовательности
+                {'"', (byte) 0xFF, '"'}};
+        for (byte[] json : documents) {
+            assertFalse(JsonValidator.isValid(json));
+        }
+    }
+
+    @Test
+    public void testErrorPosition() {
+        JsonValidationException e = assertThrows(JsonValidationException.class,
+                () -> JsonValidator.validate("{\n  \"a\": 1,\n  \"b\": [1, 2,]\n}"));
+        assertEquals(3, e.getLine());
+        assertEquals(14, e.getColumn());
+        assertEquals(25, e.getOffset());
+        assertTrue(e.getMessage().contains("line 3, column 14"), e.getMessage());
+
+        // смещение в байтовом вводе считается в байтах
+        e = assertThrows(JsonValidationException.class,
+                () -> JsonValidator.validate("[\"ж\" 1]".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(6, e.getOffset());
+        assertEquals(1, e.getLine());
+    }
+
+    @Test
+    public void testNoBufferPerCall() throws Exception {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        String json = "[" + "\"значение\",".repeat(1000) + "0]";
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        ByteArrayInputStream stream = new ByteArrayInputStream(bytes);
+        for (int i = 0; i < 1000; i++) {
+            JsonValidator.validate(json);
+            stream.reset();
+            JsonValidator.validate(stream);
+        }
+        long thread = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < 1000; i++) {
+            JsonValidator.validate(json);
+            stream.reset();
+            JsonValidator.validate(stream);
+        }
+        // по буферу на вызов было бы больше 8 МБ; остаются только сами валидаторы
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+        assertTrue(allocated < 1000 * 2 * 256, "allocated " + allocated);
+    }
+
+    private static class OneByteInputStream extends FilterInputStream {
+        OneByteInputStream(byte[] bytes) {
+            super(new ByteArrayInputStream(bytes));
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            return super.read(buffer, offset, Math.min(length, 1));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.Nezdanchik.spbpu;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ObjectMapperTest {
+
+    public static class Address {
+        private String city;
+        private int zip;
+    }
+
+    public static class Person {
+        private static int instances = 0;  // статические поля не заполняются
+        private String name;
+        private long id;
+        private double score;
+        private boolean active;
+        private Address address;
+        private List<Address> history;
+        private List<Integer> numbers;
+    }
+
+    public static class Sample {
+        private int[] ids;
+        private long[] stamps;
+        private double[] weights;
+        private String[] tags;
+        private float ratio;
+        private short small;
+        private byte tiny;
+        private Boolean flag;
+        private Integer boxed;
+        private int untouched = 5;
+        private Map<String, Object> extra;
+        private List<Address> addresses;
+    }
+
+    @Test
+    public void testStreamingBinding() throws Exception {
+        String json = "{\"ids\": [1, 2, 3], \"stamps\": [3000000000], \"weights\": [0.5, 2, -1.25e2],"
+                + " \"tags\": [\"a\", \"b\"], \"ratio\": 0.25, \"small\": 12, \"tiny\": -3, \"flag\": false,"
+                + " \"boxed\": 42, \"untouched\": null, \"unknown\": {\"deep\": [1, {\"x\": []}]},"
+                + " \"extra\": {\"k\": [true]}, \"addresses\": [{\"city\": \"A\", \"zip\": 1}, {\"city\": \"B\"}]}";
+        for (JsonParser parser : List.of(new JsonParser(json), new JsonParser(json.getBytes(StandardCharsets.UTF_8)))) {
+            Sample sample = parser.parse(Sample.class);
+            assertArrayEquals(new int[]{1, 2, 3}, sample.ids);
+            assertArrayEquals(new long[]{3000000000L}, sample.stamps);
+            assertArrayEquals(new double[]{0.5, 2, -125}, sample.weights);
+            assertArrayEquals(new String[]{"a", "b"}, sample.tags);
+            assertEquals(0.25f, sample.ratio);
+            assertEquals(12, sample.small);
+            assertEquals(-3, sample.tiny);
+            assertEquals(false, sample.flag);
+            assertEquals(42, sample.boxed);
+            assertEquals(5, sample.untouched);  // null не меняет значение по умолчанию
+            assertEquals(Map.of("k", List.of(true)), sample.extra);
+            assertEquals("B", sample.addresses.get(1).city);
+            assertEquals(1, sample.addresses.get(0).zip);
+        }
+    }
+
+    @Test
+    public void testStreamingBindingTypeMismatch() throws Exception {
+        assertThrows(IllegalArgumentException.class, () -> new JsonParser("{\"zip\": \"x\"}").parse(Address.class));
+        assertThrows(IllegalArgumentException.class, () -> new JsonParser("{\"city\": 1}").parse(Address.class));
+        assertThrows(IllegalArgumentException.class, () -> new JsonParser("{\"ids\": [1, \"2\"]}").parse(Sample.class));
+        assertThrows(IllegalArgumentException.class, () -> new JsonParser("{\"city\": \"A\",}").parse(Address.class));
+    }
+
+    @Test
+    public void testParseIntoClass() throws Exception {
+        String json = "{\"name\": \"Ann\", \"id\": 7, \"score\": 1.5, \"active\": true, \"instances\": 99,"
+                + " \"address\": {\"city\": \"Spb\", \"zip\": 190000}, \"numbers\": [1, 2, 3]}";
+        Person person = new JsonParser(json).parse(Person.class);
+        assertEquals("Ann", person.name);
+        assertEquals(7L, person.id);
+        assertEquals(1.5, person.score);
+        assertTrue(person.active);
+        assertEquals("Spb", person.address.city);
+        assertEquals(190000, person.address.zip);
+        assertEquals(List.of(1, 2, 3), person.numbers);
+        assertNull(person.history);
+        assertEquals(0, Person.instances);
+    }
+
+    @Test
+    public void testBinderIsCachedPerClass() throws Exception {
+        assertSame(ClassBinder.of(Person.class), ClassBinder.of(Person.class));
+        for (int i = 0; i < 3; i++) {
+            Address address = new JsonParser("{\"city\": \"c" + i + "\", \"zip\": " + i + "}").parse(Address.class);
+            assertEquals("c" + i, address.city);
+            assertEquals(i, address.zip);
+        }
+    }
+}